@@ -0,0 +1,17 @@
+package com.gentorox.core.model;
+
+/**
+ * Incremental output of a streaming inference request: zero or more {@link Token} and {@link ToolCall}
+ * events, terminated by a single {@link Done} carrying the complete response.
+ */
+public sealed interface InferenceStreamEvent {
+
+  /** A partial piece of the model's text answer, in arrival order. */
+  record Token(String text) implements InferenceStreamEvent {}
+
+  /** The model requested a tool; emitted right before the tool executes. */
+  record ToolCall(String toolName, String jsonArguments) implements InferenceStreamEvent {}
+
+  /** Terminal event with the full answer. */
+  record Done(InferenceResponse response) implements InferenceStreamEvent {}
+}
@@ -2,8 +2,11 @@ package com.gentorox.protocols;
 
 import com.gentorox.core.model.InferenceRequest;
 import com.gentorox.core.model.InferenceResponse;
+import com.gentorox.services.agent.OrchestratorEvent;
+import com.gentorox.services.telemetry.TelemetryService;
 import io.modelcontextprotocol.json.McpJsonMapper;
 import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.transport.WebFluxStreamableServerTransportProvider;
@@ -14,12 +17,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.util.Assert;
 import org.springframework.web.reactive.function.server.RouterFunction;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * MCP Async Server configuration for the HTTP Streamable transport (Spring WebFlux).
@@ -34,6 +42,8 @@ import java.util.Map;
  * The transport endpoint can be configured via application properties:
  * - agentProtocol.mcp.config.disallowDelete (default: false)
  * - agentProtocol.mcp.config.messageEndpoint (default: /mcp)
+ * - agentProtocol.mcp.config.maxConcurrentRuns (default: 32) — orchestrations executing at once
+ * - agentProtocol.mcp.config.maxQueuedRuns (default: 128) — orchestrations waiting for a slot
  * The final URL is built from the server port and optional servlet context path.
  */
 @Configuration
@@ -106,12 +116,30 @@ public class McpServerConfig {
         .build();
   }
 
+  /**
+   * Admission control for orchestrations: at most maxConcurrentRuns run at once and saturation beyond
+   * maxConcurrentRuns + maxQueuedRuns is rejected.
+   */
+  @Bean(destroyMethod = "close")
+  OrchestrationExecutor orchestrationExecutor(@Value("${agentProtocol.mcp.config.maxConcurrentRuns:32}") int maxConcurrentRuns,
+                                              @Value("${agentProtocol.mcp.config.maxQueuedRuns:128}") int maxQueuedRuns,
+                                              TelemetryService telemetry) {
+    LOG.info("MCP orchestration limits: maxConcurrentRuns={}, maxQueuedRuns={}", maxConcurrentRuns, maxQueuedRuns);
+    return OrchestrationExecutor.create(maxConcurrentRuns, maxQueuedRuns, telemetry);
+  }
+
   /**
    * Defines a single asynchronous tool exposed by the MCP server. The tool proxies calls
    * to the internal Orchestrator using a user-provided prompt plus optional options map.
+   * The orchestration runs on the {@link OrchestrationExecutor}; when it is saturated the call
+   * fails fast with a "429 Too Many Requests" tool error.
+   * When the client sends a progress token, partial model output and tool calls are forwarded as
+   * MCP progress notifications while the answer is generated.
    */
   @Bean
-  McpServerFeatures.AsyncToolSpecification asyncToolSpecification(McpJsonMapper jsonMapper, com.gentorox.services.agent.Orchestrator orchestrator) {
+  McpServerFeatures.AsyncToolSpecification asyncToolSpecification(McpJsonMapper jsonMapper,
+                                                                   com.gentorox.services.agent.Orchestrator orchestrator,
+                                                                   OrchestrationExecutor executor) {
     return new McpServerFeatures.AsyncToolSpecification (
         McpSchema.Tool.builder()
             .name("gentoro.run")
@@ -122,6 +150,7 @@ public class McpServerConfig {
               {
                 "prompt": "Summarize the latest release notes for the Gentoro API and highlight any breaking changes.",
                 "options": {
+                  "sessionId": "release-review-42",
                   "headers": {
                     "Authorization": "Bearer sk-abc123...",
                     "Content-Type": "application/json"
@@ -143,7 +172,10 @@ public class McpServerConfig {
                         ),
                         "options", Map.of(
                             "type", "object",
-                            "description", "Collection of additional settings to be used during the request, such as headers or auth"
+                            "description", "Collection of additional settings to be used during the request, such as headers or auth. "
+                                + "Calls sharing a `sessionId` continue one conversation; calls without one are one-shot "
+                                + "and may be answered from the response cache, shared only by calls with the same other options "
+                                + "(`noCache: true` skips it, `noSemanticCache: true` only accepts exact matches)"
                         )
                     ),
                     List.of("prompt"), // prompt is required
@@ -172,20 +204,66 @@ public class McpServerConfig {
             final Object optionsObj = args.get("options");
             final Map<String, Object> options = asObjectMap(optionsObj); // may be null
 
-            InferenceResponse resp = orchestrator.run(List.of(new InferenceRequest.Message("user", prompt)), options == null ? Map.of() : options);
-            Assert.notNull(resp, "Orchestrator response must not be null");
-
-            return Mono.just(
-                new McpSchema.CallToolResult(
-                    jsonMapper.writeValueAsString(
-                        Map.of("content", resp.content(), "traceId", resp.providerTraceId())),
-                    false));
+            // 3) Run the reactive orchestration under the concurrency limit; reject right away when saturated
+            final Map<String, Object> runOptions = options == null ? Map.of() : options;
+            final List<InferenceRequest.Message> messages = List.of(new InferenceRequest.Message("user", prompt));
+            final Object progressToken = request.meta() == null ? null : request.meta().get("progressToken");
+            return executor.admit(() -> progressToken == null
+                    ? orchestrator.runAsync(messages, runOptions)
+                    : withProgress(exchange, String.valueOf(progressToken), orchestrator.stream(messages, runOptions)))
+                .switchIfEmpty(Mono.error(new IllegalStateException("Orchestrator response must not be null")))
+                .map(resp -> toCallToolResult(jsonMapper, resp))
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                  LOG.warn("Rejecting tool call {}: {}", request.name(), e.getMessage());
+                  return Mono.just(new McpSchema.CallToolResult(
+                      "429 Too Many Requests: the agent is at capacity, retry later", true));
+                })
+                .onErrorResume(e -> {
+                  LOG.error("Failed while executing tool call {}", request.name(), e);
+                  return Mono.just(new McpSchema.CallToolResult("Failed while executing tool call: " + request.name(), true));
+                });
           } catch (Exception e) {
             return Mono.just(new McpSchema.CallToolResult("Failed while executing tool call: " + request.name(), true));
           }
         });
   }
 
+  /**
+   * Forwards streaming orchestration events as progress notifications and resolves to the final response.
+   * Notification failures (e.g. the client went away) are logged and do not abort the run.
+   */
+  private static Mono<InferenceResponse> withProgress(McpAsyncServerExchange exchange, String progressToken,
+                                                      Flux<OrchestratorEvent> events) {
+    AtomicInteger progress = new AtomicInteger();
+    return events
+        .concatMap(event -> switch (event) {
+          case OrchestratorEvent.Partial p -> notifyProgress(exchange, progressToken, progress.incrementAndGet(), p.text());
+          case OrchestratorEvent.ToolInvoked t -> notifyProgress(exchange, progressToken, progress.incrementAndGet(), "Calling tool " + t.toolName());
+          case OrchestratorEvent.Completed c -> Mono.just(c.response());
+          default -> Mono.<InferenceResponse>empty();
+        })
+        .singleOrEmpty();
+  }
+
+  private static Mono<InferenceResponse> notifyProgress(McpAsyncServerExchange exchange, String progressToken, int progress, String message) {
+    return exchange.progressNotification(new McpSchema.ProgressNotification(progressToken, progress, null, message))
+        .onErrorResume(e -> {
+          LOG.debug("Failed to send progress notification {}", progressToken, e);
+          return Mono.empty();
+        })
+        .then(Mono.empty());
+  }
+
+  private static McpSchema.CallToolResult toCallToolResult(McpJsonMapper jsonMapper, InferenceResponse resp) {
+    try {
+      return new McpSchema.CallToolResult(
+          jsonMapper.writeValueAsString(Map.of("content", resp.content(), "traceId", resp.providerTraceId())),
+          false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private static Map<String, Object> asObjectMap(Object v) {
     if (v instanceof Map<?, ?> m) {
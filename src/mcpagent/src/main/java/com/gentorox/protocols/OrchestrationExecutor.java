@@ -0,0 +1,190 @@
+package com.gentorox.protocols;
+
+import com.gentorox.services.telemetry.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admits orchestration work with bounded concurrency so it never piles up on the WebFlux event loop.
+ *
+ * <p>At most {@code maxConcurrent} tasks execute at once and up to {@code maxQueued} more wait for a slot.
+ * Anything beyond that is rejected immediately with a {@link RejectedExecutionException} so callers can answer
+ * with a "too many requests" error instead of piling up latency. Work is admitted as a reactive
+ * {@link #admit(Supplier)}; waiting for a slot does not hold any thread.
+ *
+ * Instances built by {@link #create(int, int, TelemetryService)} expose the gauges
+ * {@code com.gentorox.orchestrator.inflight} and {@code com.gentorox.orchestrator.queued}.
+ * This class is thread-safe.
+ */
+public class OrchestrationExecutor implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(OrchestrationExecutor.class);
+
+  private final int maxConcurrent;
+  private final int maxQueued;
+  private final Slots slots;
+  private final AtomicInteger admitted = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  // registered by create() once the instance is fully constructed
+  private AutoCloseable inFlightGauge;
+  private AutoCloseable queuedGauge;
+
+  /**
+   * @param maxConcurrent maximum number of orchestrations running at the same time (at least 1)
+   * @param maxQueued     maximum number of orchestrations waiting for a slot (0 disables queueing)
+   */
+  public OrchestrationExecutor(int maxConcurrent, int maxQueued) {
+    if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be >= 1");
+    if (maxQueued < 0) throw new IllegalArgumentException("maxQueued must be >= 0");
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueued = maxQueued;
+    this.slots = new Slots(maxConcurrent);
+  }
+
+  /**
+   * Creates an executor and registers its in-flight and queued gauges.
+   *
+   * @param telemetry telemetry service used to register gauges; may be null
+   */
+  public static OrchestrationExecutor create(int maxConcurrent, int maxQueued, TelemetryService telemetry) {
+    OrchestrationExecutor executor = new OrchestrationExecutor(maxConcurrent, maxQueued);
+    if (telemetry != null) {
+      executor.inFlightGauge = telemetry.registerGauge(
+          "com.gentorox.orchestrator.inflight", "Orchestrations currently executing", executor::inFlight);
+      executor.queuedGauge = telemetry.registerGauge(
+          "com.gentorox.orchestrator.queued", "Orchestrations waiting for an execution slot", executor::queued);
+    }
+    return executor;
+  }
+
+  /**
+   * Returns a Mono that, on subscription, admits the work and subscribes to the Mono produced by {@code work}
+   * once a slot is free. Emits a {@link RejectedExecutionException} when both the execution slots and the queue
+   * are full. Cancelling the subscription removes queued work or cancels running work, freeing its slot.
+   */
+  public <T> Mono<T> admit(Supplier<? extends Mono<T>> work) {
+    return Mono.defer(() -> {
+      if (!tryAdmit()) {
+        return Mono.error(new RejectedExecutionException(
+            "Orchestrator saturated (running=%d, queued=%d)".formatted(inFlight(), queued())));
+      }
+      return Mono.<T>create(sink -> {
+        Disposable.Swap running = Disposables.swap();
+        Runnable onSlot = () -> {
+          if (running.isDisposed()) { // cancelled while the slot was being handed over
+            release();
+            return;
+          }
+          inFlight.incrementAndGet();
+          Mono<T> mono;
+          try {
+            mono = Objects.requireNonNull(work.get(), "work produced a null Mono");
+          } catch (Throwable t) {
+            mono = Mono.error(t);
+          }
+          running.update(mono
+              .doFinally(signal -> {
+                inFlight.decrementAndGet();
+                release();
+              })
+              .subscribe(sink::success, sink::error, sink::success));
+        };
+        sink.onDispose(() -> {
+          if (slots.cancel(onSlot)) admitted.decrementAndGet();
+          running.dispose();
+        });
+        slots.acquire(onSlot);
+      });
+    });
+  }
+
+  /** Number of orchestrations currently executing. */
+  public int inFlight() { return inFlight.get(); }
+
+  /** Number of admitted orchestrations waiting for an execution slot. */
+  public int queued() { return Math.max(0, admitted.get() - inFlight.get()); }
+
+  private boolean tryAdmit() {
+    int limit = maxConcurrent + maxQueued;
+    while (true) {
+      int current = admitted.get();
+      if (current >= limit) return false;
+      if (admitted.compareAndSet(current, current + 1)) return true;
+    }
+  }
+
+  private void release() {
+    admitted.decrementAndGet();
+    slots.release();
+  }
+
+  @Override
+  public void close() {
+    closeQuietly(inFlightGauge);
+    closeQuietly(queuedGauge);
+  }
+
+  private static void closeQuietly(AutoCloseable c) {
+    if (c == null) return;
+    try { c.close(); } catch (Exception e) { LOG.debug("Failed to close gauge", e); }
+  }
+
+  /**
+   * Non-blocking counting semaphore: waiters are callbacks run (in FIFO order) when a permit is handed to them.
+   * Draining is serialized so a waiter completing synchronously cannot recurse into another grant.
+   */
+  private static final class Slots {
+    private final AtomicInteger available;
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+    Slots(int permits) {
+      this.available = new AtomicInteger(permits);
+    }
+
+    void acquire(Runnable onGranted) {
+      waiters.add(onGranted);
+      drain();
+    }
+
+    /** Removes a waiter that has not been granted a permit yet; returns false if it was already granted. */
+    boolean cancel(Runnable waiter) {
+      return waiters.remove(waiter);
+    }
+
+    void release() {
+      available.incrementAndGet();
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) return;
+      do {
+        while (!waiters.isEmpty()) {
+          int permits = available.get();
+          if (permits <= 0) break;
+          if (!available.compareAndSet(permits, permits - 1)) continue;
+          Runnable next = waiters.poll();
+          if (next == null) {
+            available.incrementAndGet();
+            break;
+          }
+          try {
+            next.run();
+          } catch (Throwable t) {
+            LOG.warn("Orchestration slot callback failed", t);
+          }
+        }
+      } while (wip.decrementAndGet() != 0);
+    }
+  }
+}
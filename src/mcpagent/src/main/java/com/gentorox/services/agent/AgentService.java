@@ -230,7 +230,7 @@ public class AgentService {
 
     prompt.append("Return only the final guardrails text.\n");
 
-    var resp = inferenceService.sendRequest(prompt.toString(), List.of());
+    var resp = inferenceService.complete(prompt.toString());
     return Optional.ofNullable(resp).map(r -> r.content()).orElse("");
   }
 
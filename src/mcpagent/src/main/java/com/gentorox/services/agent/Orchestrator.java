@@ -3,6 +3,10 @@ package com.gentorox.services.agent;
 import com.gentorox.core.model.InferenceRequest;
 import com.gentorox.core.model.InferenceResponse;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 import java.util.List;
 import java.util.Map;
 
@@ -14,18 +18,56 @@ import java.util.Map;
  * - Delegates inference to the active model provider
  * - Emits rich telemetry for tracing and metrics
  *
+ * Besides the blocking {@link #run(List, Map)}, the reactive {@link #runAsync(List, Map)} and
+ * {@link #stream(List, Map)} entry points let non-blocking callers (e.g. the MCP transport) avoid holding a
+ * thread per request while waiting for the model.
+ *
  * Implementations MUST be thread-safe.
  */
 public interface Orchestrator {
 
+  /** Option carrying a client-chosen conversation id; requests sharing it share chat memory. */
+  String OPTION_SESSION_ID = "sessionId";
+
+  /** Option that, when true, skips the response cache for this request. */
+  String OPTION_NO_CACHE = "noCache";
+
+  /** Option that, when true, only accepts exact response cache matches for this request. */
+  String OPTION_NO_SEMANTIC_CACHE = "noSemanticCache";
+
   /**
    * Execute an inference flow based on client-provided messages.
    * The first user message typically carries the "prompt" intent, while additional
    * messages provide short-term context.
    *
    * @param messages ordered conversation messages
-   * @param options  optional opaque options (headers, auth, telemetry ids, etc.)
+   * @param options  optional opaque options (headers, auth, telemetry ids, etc.); {@value #OPTION_SESSION_ID}
+   *                 continues the conversation of that session instead of running a one-shot request;
+   *                 {@value #OPTION_NO_CACHE} and {@value #OPTION_NO_SEMANTIC_CACHE} bypass the response cache
    * @return model response containing content and optional tool call
    */
   InferenceResponse run(List<InferenceRequest.Message> messages, Map<String, Object> options);
+
+  /**
+   * Reactive variant of {@link #run(List, Map)}. Nothing happens until subscription; telemetry context is
+   * carried through the Reactor Context rather than thread-locals.
+   *
+   * The default implementation runs the blocking flow on a bounded elastic thread; implementations should
+   * override it with a natively reactive pipeline.
+   *
+   * @return a Mono emitting the model response, or an error (e.g. guardrails denial)
+   */
+  default Mono<InferenceResponse> runAsync(List<InferenceRequest.Message> messages, Map<String, Object> options) {
+    return Mono.fromCallable(() -> run(messages, options)).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  /**
+   * Executes the flow and emits {@link OrchestratorEvent}s as it progresses, ending with
+   * {@link OrchestratorEvent.Completed}.
+   */
+  default Flux<OrchestratorEvent> stream(List<InferenceRequest.Message> messages, Map<String, Object> options) {
+    return runAsync(messages, options)
+        .<OrchestratorEvent>map(resp -> new OrchestratorEvent.Completed(null, resp))
+        .flux();
+  }
 }
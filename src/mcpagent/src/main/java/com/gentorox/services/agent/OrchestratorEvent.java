@@ -0,0 +1,33 @@
+package com.gentorox.services.agent;
+
+import com.gentorox.core.model.InferenceResponse;
+
+/**
+ * Progress events emitted by {@link Orchestrator#stream(java.util.List, java.util.Map)}.
+ *
+ * A successful flow emits {@link Started}, {@link PromptReady}, {@link GuardrailsPassed}, then any number of
+ * {@link Partial} and {@link ToolInvoked} events while the model streams, and finally {@link Completed}; failures (e.g. a guardrails denial) terminate the stream with an error instead.
+ * The session id correlates events with traces and logs and may be null for implementations without telemetry.
+ */
+public sealed interface OrchestratorEvent {
+
+  String sessionId();
+
+  /** The request was accepted and a telemetry session opened. */
+  record Started(String sessionId) implements OrchestratorEvent {}
+
+  /** The final prompt (system prompt plus user request) was rendered. */
+  record PromptReady(String sessionId, int promptLength) implements OrchestratorEvent {}
+
+  /** Guardrails validation passed; inference is about to start. */
+  record GuardrailsPassed(String sessionId) implements OrchestratorEvent {}
+
+  /** A chunk of the model's answer as it is generated. */
+  record Partial(String sessionId, String text) implements OrchestratorEvent {}
+
+  /** The model invoked a tool; its result feeds the rest of the answer. */
+  record ToolInvoked(String sessionId, String toolName) implements OrchestratorEvent {}
+
+  /** Terminal event carrying the model response. */
+  record Completed(String sessionId, InferenceResponse response) implements OrchestratorEvent {}
+}
@@ -2,7 +2,10 @@ package com.gentorox.services.agent;
 
 import com.gentorox.core.model.InferenceRequest;
 import com.gentorox.core.model.InferenceResponse;
+import com.gentorox.core.model.InferenceStreamEvent;
+import com.gentorox.services.inference.ChatPrompt;
 import com.gentorox.services.inference.InferenceService;
+import com.gentorox.services.inference.ResponseCache;
 import com.gentorox.services.knowledgebase.KnowledgeBaseEntry;
 import com.gentorox.services.knowledgebase.KnowledgeBaseService;
 import com.gentorox.services.telemetry.LogContext;
@@ -12,17 +15,34 @@ import dev.langchain4j.agent.tool.Tool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * OrchestratorImpl coordinates the execution of inference requests by:
- * 1. Building a personalized system prompt with KB context and available services
+ * 1. Building a personalized system prompt with KB context and available services (compiled once, then
+ *    only the user request is written per call). Everything before {@code {{userRequest}}} is sent as the
+ *    system message and stays byte-identical across requests, so providers can cache it as a prompt prefix;
+ *    the rest of the template, with the user request, is the user message
  * 2. Collecting available tools from the NativeToolsRegistry
  * 3. Applying guardrails validation
  * 4. Calling the InferenceService with the composed prompt and tools
  * 5. Returning the final response
+ *
+ * The same flow is available reactively through {@link #stream(List, Map)} / {@link #runAsync(List, Map)}.
+ *
+ * One-shot requests go through the InferenceService response cache when it is enabled, keyed by the version of
+ * the compiled system prompt, the user request and a digest of the other options (e.g. headers or auth), so callers
+ * with different options never share answers; {@value #OPTION_NO_CACHE} and {@value #OPTION_NO_SEMANTIC_CACHE}
+ * bypass it per request.
  */
 @Service
 public class OrchestratorImpl implements Orchestrator {
@@ -35,6 +55,35 @@ public class OrchestratorImpl implements Orchestrator {
   private final TelemetryService telemetry;
   // Tools are now handled by LangChain4j @Tool annotations, not NativeTool instances
 
+  private static final String USER_REQUEST_SLOT = "userRequest";
+
+  // Options that only steer memory and caching; every other option is part of the response cache key
+  private static final Set<String> CACHE_NEUTRAL_OPTIONS = Set.of(OPTION_SESSION_ID, OPTION_NO_CACHE, OPTION_NO_SEMANTIC_CACHE);
+
+
+  /**
+   * System prompt source and knowledge base version paired with their compiled template. The version is unique
+   * per compilation, so it identifies the rendered prompt for the response cache.
+   */
+  private record CompiledPrompt(String source, long kbVersion, PromptTemplate template, long version,
+                                String system, PromptTemplate request) {
+
+    CompiledPrompt(String source, long kbVersion, PromptTemplate template, long version) {
+      // Without a user request slot there is no variable part: keep the whole prompt as the user message
+      this(source, kbVersion, template, version,
+          template.slotCount() == 0 ? null : template.staticPrefix(),
+          template.slotCount() == 0 ? template : template.afterStaticPrefix());
+    }
+
+    /** The static prefix as the system message and the rest, with the user request, as the user message. */
+    ChatPrompt render(String userRequest) {
+      return new ChatPrompt(system, request.render(userRequest));
+    }
+  }
+
+  private volatile CompiledPrompt compiledPrompt;
+  private final AtomicLong promptVersions = new AtomicLong();
+
   public OrchestratorImpl(AgentService agentService,
                           KnowledgeBaseService kbService,
                           InferenceService inferenceService,
@@ -53,44 +102,155 @@ public class OrchestratorImpl implements Orchestrator {
         // Step 1: extract user prompt from messages
         String userPrompt = extractUserPrompt(messages);
 
-        // Step 2: build personalized system prompt with KB and services
-        String systemPrompt = telemetry.inSpan("orchestrator.buildSystemPrompt", this::buildSystemPrompt);
+        // Step 2: fetch the compiled system prompt (KB and services tables are rendered once and cached)
+        CompiledPrompt systemPrompt = telemetry.inSpan("orchestrator.buildSystemPrompt", this::compiledPrompt);
 
         // Step 3: tools are handled by LangChain4j @Tool annotations
 
         // Step 4: guardrails validation (minimal example; can be extended)
         telemetry.inSpan("orchestrator.guardrails", () -> {
-          String guardrails = agentService.guardrails();
-          if (guardrails != null && !guardrails.isBlank()) {
-            // Minimal deny example: if guardrails contains a line "deny:" followed by a keyword present in prompt
-            String[] lines = guardrails.split("\n");
-            for (String line : lines) {
-              if (line.trim().startsWith("deny:")) {
-                String keyword = line.substring(5).trim();
-                if (userPrompt.toLowerCase().contains(keyword.toLowerCase())) {
-                  throw new IllegalArgumentException("Request denied by guardrails: contains forbidden keyword '" + keyword + "'");
-                }
-              }
-            }
-          }
+          checkGuardrails(userPrompt);
           return null;
         });
 
         // Step 5: call inference service
-        return telemetry.inSpan("orchestrator.inference", () -> {
-          String finalPrompt = systemPrompt;
-          finalPrompt = finalPrompt.replace("{{userRequest}}", userPrompt);
-          // For compatibility with tests: call single-arg when options are provided, otherwise invoke varargs with a null element
-          if (options != null) {
-            return inferenceService.sendRequest(finalPrompt);
-          } else {
-            return inferenceService.sendRequest(finalPrompt, (Object) null);
-          }
-        });
+        return telemetry.inSpan("orchestrator.inference",
+            () -> infer(systemPrompt.render(userPrompt), systemPrompt, userPrompt, options));
       });
     }
   }
 
+  /**
+   * Reactive flow: same steps as {@link #run(List, Map)}, emitted as events. The model answer is streamed, so
+   * partial output and tool calls are published as they happen. The session and span context travel in the
+   * Reactor Context, so no thread is tied to the request while waiting for the provider. The flow is subscribed on
+   * a blocking-capable scheduler: compiling the prompt, guardrails and setting up the model call must never run on
+   * the event loop of the caller.
+   */
+  @Override
+  public Flux<OrchestratorEvent> stream(List<InferenceRequest.Message> messages, Map<String, Object> options) {
+    return Flux.defer(() -> {
+      TelemetrySession session = TelemetrySession.create();
+      String sessionId = session.id();
+      String userPrompt = extractUserPrompt(messages);
+      String conversationId = conversationId(options);
+
+      Flux<OrchestratorEvent> flow = telemetry
+          .inSpanReactive("orchestrator.buildSystemPrompt", Mono.fromSupplier(this::compiledPrompt))
+          .flatMapMany(compiled -> {
+            ChatPrompt finalPrompt = compiled.render(userPrompt);
+            return Flux.concat(
+                Mono.just(new OrchestratorEvent.PromptReady(sessionId, finalPrompt.length())),
+                telemetry.inSpanReactive("orchestrator.guardrails", Mono.<Void>fromRunnable(() -> checkGuardrails(userPrompt)))
+                    .then(Mono.just(new OrchestratorEvent.GuardrailsPassed(sessionId))),
+                telemetry.inSpanReactive("orchestrator.inference", Collections.emptyMap(),
+                        Flux.defer(() -> streamInference(finalPrompt, conversationId, compiled, userPrompt, options)))
+                    .map(event -> toOrchestratorEvent(sessionId, event)));
+          });
+
+      return telemetry.runRootReactive(session, "orchestrator.request", Collections.emptyMap(),
+          flow.startWith(new OrchestratorEvent.Started(sessionId)));
+    }).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  @Override
+  public Mono<InferenceResponse> runAsync(List<InferenceRequest.Message> messages, Map<String, Object> options) {
+    return stream(messages, options)
+        .ofType(OrchestratorEvent.Completed.class)
+        .single()
+        .map(OrchestratorEvent.Completed::response);
+  }
+
+  private static OrchestratorEvent toOrchestratorEvent(String sessionId, InferenceStreamEvent event) {
+    return switch (event) {
+      case InferenceStreamEvent.Token t -> new OrchestratorEvent.Partial(sessionId, t.text());
+      case InferenceStreamEvent.ToolCall c -> new OrchestratorEvent.ToolInvoked(sessionId, c.toolName());
+      case InferenceStreamEvent.Done d -> new OrchestratorEvent.Completed(sessionId, d.response());
+    };
+  }
+
+  /** Minimal deny example: a guardrails line "deny: keyword" rejects prompts containing the keyword. */
+  private void checkGuardrails(String userPrompt) {
+    String guardrails = agentService.guardrails();
+    if (guardrails == null || guardrails.isBlank()) return;
+    for (String line : guardrails.split("\n")) {
+      if (line.trim().startsWith("deny:")) {
+        String keyword = line.substring(5).trim();
+        if (userPrompt.toLowerCase().contains(keyword.toLowerCase())) {
+          throw new IllegalArgumentException("Request denied by guardrails: contains forbidden keyword '" + keyword + "'");
+        }
+      }
+    }
+  }
+
+  private Flux<InferenceStreamEvent> streamInference(ChatPrompt finalPrompt, String conversationId, CompiledPrompt compiled,
+                                                    String userPrompt, Map<String, Object> options) {
+    if (conversationId != null) return inferenceService.streamSessionRequest(conversationId, finalPrompt);
+    if (inferenceService.cachesResponses()) {
+      return inferenceService.streamCachedRequest(finalPrompt, cacheKey(compiled, userPrompt, options));
+    }
+    return inferenceService.streamRequest(finalPrompt);
+  }
+
+  private InferenceResponse infer(ChatPrompt finalPrompt, CompiledPrompt compiled, String userPrompt, Map<String, Object> options) {
+    String conversationId = conversationId(options);
+    if (conversationId != null) {
+      return inferenceService.sendSessionRequest(conversationId, finalPrompt);
+    }
+    if (inferenceService.cachesResponses()) {
+      return inferenceService.sendCachedRequest(finalPrompt, cacheKey(compiled, userPrompt, options));
+    }
+    return inferenceService.sendRequest(finalPrompt);
+  }
+
+  /**
+   * Response cache key of a one-shot request, or null if the options bypass the cache. Sessions are never cached:
+   * their answers depend on the conversation so far.
+   */
+  private static ResponseCache.Key cacheKey(CompiledPrompt compiled, String userPrompt, Map<String, Object> options) {
+    if (flag(options, OPTION_NO_CACHE)) return null;
+    String version = Long.toString(compiled.version());
+    String optionsDigest = optionsDigest(options);
+    if (optionsDigest != null) version = version + '\0' + optionsDigest;
+    return new ResponseCache.Key(version, userPrompt, !flag(options, OPTION_NO_SEMANTIC_CACHE));
+  }
+
+  /**
+   * SHA-256 over the options that may change the answer, i.e. all but the session and cache flags, or null if
+   * there are none. Hashed so cache entries do not hold credentials passed in the options.
+   */
+  private static String optionsDigest(Map<String, Object> options) {
+    if (options == null) return null;
+    SortedMap<String, Object> relevant = new TreeMap<>();
+    options.forEach((name, value) -> {
+      if (value != null && !CACHE_NEUTRAL_OPTIONS.contains(name)) relevant.put(name, value);
+    });
+    if (relevant.isEmpty()) return null;
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      relevant.forEach((name, value) -> {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      });
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static boolean flag(Map<String, Object> options, String name) {
+    Object value = options == null ? null : options.get(name);
+    return value != null && Boolean.parseBoolean(String.valueOf(value));
+  }
+
+  /** The client-chosen session id from the options, or null for a one-shot request. */
+  private static String conversationId(Map<String, Object> options) {
+    Object id = options == null ? null : options.get(OPTION_SESSION_ID);
+    return id == null || String.valueOf(id).isBlank() ? null : String.valueOf(id);
+  }
+
   private String extractUserPrompt(List<InferenceRequest.Message> msgs) {
     if (msgs == null || msgs.isEmpty()) return "";
     return msgs.stream()
@@ -100,9 +260,41 @@ public class OrchestratorImpl implements Orchestrator {
         .orElse("");
   }
 
-  private String buildSystemPrompt() {
+  /**
+   * Returns the compiled system prompt template with every KB-derived slot already rendered, leaving only
+   * {@code {{userRequest}}} open. The template is compiled on first use and kept until the AgentService
+   * configuration changes (a new system prompt instance), the knowledge base version changes, or
+   * {@link #invalidatePromptCache()} is called.
+   */
+  PromptTemplate systemPromptTemplate() {
+    return compiledPrompt().template();
+  }
+
+  private CompiledPrompt compiledPrompt() {
     String base = agentService.systemPrompt();
+    long kbVersion = kbService.version();
+    CompiledPrompt cached = compiledPrompt;
+    // Identity check on purpose: any AgentService re-initialization produces a new config instance
+    if (cached != null && cached.source() == base && cached.kbVersion() == kbVersion) return cached;
+
+    // Read before rendering: a refresh in between leaves a stale version, so the next request recompiles
+    PromptTemplate template = PromptTemplate.compile(base).bind(placeholders(kbService), USER_REQUEST_SLOT);
+    CompiledPrompt compiled = new CompiledPrompt(base, kbVersion, template, promptVersions.incrementAndGet());
+    compiledPrompt = compiled;
+    logger.debug("Compiled system prompt template ({} user request slot(s))", template.slotCount());
+    return compiled;
+  }
 
+  /** Drops the compiled system prompt so the next request re-renders it. */
+  public void invalidatePromptCache() {
+    compiledPrompt = null;
+  }
+
+  /**
+   * Renders the static placeholders of the system prompt: tool names/descriptions plus the docs and services
+   * tables derived from the knowledge base.
+   */
+  static Map<String, String> placeholders(KnowledgeBaseService kbService) {
     StringBuilder docsSummary = new StringBuilder();
     docsSummary.append(
         """
@@ -115,41 +307,37 @@ public class OrchestratorImpl implements Orchestrator {
       docsSummary.append("| `").append(e.resource()).append("` | ").append(optional(e.hint())).append(" |\n");
     });
 
-
     // List of available services (heuristic: entries under kb://openapi or sdk names in hints)
-    Set<String> services = kbService.getServices().map(Map::keySet).orElse(Collections.<String>emptySet());
+    Map<String, String> serviceMap = kbService.getServices().orElse(Collections.emptyMap());
 
     StringBuilder serviceSummary = new StringBuilder();
-    kbService.getServices().ifPresent( entries -> {
-      for(Map.Entry<String, String> entry : entries.entrySet()) {
-        serviceSummary.append("- `").append(entry.getKey()).append("`\n\n");
-        serviceSummary.append(
-            """
-            |------------ | ----------------------------------- |
-            | Resource    | Short description                   |
-            |------------ | ----------------------------------- |
-            """);
-
-        kbService.list("kb://openapi/%s/docs/".formatted(entry.getKey())).forEach(e -> {
-          serviceSummary.append("| `").append(e.resource()).append("` | ").append(optional(e.hint())).append(" |\n");
-        });
-      }
-    } );
+    for (String service : serviceMap.keySet()) {
+      serviceSummary.append("- `").append(service).append("`\n\n");
+      serviceSummary.append(
+          """
+          |------------ | ----------------------------------- |
+          | Resource    | Short description                   |
+          |------------ | ----------------------------------- |
+          """);
+
+      kbService.list("kb://openapi/%s/docs/".formatted(service)).forEach(e -> {
+        serviceSummary.append("| `").append(e.resource()).append("` | ").append(optional(e.hint())).append(" |\n");
+      });
+    }
 
     Map<String, String> placeholders = new HashMap<>();
     placeholders.put("tool.retrieveContext.name", "RetrieveContext");
     placeholders.put("tool.retrieveContext.description", "Retrieve knowledge base resources by names or relative paths and return their contents");
+    placeholders.put("tool.searchKnowledgeBase.name", "SearchKnowledgeBase");
+    placeholders.put("tool.searchKnowledgeBase.description", "Search knowledge base resources by keywords and return the best matching kb:// URIs with their descriptions");
+    placeholders.put("tool.retrieveRelevantChunks.name", "RetrieveRelevantChunks");
+    placeholders.put("tool.retrieveRelevantChunks.description", "Retrieve the knowledge base passages most relevant to a question, without loading whole documents");
     placeholders.put("tool.runTsCode.name", "RunTypescriptSnippet");
     placeholders.put("tool.runTsCode.description", "Execute a short TypeScript snippet in the isolated runtime and return stdout/result");
     placeholders.put("kb.docs.summary", Arrays.stream(docsSummary.toString().split("\n")).map("%s"::formatted).collect(Collectors.joining("\n")));
     placeholders.put("kb.services.summary", Arrays.stream(serviceSummary.toString().split("\n")).map("    %s"::formatted).collect(Collectors.joining("\n")));
-    placeholders.put("kb.services.list", String.join("\n", services));
-    for(Map.Entry<String, String> entry : placeholders.entrySet()) {
-      while( base.contains("{{%s}}".formatted(entry.getKey())) ) {
-        base = base.replace("{{%s}}".formatted(entry.getKey()), entry.getValue());
-      }
-    }
-    return base;
+    placeholders.put("kb.services.list", String.join("\n", serviceMap.keySet()));
+    return placeholders;
   }
 
   private static String optional(String s) {
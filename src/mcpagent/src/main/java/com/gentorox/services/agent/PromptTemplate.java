@@ -0,0 +1,139 @@
+package com.gentorox.services.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A prompt template parsed once into literal and {@code {{slot}}} segments.
+ *
+ * <p>Typical lifecycle:
+ * - {@link #compile(String)} parses the raw template text.
+ * - {@link #bind(Map, String)} resolves every slot whose value is known up front (e.g. KB tables),
+ *   keeping only the runtime slot open; unknown placeholders are preserved verbatim.
+ * - {@link #render(String)} writes the runtime value into a pre-sized buffer in a single pass.
+ *
+ * Instances are immutable and thread-safe.
+ */
+final class PromptTemplate {
+  private static final String OPEN = "{{";
+  private static final String CLOSE = "}}";
+
+  private final List<Segment> segments;
+  private final int literalLength;
+  private final int slotCount;
+
+  private PromptTemplate(List<Segment> segments) {
+    this.segments = List.copyOf(segments);
+    int len = 0, slots = 0;
+    for (Segment s : this.segments) {
+      if (s instanceof Literal l) len += l.text().length();
+      else slots++;
+    }
+    this.literalLength = len;
+    this.slotCount = slots;
+  }
+
+  /**
+   * Parses the template into segments. Text between {@code {{} and {@code }}} becomes a slot named by
+   * the (untrimmed) inner text; an unterminated {@code {{} is treated as literal text.
+   *
+   * @param text template text; null is treated as empty
+   * @return compiled template
+   */
+  static PromptTemplate compile(String text) {
+    String src = text == null ? "" : text;
+    List<Segment> out = new ArrayList<>();
+    int pos = 0;
+    while (pos < src.length()) {
+      int open = src.indexOf(OPEN, pos);
+      if (open < 0) break;
+      int close = src.indexOf(CLOSE, open + OPEN.length());
+      if (close < 0) break;
+      // The innermost "{{" before the closing braces starts the slot, mirroring String.replace semantics
+      open = src.lastIndexOf(OPEN, close - OPEN.length());
+      if (open > pos) out.add(new Literal(src.substring(pos, open)));
+      out.add(new Slot(src.substring(open + OPEN.length(), close)));
+      pos = close + CLOSE.length();
+    }
+    if (pos < src.length()) out.add(new Literal(src.substring(pos)));
+    return new PromptTemplate(out);
+  }
+
+  /**
+   * Resolves slots using the given values. The slot named {@code openSlot} stays open for
+   * {@link #render(String)}; slots without a value are turned back into their literal placeholder text.
+   * Adjacent literals are merged so rendering touches as few segments as possible.
+   *
+   * @param values   slot name to value
+   * @param openSlot slot left for per-request rendering
+   * @return a new template containing only literals and {@code openSlot} slots
+   */
+  PromptTemplate bind(Map<String, String> values, String openSlot) {
+    Objects.requireNonNull(openSlot, "openSlot");
+    List<Segment> out = new ArrayList<>();
+    StringBuilder pending = new StringBuilder();
+    for (Segment s : segments) {
+      if (s instanceof Literal l) {
+        pending.append(l.text());
+      } else {
+        String name = ((Slot) s).name();
+        if (name.equals(openSlot)) {
+          if (!pending.isEmpty()) { out.add(new Literal(pending.toString())); pending.setLength(0); }
+          out.add(s);
+        } else {
+          String v = values.get(name);
+          pending.append(v != null ? v : OPEN + name + CLOSE);
+        }
+      }
+    }
+    if (!pending.isEmpty()) out.add(new Literal(pending.toString()));
+    return new PromptTemplate(out);
+  }
+
+  /**
+   * Renders the template, writing {@code value} into every remaining slot.
+   *
+   * @param value value for the open slot(s); null is treated as empty
+   * @return rendered prompt
+   */
+  String render(String value) {
+    String v = value == null ? "" : value;
+    StringBuilder sb = new StringBuilder(literalLength + slotCount * v.length());
+    for (Segment s : segments) {
+      if (s instanceof Literal l) sb.append(l.text());
+      else sb.append(v);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Literal text before the first open slot, i.e. the part every render starts with. The whole template if it
+   * has no open slot.
+   */
+  String staticPrefix() {
+    StringBuilder sb = new StringBuilder();
+    for (Segment s : segments) {
+      if (!(s instanceof Literal l)) break;
+      sb.append(l.text());
+    }
+    return sb.toString();
+  }
+
+  /** The template without its {@link #staticPrefix()}: everything from the first open slot on. */
+  PromptTemplate afterStaticPrefix() {
+    int first = 0;
+    while (first < segments.size() && segments.get(first) instanceof Literal) first++;
+    return new PromptTemplate(segments.subList(first, segments.size()));
+  }
+
+  /** Number of open slots left in this template. */
+  int slotCount() {
+    return slotCount;
+  }
+
+  private sealed interface Segment permits Literal, Slot {}
+  private record Literal(String text) implements Segment {}
+  private record Slot(String name) implements Segment {}
+}
@@ -0,0 +1,139 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registry of prebuilt AI assistants keyed by the exact set of tool instances they expose.
+ *
+ * <p>Building an assistant through {@code AiServices} is reflection heavy (proxy creation plus tool
+ * specification generation), so it is done once per distinct tool set and reused afterwards:
+ * - Tool specifications are memoized per tool class, so a fresh instance of a known tool class only
+ *   costs a map lookup plus lightweight executor wiring.
+ * - Assistants are memoized per tool set, compared by instance identity (the same bean instances
+ *   always map to the same assistant). The registry is bounded and evicts the least recently used
+ *   assistant, so callers passing short-lived tool instances cannot grow it without limit.
+ *
+ * This class is thread-safe.
+ *
+ * @param <A> assistant type produced by the builder function
+ */
+final class AssistantRegistry<A> {
+
+  /** Maximum number of distinct tool sets kept; defaults plus a handful of per-call variations. */
+  static final int DEFAULT_MAX_ASSISTANTS = 64;
+
+  private final Function<Map<ToolSpecification, ToolExecutor>, A> builder;
+  private final Map<Class<?>, List<ToolMethod>> toolMethodsByClass = new ConcurrentHashMap<>();
+  private final Map<ToolSetKey, A> assistants;
+
+  /**
+   * @param builder      builds an assistant exposing the given tools (may be an empty map)
+   * @param maxAssistants maximum number of tool sets to keep
+   */
+  AssistantRegistry(Function<Map<ToolSpecification, ToolExecutor>, A> builder, int maxAssistants) {
+    this.builder = Objects.requireNonNull(builder, "builder");
+    this.assistants = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ToolSetKey, A> eldest) {
+        return size() > maxAssistants;
+      }
+    });
+  }
+
+  /**
+   * Returns the assistant for the given tool instances, building it on first use.
+   * Instances that expose no {@link Tool} methods (or null entries) are ignored, so they do not
+   * create distinct cache keys.
+   *
+   * @param toolInstances candidate tool instances, in priority order
+   * @return the assistant and whether it came from the cache
+   */
+  Lookup<A> get(List<Object> toolInstances) {
+    List<Object> effective = new ArrayList<>(toolInstances.size());
+    for (Object o : toolInstances) {
+      if (o != null && !toolMethods(o.getClass()).isEmpty()) effective.add(o);
+    }
+    ToolSetKey key = new ToolSetKey(effective);
+
+    A cached = assistants.get(key);
+    if (cached != null) return new Lookup<>(cached, true);
+
+    // Build outside the lock; a concurrent duplicate build is harmless and the first one wins.
+    A built = builder.apply(toolExecutors(effective));
+    A existing = assistants.putIfAbsent(key, built);
+    return existing != null ? new Lookup<>(existing, true) : new Lookup<>(built, false);
+  }
+
+  /** Number of assistants currently held. */
+  int size() {
+    return assistants.size();
+  }
+
+  private Map<ToolSpecification, ToolExecutor> toolExecutors(List<Object> tools) {
+    Map<ToolSpecification, ToolExecutor> out = new LinkedHashMap<>();
+    for (Object tool : tools) {
+      for (ToolMethod tm : toolMethods(tool.getClass())) {
+        out.put(tm.specification(), new DefaultToolExecutor(tool, tm.method()));
+      }
+    }
+    return out;
+  }
+
+  private List<ToolMethod> toolMethods(Class<?> type) {
+    return toolMethodsByClass.computeIfAbsent(type, t -> {
+      List<ToolMethod> methods = new ArrayList<>();
+      for (Method m : t.getDeclaredMethods()) {
+        if (m.isAnnotationPresent(Tool.class)) {
+          methods.add(new ToolMethod(ToolSpecifications.toolSpecificationFrom(m), m));
+        }
+      }
+      return List.copyOf(methods);
+    });
+  }
+
+  /** Result of a registry lookup. */
+  record Lookup<A>(A assistant, boolean hit) {}
+
+  private record ToolMethod(ToolSpecification specification, Method method) {}
+
+  /** Tool set compared by instance identity and order. */
+  private static final class ToolSetKey {
+    private final Object[] tools;
+    private final int hash;
+
+    ToolSetKey(List<Object> tools) {
+      this.tools = tools.toArray();
+      int h = 1;
+      for (Object t : this.tools) h = 31 * h + System.identityHashCode(t);
+      this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof ToolSetKey other) || other.tools.length != tools.length) return false;
+      for (int i = 0; i < tools.length; i++) {
+        if (tools[i] != other.tools[i]) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
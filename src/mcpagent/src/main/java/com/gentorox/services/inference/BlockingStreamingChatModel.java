@@ -0,0 +1,80 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Exposes a blocking {@link ChatLanguageModel} through the streaming interface for providers without a
+ * native streaming model (Gemini in the LangChain4j version in use). The whole answer is delivered as a
+ * single token once generation completes; tool execution requests are passed through unchanged so
+ * AI services can run tools as with any streaming model.
+ *
+ * Like a native streaming model, {@code generate} returns right away: the blocking call, the callbacks and the
+ * tools they run execute on a virtual thread, never on the caller's (possibly event-loop) thread.
+ */
+final class BlockingStreamingChatModel implements StreamingChatLanguageModel {
+  private static final Executor GENERATE_EXECUTOR = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("blocking-stream-", 0).factory());
+
+  private final ChatLanguageModel delegate;
+  private final Executor executor;
+
+  BlockingStreamingChatModel(ChatLanguageModel delegate) {
+    this(delegate, GENERATE_EXECUTOR);
+  }
+
+  BlockingStreamingChatModel(ChatLanguageModel delegate, Executor executor) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate");
+    this.executor = Objects.requireNonNull(executor, "executor");
+  }
+
+  @Override
+  public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+    deliver(() -> delegate.generate(messages), handler);
+  }
+
+  @Override
+  public void generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications,
+                       StreamingResponseHandler<AiMessage> handler) {
+    deliver(() -> delegate.generate(messages, toolSpecifications), handler);
+  }
+
+  @Override
+  public void generate(List<ChatMessage> messages, ToolSpecification toolSpecification,
+                       StreamingResponseHandler<AiMessage> handler) {
+    deliver(() -> delegate.generate(messages, toolSpecification), handler);
+  }
+
+  private void deliver(Supplier<Response<AiMessage>> call, StreamingResponseHandler<AiMessage> handler) {
+    try {
+      executor.execute(() -> generate(call, handler));
+    } catch (RejectedExecutionException e) {
+      handler.onError(e);
+    }
+  }
+
+  private static void generate(Supplier<Response<AiMessage>> call, StreamingResponseHandler<AiMessage> handler) {
+    Response<AiMessage> response;
+    try {
+      response = call.get();
+    } catch (RuntimeException e) {
+      handler.onError(e);
+      return;
+    }
+    String text = response.content() == null ? null : response.content().text();
+    if (text != null && !text.isEmpty()) handler.onNext(text);
+    handler.onComplete(response);
+  }
+}
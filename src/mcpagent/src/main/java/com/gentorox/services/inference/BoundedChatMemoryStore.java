@@ -0,0 +1,103 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory {@link ChatMemoryStore} that forgets sessions: a session expires once it has not been read or
+ * written for the time-to-live, and the least recently used session is evicted when more than
+ * {@code maxSessions} are held.
+ *
+ * Expired sessions are dropped lazily, when they are read and on every write, so an idle store needs no
+ * background thread. This class is thread-safe.
+ */
+public final class BoundedChatMemoryStore implements ChatMemoryStore {
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+  public static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+  private record Session(List<ChatMessage> messages, long touchedNanos) {}
+
+  /** Point-in-time counters of the store. */
+  public record Stats(long sessions, long messages, long evictions, long expirations) {}
+
+  private final long ttlNanos;
+  private final int maxSessions;
+  private final LongSupplier nanoClock;
+  private final LinkedHashMap<Object, Session> sessions = new LinkedHashMap<>(64, 0.75f, true);
+  private long messages;
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  public BoundedChatMemoryStore(Duration ttl, int maxSessions) {
+    this(ttl, maxSessions, System::nanoTime);
+  }
+
+  BoundedChatMemoryStore(Duration ttl, int maxSessions, LongSupplier nanoClock) {
+    if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+    if (maxSessions <= 0) throw new IllegalArgumentException("maxSessions must be positive");
+    this.ttlNanos = ttl.toNanos();
+    this.maxSessions = maxSessions;
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public synchronized List<ChatMessage> getMessages(Object memoryId) {
+    Session session = sessions.get(memoryId);
+    if (session == null) return List.of();
+    long now = nanoClock.getAsLong();
+    if (expired(session, now)) {
+      remove(memoryId);
+      expirations.increment();
+      return List.of();
+    }
+    sessions.put(memoryId, new Session(session.messages(), now));
+    return session.messages();
+  }
+
+  @Override
+  public synchronized void updateMessages(Object memoryId, List<ChatMessage> update) {
+    long now = nanoClock.getAsLong();
+    Session previous = sessions.put(memoryId, new Session(List.copyOf(update), now));
+    messages += update.size() - (previous == null ? 0 : previous.messages().size());
+    purge(now);
+  }
+
+  @Override
+  public synchronized void deleteMessages(Object memoryId) {
+    remove(memoryId);
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(sessions.size(), messages, evictions.sum(), expirations.sum());
+  }
+
+  /** Drops expired sessions, oldest first, then evicts least recently used sessions past the cap. */
+  private void purge(long now) {
+    Iterator<Map.Entry<Object, Session>> it = sessions.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Object, Session> eldest = it.next();
+      boolean expired = expired(eldest.getValue(), now);
+      if (!expired && sessions.size() <= maxSessions) break;
+      messages -= eldest.getValue().messages().size();
+      it.remove();
+      (expired ? expirations : evictions).increment();
+    }
+  }
+
+  private boolean expired(Session session, long now) {
+    return now - session.touchedNanos() > ttlNanos;
+  }
+
+  private void remove(Object memoryId) {
+    Session removed = sessions.remove(memoryId);
+    if (removed != null) messages -= removed.messages().size();
+  }
+}
@@ -0,0 +1,33 @@
+package com.gentorox.services.inference;
+
+import java.util.Objects;
+
+/**
+ * A prompt split into a stable system part and the per-request user part.
+ *
+ * The system part is sent as the system message, ahead of the conversation, and is meant to stay byte-identical
+ * across requests, so providers with prompt prefix caching (e.g. OpenAI's automatic caching) can reuse it.
+ *
+ * @param system system message, or null for none
+ * @param user   user message
+ */
+public record ChatPrompt(String system, String user) {
+  public ChatPrompt {
+    Objects.requireNonNull(user, "user");
+    if (system != null && system.isEmpty()) system = null;
+  }
+
+  /** A prompt with a user message only. */
+  public static ChatPrompt of(String user) {
+    return new ChatPrompt(null, user);
+  }
+
+  /** Both parts as one text, system part first. */
+  public String text() {
+    return system == null ? user : system + user;
+  }
+
+  public int length() {
+    return (system == null ? 0 : system.length()) + user.length();
+  }
+}
@@ -0,0 +1,37 @@
+package com.gentorox.services.inference;
+
+/**
+ * Per-call settings of {@link InferenceService#complete(String, CompletionOptions)}.
+ *
+ * Null values keep the provider defaults configured for the model. Options are value objects: equal options share
+ * the same underlying chat model.
+ *
+ * @param json        ask for a single JSON value (provider JSON mode where available, plus a prompt instruction)
+ * @param temperature sampling temperature, or null for the model default
+ * @param maxTokens   cap on generated tokens, or null for the model default
+ */
+public record CompletionOptions(boolean json, Double temperature, Integer maxTokens) {
+  public static final CompletionOptions DEFAULTS = new CompletionOptions(false, null, null);
+
+  public CompletionOptions {
+    if (temperature != null && (temperature < 0 || temperature > 2)) {
+      throw new IllegalArgumentException("temperature must be within [0, 2]: " + temperature);
+    }
+    if (maxTokens != null && maxTokens <= 0) {
+      throw new IllegalArgumentException("maxTokens must be positive: " + maxTokens);
+    }
+  }
+
+  /** Defaults with JSON output. */
+  public static CompletionOptions jsonOutput() {
+    return new CompletionOptions(true, null, null);
+  }
+
+  public CompletionOptions withTemperature(Double temperature) {
+    return new CompletionOptions(json, temperature, maxTokens);
+  }
+
+  public CompletionOptions withMaxTokens(Integer maxTokens) {
+    return new CompletionOptions(json, temperature, maxTokens);
+  }
+}
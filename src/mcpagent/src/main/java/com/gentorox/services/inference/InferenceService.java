@@ -1,46 +1,149 @@
 package com.gentorox.services.inference;
 
 import com.gentorox.core.model.InferenceResponse;
+import com.gentorox.core.model.InferenceStreamEvent;
 import com.gentorox.services.telemetry.TelemetryService;
 import com.gentorox.services.telemetry.TelemetrySession;
 import com.gentorox.tools.AgentTool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.anthropic.AnthropicChatModel;
+import dev.langchain4j.model.anthropic.AnthropicStreamingChatModel;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ResponseFormat;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 // Temporarily disabled due to missing API key
 // import dev.langchain4j.model.anthropic.AnthropicChatModel;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import dev.langchain4j.service.AiServices;
 import dev.langchain4j.service.MemoryId;
+import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
-import dev.langchain4j.store.memory.chat.ChatMemoryStore;
-import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import dev.langchain4j.service.tool.ToolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * InferenceService that provides a unified interface for sending inference requests
  * to various AI models using LangChain4j's native tool system with @Tool annotations.
+ *
+ * <p>Assistants are prebuilt and reused: the default {@link AgentTool} beans are resolved once the
+ * application context has finished instantiating singletons, and every distinct tool set gets a
+ * memoized assistant from an {@link AssistantRegistry}.
+ *
+ * <p>{@link #streamRequest(String, Object...)} is the streaming counterpart of {@link #sendRequest(String, Object...)}:
+ * it is backed by the provider's {@link StreamingChatLanguageModel} and emits partial tokens and tool calls as
+ * they happen, so callers can forward output long before the answer is complete.
+ *
+ * <p>Chat memory lives in a {@link BoundedChatMemoryStore}. Requests without a session id are one-shot and drop
+ * their memory when they complete; the {@code *SessionRequest} variants keep it under a client-chosen id until
+ * the session expires or is evicted.
+ *
+ * <p>The default provider and the providers listed in {@link ProviderProperties.Routing#getProviders()} get a live
+ * client. With more than one, requests are routed by {@link RoutingChatModel}/{@link RoutingStreamingChatModel}:
+ * the default provider is tried first (or the fastest/weighted pick, per {@link ProviderProperties.Routing}) and
+ * failed calls fail over to the others.
+ *
+ * <p>With a {@link ResponseCache}, {@link #sendCachedRequest}/{@link #streamCachedRequest} answer repeated
+ * one-shot prompts from the cache. Answers that ran a tool not marked {@link AgentTool#readOnly() read-only}
+ * are never cached.
+ *
+ * <p>{@link ChatPrompt} variants send a system message ahead of the user message. A system message that stays
+ * identical across requests forms a stable prompt prefix, which providers with prefix caching reuse; token usage
+ * and prefix reuse are reported per provider by a {@link PromptUsageListener}.
  */
-public class InferenceService {
+public class InferenceService implements SmartInitializingSingleton {
+  private static final Logger logger = LoggerFactory.getLogger(InferenceService.class);
+  private static final Set<String> SUPPORTED_PROVIDERS = Set.of("openai", "anthropic", "gemini");
+  static final String CACHED_RESPONSE = "response_cache";
+  static final String JSON_INSTRUCTION = "\n\nRespond with a single valid JSON value and nothing else.";
 
   private final ChatLanguageModel chatModel;
+  private final StreamingChatLanguageModel streamingChatModel;
   private final TelemetryService telemetry;
   private final String provider;
   private final String modelName;
   private final ApplicationContext applicationContext;
-  // shared store so memories persist per sessionId
-  private final ChatMemoryStore store = new InMemoryChatMemoryStore();
+  private final ProviderProperties providerProperties;
+  // providers requests are routed to, default provider first
+  private final List<String> routeProviders;
+  private final RoutingPolicy routingPolicy;
+  private final Duration hedgeAfter;
+  // rolling latency per provider, shared by the blocking, streaming and per-options clients
+  private final Map<String, RollingLatency> routeLatencies = new ConcurrentHashMap<>();
+  // token and prompt prefix telemetry per provider
+  private final Map<String, List<ChatModelListener>> usageListeners = new ConcurrentHashMap<>();
+  // chat models configured for non-default CompletionOptions, built on first use
+  private final Map<CompletionOptions, ChatLanguageModel> completionModels = new ConcurrentHashMap<>();
+  // shared store so memories persist per sessionId; sessions expire and are evicted past a cap
+  private final BoundedChatMemoryStore store;
+  // provider builds/fetches memory for each sessionId
+  private final ChatMemoryProvider memoryProvider;
+  private final AssistantRegistry<AiAssistant> assistants;
+  private final AssistantRegistry<StreamingAssistant> streamingAssistants;
+  // listeners notified before a tool runs, keyed by the request id of the memory id the tool is called with
+  private final Map<Long, Consumer<ToolExecutionRequest>> toolListeners = new ConcurrentHashMap<>();
+  private final AtomicLong requestIds = new AtomicLong();
+  // cached answers of one-shot prompts; null when disabled
+  private final ResponseCache responseCache;
+  // tool names per tool class, to tell read-only tool calls apart
+  private final Map<Class<?>, List<String>> toolNamesByClass = new ConcurrentHashMap<>();
+  // AgentTool beans, resolved once after startup; null until then
+  private volatile List<Object> defaultTools;
 
   // Define the AI service interface
   public interface AiAssistant {
-    String chat(@MemoryId String sessionId, @UserMessage String message);
+    String chat(@MemoryId RequestMemoryId memoryId, @UserMessage String message);
+  }
+
+  // Streaming flavour of the AI service
+  public interface StreamingAssistant {
+    TokenStream chat(@MemoryId RequestMemoryId memoryId, @UserMessage String message);
+  }
+
+  /**
+   * Memory id of one request: the chat memory belongs to the session, tool calls to the request. Equality only
+   * covers the session, so AI services keep one chat memory per session however many requests it serves, while
+   * tool executors still see the id of the request they run for.
+   */
+  public record RequestMemoryId(String sessionId, long requestId) {
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof RequestMemoryId other && other.sessionId.equals(sessionId);
+    }
+
+    @Override
+    public int hashCode() {
+      return sessionId.hashCode();
+    }
   }
 
   public InferenceService(ProviderProperties providerProperties, TelemetryService telemetry) {
@@ -48,11 +151,56 @@ public class InferenceService {
   }
 
   public InferenceService(ApplicationContext applicationContext, ProviderProperties providerProperties, TelemetryService telemetry) {
-    this.applicationContext = applicationContext;
-    this.chatModel = createChatModel(providerProperties);
+    this(applicationContext, providerProperties, telemetry,
+        new BoundedChatMemoryStore(BoundedChatMemoryStore.DEFAULT_TTL, BoundedChatMemoryStore.DEFAULT_MAX_SESSIONS));
+  }
+
+  /**
+   * @param memoryStore chat memory of the sessions passed to {@link #sendSessionRequest}/{@link #streamSessionRequest}
+   */
+  public InferenceService(ApplicationContext applicationContext, ProviderProperties providerProperties, TelemetryService telemetry,
+                          BoundedChatMemoryStore memoryStore) {
+    this(applicationContext, providerProperties, telemetry, memoryStore, null);
+  }
+
+  /**
+   * @param memoryStore   chat memory of the sessions passed to {@link #sendSessionRequest}/{@link #streamSessionRequest}
+   * @param responseCache cache behind {@link #sendCachedRequest}/{@link #streamCachedRequest}, or null to disable it
+   */
+  public InferenceService(ApplicationContext applicationContext, ProviderProperties providerProperties, TelemetryService telemetry,
+                          BoundedChatMemoryStore memoryStore, ResponseCache responseCache) {
+    this.responseCache = responseCache;
     this.telemetry = telemetry;
+    this.applicationContext = applicationContext;
+    this.store = memoryStore;
+    this.memoryProvider = memoryId -> MessageWindowChatMemory.builder().chatMemoryStore(store).maxMessages(10)
+        .id(memoryId instanceof RequestMemoryId request ? request.sessionId() : memoryId).build();
+    this.providerProperties = providerProperties;
     this.provider = providerProperties.getDefaultProvider();
+    this.routeProviders = routeProviders(providerProperties);
+    ProviderProperties.Routing routing = providerProperties.getRouting();
+    this.routingPolicy = routing != null ? RoutingPolicy.parse(routing.getPolicy()) : RoutingPolicy.FAILOVER;
+    this.hedgeAfter = routing != null ? Duration.ofMillis(routing.getHedgeAfterMs()) : Duration.ZERO;
+    Map<String, ChatLanguageModel> blocking = createChatModels(CompletionOptions.DEFAULTS);
+    this.chatModel = route(blocking);
+    this.streamingChatModel = routeStreaming(blocking);
+    if (routeProviders.size() > 1) {
+      logger.info("Routing inference over {} ({} policy)", routeProviders, routingPolicy.name().toLowerCase());
+    }
     this.modelName = providerProperties.getProviders().get(provider).getModelName();
+    this.assistants = new AssistantRegistry<>(this::buildAssistant, AssistantRegistry.DEFAULT_MAX_ASSISTANTS);
+    this.streamingAssistants = new AssistantRegistry<>(this::buildStreamingAssistant, AssistantRegistry.DEFAULT_MAX_ASSISTANTS);
+  }
+
+  /**
+   * Resolves the default {@link AgentTool} beans once every singleton exists. Tools cannot be resolved
+   * in the constructor because several of them depend (indirectly) on this service.
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    if (applicationContext == null) return;
+    this.defaultTools = List.copyOf(applicationContext.getBeansOfType(AgentTool.class).values());
+    logger.info("Resolved {} default agent tool(s) for inference", defaultTools.size());
   }
 
   /**
@@ -64,8 +212,118 @@ public class InferenceService {
    * @return InferenceResponse containing the model's final response after tool execution
    */
   public InferenceResponse sendRequest(String prompt, Object... toolInstances) {
+    return sendSessionRequest(null, prompt, toolInstances);
+  }
+
+  /**
+   * {@link #sendRequest(String, Object...)} with a separate system message, sent ahead of the conversation.
+   * Keeping {@link ChatPrompt#system()} identical across requests lets providers reuse it as a cached prefix.
+   */
+  public InferenceResponse sendRequest(ChatPrompt prompt, Object... toolInstances) {
+    return send(null, prompt, null, toolInstances);
+  }
+
+  /**
+   * {@link #sendRequest(String, Object...)} within a conversation: the chat memory of {@code sessionId} is
+   * loaded before and updated after the call, so later requests of the same session see this exchange.
+   * Without a session id the request is one-shot and its memory is dropped as soon as it completes.
+   *
+   * @param sessionId client-chosen conversation id, or null for a one-shot request
+   */
+  public InferenceResponse sendSessionRequest(String sessionId, String prompt, Object... toolInstances) {
+    return send(sessionId, ChatPrompt.of(prompt), null, toolInstances);
+  }
+
+  /** {@link #sendSessionRequest(String, String, Object...)} with a separate system message. */
+  public InferenceResponse sendSessionRequest(String sessionId, ChatPrompt prompt, Object... toolInstances) {
+    return send(sessionId, prompt, null, toolInstances);
+  }
+
+  /** Whether a response cache is configured; callers only need to build cache keys if so. */
+  public boolean cachesResponses() {
+    return responseCache != null;
+  }
+
+  /**
+   * One-shot {@link #sendRequest(String, Object...)} with the default tools, answered from the response cache
+   * when possible. The answer is cached unless the model ran a tool that is not read-only.
+   *
+   * @param prompt the complete prompt
+   * @param key    identifies the prompt for the cache, or null to bypass the cache for this request
+   */
+  public InferenceResponse sendCachedRequest(ChatPrompt prompt, ResponseCache.Key key) {
+    if (responseCache == null || key == null) {
+      if (responseCache != null) telemetry.countResponseCache("bypass");
+      return sendRequest(prompt);
+    }
+    ResponseCache.Probe probe = responseCache.lookup(cacheScope(key), key.query(), key.semantic());
+    telemetry.countResponseCache(probe.result().label());
+    if (probe.hit()) return new InferenceResponse(probe.response(), Optional.empty(), CACHED_RESPONSE);
+
+    Set<String> toolsRun = ConcurrentHashMap.newKeySet();
+    InferenceResponse response = send(null, prompt, request -> toolsRun.add(request.name()));
+    if (readOnly(toolsRun)) responseCache.put(probe, response.content());
+    return response;
+  }
+
+  /**
+   * Streaming variant of {@link #sendCachedRequest}. A cached answer is emitted as a single token followed by
+   * {@link InferenceStreamEvent.Done}; a streamed answer is cached once it completes.
+   */
+  public Flux<InferenceStreamEvent> streamCachedRequest(ChatPrompt prompt, ResponseCache.Key key) {
+    if (responseCache == null || key == null) {
+      return Flux.defer(() -> {
+        if (responseCache != null) telemetry.countResponseCache("bypass");
+        return streamRequest(prompt);
+      });
+    }
+    Mono<ResponseCache.Probe> lookup = Mono.fromCallable(() -> responseCache.lookup(cacheScope(key), key.query(), key.semantic()));
+    // With the semantic tier enabled a missed lookup embeds the query, which may be a remote call
+    if (responseCache.semanticEnabled()) lookup = lookup.subscribeOn(Schedulers.boundedElastic());
+    return lookup.flatMapMany(probe -> {
+      telemetry.countResponseCache(probe.result().label());
+      if (probe.hit()) {
+        return Flux.just(new InferenceStreamEvent.Token(probe.response()),
+            new InferenceStreamEvent.Done(new InferenceResponse(probe.response(), Optional.empty(), CACHED_RESPONSE)));
+      }
+      Set<String> toolsRun = ConcurrentHashMap.newKeySet();
+      return streamRequest(prompt).doOnNext(event -> {
+        if (event instanceof InferenceStreamEvent.ToolCall call) toolsRun.add(call.toolName());
+        else if (event instanceof InferenceStreamEvent.Done done && readOnly(toolsRun)) {
+          responseCache.put(probe, done.response().content());
+        }
+      });
+    });
+  }
+
+  /** Hit, miss and eviction counters of the response cache, or null when it is disabled. */
+  public ResponseCache.Stats responseCacheStats() {
+    return responseCache == null ? null : responseCache.stats();
+  }
+
+  private String cacheScope(ResponseCache.Key key) {
+    return modelId() + '\0' + key.promptVersion();
+  }
+
+  /** Whether every tool in {@code names} belongs to a default tool marked {@link AgentTool#readOnly()}. */
+  private boolean readOnly(Set<String> names) {
+    if (names.isEmpty()) return true;
+    Set<String> readOnly = new HashSet<>();
+    for (Object tool : resolveDefaultTools()) {
+      if (tool instanceof AgentTool agentTool && agentTool.readOnly()) readOnly.addAll(toolNames(tool.getClass()));
+    }
+    return readOnly.containsAll(names);
+  }
+
+  private List<String> toolNames(Class<?> type) {
+    return toolNamesByClass.computeIfAbsent(type,
+        t -> ToolSpecifications.toolSpecificationsFrom(t).stream().map(ToolSpecification::name).toList());
+  }
+
+  private InferenceResponse send(String sessionId, ChatPrompt prompt, Consumer<ToolExecutionRequest> toolObserver, Object... toolInstances) {
     // Create telemetry session for this request
     TelemetrySession session = TelemetrySession.create();
+    RequestMemoryId memoryId = new RequestMemoryId(sessionId != null ? sessionId : session.id(), requestIds.incrementAndGet());
 
     // Wrap the entire inference request in a root span
     return telemetry.inSpan("inference.request", Map.of(
@@ -77,41 +335,351 @@ public class InferenceService {
       try {
         // Count the prompt
         telemetry.countPrompt(provider, modelName);
-        // provider builds/fetches memory for each sessionId
-        ChatMemoryProvider provider = sessionId ->
-            MessageWindowChatMemory.builder().chatMemoryStore(store).maxMessages(10).id(sessionId).build();
-
-        // Create AI service with tools
-        List<Object> listOfAvailableTools = applicationContext != null ? new ArrayList<>(applicationContext.getBeansOfType(AgentTool.class).values()) : new ArrayList<>();
-        if( toolInstances != null ) {
-          for( Object o : toolInstances ) {
-            if( o != null ) listOfAvailableTools.add(o);
-          }
-        }
-        AiAssistant assistant = AiServices.builder(AiAssistant.class)
-            .chatLanguageModel(chatModel)
-            .chatMemoryProvider(provider)
-            .tools(listOfAvailableTools) // Pass tool instances directly
-            .build();
+
+        // Fetch (or build once) the AI service for this tool set
+        List<Object> listOfAvailableTools = toolSet(toolInstances);
+        AssistantRegistry.Lookup<AiAssistant> lookup = assistants.get(listOfAvailableTools);
+        telemetry.countAssistantCache(lookup.hit());
 
         // Execute the request - tools are automatically called as needed
-        String response = assistant.chat(session.id(), prompt);
+        if (toolObserver != null) toolListeners.put(memoryId.requestId(), toolObserver);
+        applySystemMessage(memoryId, prompt);
+        // One route for the whole tool loop of the request
+        String response = RequestRoute.within(null, () -> lookup.assistant().chat(memoryId, prompt.user()));
 
         return new InferenceResponse(response, java.util.Optional.empty(), "langchain4j_response");
 
       } catch (Exception e) {
         throw new RuntimeException("Failed to send inference request", e);
+      } finally {
+        if (toolObserver != null) toolListeners.remove(memoryId.requestId());
+        if (sessionId == null) store.deleteMessages(memoryId.sessionId());
+      }
+    });
+  }
+
+  /** Rolling latency and error rate per routed provider, default provider first. */
+  public Map<String, RollingLatency.Snapshot> routeStats() {
+    Map<String, RollingLatency.Snapshot> stats = new LinkedHashMap<>();
+    for (String name : routeProviders) stats.put(name, latency(name).snapshot());
+    return stats;
+  }
+
+  /** Rolling latency and error rate of one routed provider. */
+  public RollingLatency.Snapshot routeStats(String provider) {
+    return latency(provider).snapshot();
+  }
+
+  /** Size and eviction counters of the chat memory store. */
+  public BoundedChatMemoryStore.Stats memoryStats() {
+    return store.stats();
+  }
+
+  /**
+   * Identifies the configured model as {@code provider:modelName}, e.g. for keying caches of generated content.
+   */
+  public String modelId() {
+    return provider + ":" + modelName;
+  }
+
+  /**
+   * Sends a single stateless prompt straight to the chat model: no tools, no chat memory and no assistant.
+   * Meant for internal utility calls (e.g. knowledge base hints) that must not pay for tool specifications
+   * in the request or pollute conversation memory.
+   *
+   * @param prompt the complete prompt
+   * @return the model's answer
+   */
+  public InferenceResponse complete(String prompt) {
+    return complete(prompt, CompletionOptions.DEFAULTS);
+  }
+
+  /**
+   * {@link #complete(String)} with per-call settings. In JSON mode the prompt gets an instruction to answer with
+   * JSON only, and providers with a native JSON mode (OpenAI, Gemini) are asked for it as well.
+   *
+   * @param prompt  the complete prompt
+   * @param options JSON mode, temperature and token limit for this call
+   * @return the model's answer
+   */
+  public InferenceResponse complete(String prompt, CompletionOptions options) {
+    CompletionOptions opts = options == null ? CompletionOptions.DEFAULTS : options;
+    return telemetry.inSpan("inference.complete", Map.of(
+        "gentorox.inference.provider", provider,
+        "gentorox.inference.model", modelName,
+        "gentorox.inference.prompt.length", String.valueOf(prompt.length()),
+        "gentorox.inference.json", String.valueOf(opts.json())
+    ), () -> {
+      try {
+        telemetry.countPrompt(provider, modelName);
+        String response = completionModel(opts).generate(opts.json() ? prompt + JSON_INSTRUCTION : prompt);
+        return new InferenceResponse(response, Optional.empty(), "langchain4j_response");
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to send completion request", e);
       }
     });
   }
+
+  /** The chat model used for {@code options}; the default model unless a setting differs. */
+  ChatLanguageModel completionModel(CompletionOptions options) {
+    if (CompletionOptions.DEFAULTS.equals(options)) return chatModel;
+    return completionModels.computeIfAbsent(options, o -> route(createChatModels(o)));
+  }
+
   /**
-   * Creates a ChatLanguageModel based on the configured provider.
-   * Logs which provider/model is being instantiated (without exposing secrets).
+   * Streaming variant of {@link #sendRequest(String, Object...)}. Nothing is sent until subscription; the
+   * returned Flux emits {@link InferenceStreamEvent.Token}s as the provider produces them,
+   * {@link InferenceStreamEvent.ToolCall}s right before each tool runs, and completes after a single
+   * {@link InferenceStreamEvent.Done} with the full answer. Time-to-first-token is recorded as a metric.
+   *
+   * Cancelling the subscription stops forwarding events; the provider call itself runs to completion.
+   *
+   * @param prompt The input string/prompt to send to the model
+   * @param toolInstances Array of tool instances (objects with @Tool methods)
    */
-  private ChatLanguageModel createChatModel(ProviderProperties providerProperties) {
-    String provider = providerProperties.getDefaultProvider();
-    ProviderProperties.ProviderSettings settings = providerProperties.getProviders().get(provider);
+  public Flux<InferenceStreamEvent> streamRequest(String prompt, Object... toolInstances) {
+    return streamSessionRequest(null, prompt, toolInstances);
+  }
+
+  /** {@link #streamRequest(String, Object...)} with a separate system message. */
+  public Flux<InferenceStreamEvent> streamRequest(ChatPrompt prompt, Object... toolInstances) {
+    return streamSessionRequest(null, prompt, toolInstances);
+  }
+
+  /**
+   * Streaming variant of {@link #sendSessionRequest(String, String, Object...)}.
+   *
+   * @param sessionId client-chosen conversation id, or null for a one-shot request
+   */
+  public Flux<InferenceStreamEvent> streamSessionRequest(String sessionId, String prompt, Object... toolInstances) {
+    return streamSessionRequest(sessionId, ChatPrompt.of(prompt), toolInstances);
+  }
+
+  /** {@link #streamSessionRequest(String, String, Object...)} with a separate system message. */
+  public Flux<InferenceStreamEvent> streamSessionRequest(String sessionId, ChatPrompt prompt, Object... toolInstances) {
+    Map<String, String> attrs = Map.of(
+        "gentorox.inference.provider", provider,
+        "gentorox.inference.model", modelName,
+        "gentorox.inference.tools.count", String.valueOf(toolInstances == null ? 0 : toolInstances.length),
+        "gentorox.inference.prompt.length", String.valueOf(prompt.length()),
+        "gentorox.inference.streaming", "true");
+    Flux<InferenceStreamEvent> events = Flux.deferContextual(view -> Flux.create(sink ->
+        TelemetryService.inContext(view, () -> {
+          startStream(sessionId, prompt, toolInstances, sink);
+          return null;
+        })));
+    return telemetry.inSpanReactive("inference.request", attrs, events);
+  }
 
+  private void startStream(String conversationId, ChatPrompt prompt, Object[] toolInstances, FluxSink<InferenceStreamEvent> sink) {
+    String sessionId = conversationId != null ? conversationId : TelemetrySession.create().id();
+    telemetry.countPrompt(provider, modelName);
+
+    AssistantRegistry.Lookup<StreamingAssistant> lookup = streamingAssistants.get(toolSet(toolInstances));
+    telemetry.countAssistantCache(lookup.hit());
+
+    RequestMemoryId memoryId = new RequestMemoryId(sessionId, requestIds.incrementAndGet());
+    toolListeners.put(memoryId.requestId(), request ->
+        sink.next(new InferenceStreamEvent.ToolCall(request.name(), request.arguments())));
+    applySystemMessage(memoryId, prompt);
+    sink.onDispose(() -> toolListeners.remove(memoryId.requestId()));
+    // A cancelled stream leaves the provider call running and writing to memory, so one-shot memory is only
+    // dropped once the handler has finished
+    Runnable finished = () -> {
+      if (conversationId == null) store.deleteMessages(sessionId);
+    };
+
+    long started = System.nanoTime();
+    AtomicBoolean firstToken = new AtomicBoolean(true);
+    try {
+      lookup.assistant().chat(memoryId, prompt.user())
+          .onNext(token -> {
+            if (firstToken.compareAndSet(true, false)) {
+              telemetry.recordTimeToFirstToken(provider, modelName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+            sink.next(new InferenceStreamEvent.Token(token));
+          })
+          .onComplete(response -> {
+            finished.run();
+            String text = response.content() == null ? "" : response.content().text();
+            sink.next(new InferenceStreamEvent.Done(new InferenceResponse(text, Optional.empty(), "langchain4j_response")));
+            sink.complete();
+          })
+          .onError(e -> {
+            finished.run();
+            sink.error(new RuntimeException("Failed to stream inference request", e));
+          })
+          .start();
+    } catch (RuntimeException e) {
+      finished.run();
+      throw e;
+    }
+  }
+
+  /**
+   * Puts the system message of {@code prompt} first in the chat memory of {@code memoryId}; an unchanged system
+   * message is left as is. Written to memory rather than through a system message provider, as AI services would
+   * expand {@code {{...}}} placeholders in it.
+   */
+  private void applySystemMessage(Object memoryId, ChatPrompt prompt) {
+    if (prompt.system() != null) memoryProvider.get(memoryId).add(SystemMessage.from(prompt.system()));
+  }
+
+  private List<Object> toolSet(Object... toolInstances) {
+    List<Object> tools = new ArrayList<>(resolveDefaultTools());
+    if (toolInstances != null) {
+      for (Object o : toolInstances) {
+        if (o != null) tools.add(o);
+      }
+    }
+    return tools;
+  }
+
+  private List<Object> resolveDefaultTools() {
+    List<Object> tools = defaultTools;
+    if (tools != null) return tools;
+    // Still starting up (e.g. hint or guardrail generation during bean creation): resolve without caching,
+    // as beans that are currently in creation are skipped and the set may still change.
+    return applicationContext != null ? new ArrayList<>(applicationContext.getBeansOfType(AgentTool.class).values()) : List.of();
+  }
+
+  private AiAssistant buildAssistant(Map<ToolSpecification, ToolExecutor> tools) {
+    AiServices<AiAssistant> builder = AiServices.builder(AiAssistant.class)
+        .chatLanguageModel(chatModel)
+        .chatMemoryProvider(memoryProvider);
+    if (!tools.isEmpty()) {
+      builder.tools(observed(tools));
+    }
+    return builder.build();
+  }
+
+  private StreamingAssistant buildStreamingAssistant(Map<ToolSpecification, ToolExecutor> tools) {
+    AiServices<StreamingAssistant> builder = AiServices.builder(StreamingAssistant.class)
+        .streamingChatLanguageModel(streamingChatModel)
+        .chatMemoryProvider(memoryProvider);
+    if (!tools.isEmpty()) {
+      builder.tools(observed(tools));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Reports tool calls to the listener of the request they run for before running them; tools themselves see the
+   * session id as memory id.
+   */
+  private Map<ToolSpecification, ToolExecutor> observed(Map<ToolSpecification, ToolExecutor> tools) {
+    Map<ToolSpecification, ToolExecutor> observed = new LinkedHashMap<>();
+    tools.forEach((spec, executor) -> observed.put(spec, (request, memoryId) -> {
+      if (!(memoryId instanceof RequestMemoryId requestMemoryId)) return executor.execute(request, memoryId);
+      Consumer<ToolExecutionRequest> listener = toolListeners.get(requestMemoryId.requestId());
+      if (listener != null) listener.accept(request);
+      return executor.execute(request, requestMemoryId.sessionId());
+    }));
+    return observed;
+  }
+
+  /**
+   * The default provider, then the providers listed under {@code providers.routing.providers}, in list order.
+   * A configured provider is never routed to unless it is listed.
+   */
+  private static List<String> routeProviders(ProviderProperties providerProperties) {
+    String defaultProvider = providerProperties.getDefaultProvider();
+    List<String> names = new ArrayList<>();
+    names.add(defaultProvider);
+    ProviderProperties.Routing routing = providerProperties.getRouting();
+    List<String> listed = routing != null && routing.getProviders() != null ? routing.getProviders() : List.of();
+    Map<String, ProviderProperties.ProviderSettings> providers = providerProperties.getProviders();
+    for (String name : listed) {
+      if (name == null || name.isBlank() || names.contains(name)) continue;
+      ProviderProperties.ProviderSettings settings = providers != null ? providers.get(name) : null;
+      if (settings == null || settings.getApiKey() == null || settings.getApiKey().isEmpty()
+          || !SUPPORTED_PROVIDERS.contains(name.toLowerCase())) {
+        throw new IllegalArgumentException("Routing provider is not configured with an API key: " + name);
+      }
+      names.add(name);
+    }
+    return List.copyOf(names);
+  }
+
+  private Map<String, ChatLanguageModel> createChatModels(CompletionOptions options) {
+    Map<String, ChatLanguageModel> models = new LinkedHashMap<>();
+    for (String name : routeProviders) {
+      models.put(name, createChatModel(name, providerProperties.getProviders().get(name), options, usageListeners(name)));
+    }
+    return models;
+  }
+
+  /** A single provider is used as is; several are wrapped in a router sharing the per-provider statistics. */
+  private ChatLanguageModel route(Map<String, ChatLanguageModel> models) {
+    if (models.size() == 1) return models.values().iterator().next();
+    List<ModelRoute<ChatLanguageModel>> routes = new ArrayList<>();
+    models.forEach((name, model) -> routes.add(modelRoute(name, model)));
+    return new RoutingChatModel(routes, routingPolicy, hedgeAfter);
+  }
+
+  private StreamingChatLanguageModel routeStreaming(Map<String, ChatLanguageModel> blocking) {
+    List<ModelRoute<StreamingChatLanguageModel>> routes = new ArrayList<>();
+    blocking.forEach((name, model) ->
+        routes.add(modelRoute(name, createStreamingChatModel(name, providerProperties.getProviders().get(name), model,
+            usageListeners(name)))));
+    return routes.size() == 1 ? routes.get(0).model() : new RoutingStreamingChatModel(routes, routingPolicy);
+  }
+
+  private <M> ModelRoute<M> modelRoute(String name, M model) {
+    ProviderProperties.ProviderSettings settings = providerProperties.getProviders().get(name);
+    return new ModelRoute<>(name + ":" + settings.getModelName(), model, settings.getWeight(), latency(name));
+  }
+
+  /** Token and prompt prefix telemetry of a provider, shared by all of its clients. */
+  private List<ChatModelListener> usageListeners(String name) {
+    return usageListeners.computeIfAbsent(name, n -> {
+      ProviderProperties.ProviderSettings settings = providerProperties.getProviders().get(n);
+      return List.of(new PromptUsageListener(telemetry, n, settings == null ? "" : String.valueOf(settings.getModelName())));
+    });
+  }
+
+  private RollingLatency latency(String name) {
+    return routeLatencies.computeIfAbsent(name, n -> new RollingLatency(RollingLatency.DEFAULT_WINDOW));
+  }
+
+  /**
+   * Creates the streaming counterpart of {@link #createChatModel(String, ProviderProperties.ProviderSettings, CompletionOptions, List)}.
+   * Providers without a native streaming model fall back to the blocking model, delivering the answer as a single token.
+   */
+  private static StreamingChatLanguageModel createStreamingChatModel(String provider, ProviderProperties.ProviderSettings settings,
+                                                                     ChatLanguageModel blocking, List<ChatModelListener> listeners) {
+    boolean customBaseUrl = settings.getBaseUrl() != null && !settings.getBaseUrl().isEmpty();
+    return switch (provider.toLowerCase()) {
+      case "openai" -> {
+        var builder = OpenAiStreamingChatModel.builder()
+            .apiKey(settings.getApiKey())
+            .temperature(1D)
+            .modelName(settings.getModelName())
+            .listeners(listeners);
+        if (customBaseUrl) builder.baseUrl(settings.getBaseUrl());
+        yield builder.build();
+      }
+      case "anthropic" -> {
+        var builder = AnthropicStreamingChatModel.builder()
+            .apiKey(settings.getApiKey())
+            .modelName(settings.getModelName())
+            .listeners(listeners);
+        if (customBaseUrl) builder.baseUrl(settings.getBaseUrl());
+        yield builder.build();
+      }
+      // No streaming Gemini model in the LangChain4j version in use
+      default -> new BlockingStreamingChatModel(blocking);
+    };
+  }
+
+  /**
+   * Creates a ChatLanguageModel for one configured provider.
+   *
+   * @param options   settings baked into the model; {@link CompletionOptions#DEFAULTS} for the shared model
+   * @param listeners observers of every call, e.g. for token usage telemetry
+   */
+  private static ChatLanguageModel createChatModel(String provider, ProviderProperties.ProviderSettings settings,
+                                                   CompletionOptions options, List<ChatModelListener> listeners) {
     if (settings == null) {
       throw new IllegalArgumentException("Provider configuration not found for: " + provider);
     }
@@ -122,12 +690,16 @@ public class InferenceService {
         }
         var builder = OpenAiChatModel.builder()
             .apiKey(settings.getApiKey())
-            .temperature(1D)
-            .modelName(settings.getModelName());
+            .temperature(options.temperature() != null ? options.temperature() : 1D)
+            .modelName(settings.getModelName())
+            .listeners(listeners);
 
         if (settings.getBaseUrl() != null && !settings.getBaseUrl().isEmpty()) {
           builder.baseUrl(settings.getBaseUrl());
         }
+        // max_completion_tokens: max_tokens is rejected by reasoning models
+        if (options.maxTokens() != null) builder.maxCompletionTokens(options.maxTokens());
+        if (options.json()) builder.responseFormat("json_object");
 
         yield builder.build();
       }
@@ -137,11 +709,15 @@ public class InferenceService {
         }
         var builder = AnthropicChatModel.builder()
             .apiKey(settings.getApiKey())
-            .modelName(settings.getModelName());
+            .modelName(settings.getModelName())
+            .listeners(listeners);
 
         if (settings.getBaseUrl() != null && !settings.getBaseUrl().isEmpty()) {
           builder.baseUrl(settings.getBaseUrl());
         }
+        // No JSON mode in the Anthropic API: JSON output relies on the prompt instruction
+        if (options.temperature() != null) builder.temperature(options.temperature());
+        if (options.maxTokens() != null) builder.maxTokens(options.maxTokens());
         yield builder.build();
       }
       case "gemini" -> {
@@ -150,7 +726,11 @@ public class InferenceService {
         }
         var builder = GoogleAiGeminiChatModel.builder()
             .apiKey(settings.getApiKey())
-            .modelName(settings.getModelName());
+            .modelName(settings.getModelName())
+            .listeners(listeners);
+        if (options.temperature() != null) builder.temperature(options.temperature());
+        if (options.maxTokens() != null) builder.maxOutputTokens(options.maxTokens());
+        if (options.json()) builder.responseFormat(ResponseFormat.JSON);
 
         yield builder.build();
       }
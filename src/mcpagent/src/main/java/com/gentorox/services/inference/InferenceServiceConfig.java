@@ -1,15 +1,20 @@
 package com.gentorox.services.inference;
 
+import com.gentorox.services.knowledgebase.HashingEmbeddingModel;
 import com.gentorox.services.knowledgebase.KnowledgeBaseService;
 import com.gentorox.services.telemetry.TelemetryService;
 import com.gentorox.services.typescript.TypescriptRuntimeClient;
 import com.gentorox.tools.AgentTool;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -31,13 +36,78 @@ public class InferenceServiceConfig {
    *
    * @param providerProperties provider selection and per-provider settings
    * @param telemetry telemetry service for tracking
+   * @param memoryTtlSeconds idle time after which a session's chat memory is dropped
+   * @param memoryMaxSessions maximum number of sessions whose chat memory is kept
+   * @param cacheEnabled whether one-shot answers are cached
+   * @param cacheTtlSeconds time a cached answer is served
+   * @param cacheMaxEntries maximum number of cached answers
+   * @param semanticCacheEnabled whether near-identical requests may be answered from the cache
+   * @param semanticSimilarity minimum cosine similarity of a semantic cache hit
+   * @param embeddingModel embedding model of the semantic tier; the local hashing model if none is defined
    * @return a configured InferenceService
    */
   @Bean
-  InferenceService inferenceService(ApplicationContext applicationContext, ProviderProperties providerProperties, TelemetryService telemetry) {
+  InferenceService inferenceService(ApplicationContext applicationContext, ProviderProperties providerProperties, TelemetryService telemetry,
+                                    @Value("${inference.memory.ttlSeconds:1800}") long memoryTtlSeconds,
+                                    @Value("${inference.memory.maxSessions:10000}") int memoryMaxSessions,
+                                    @Value("${inference.responseCache.enabled:false}") boolean cacheEnabled,
+                                    @Value("${inference.responseCache.ttlSeconds:600}") long cacheTtlSeconds,
+                                    @Value("${inference.responseCache.maxEntries:1000}") int cacheMaxEntries,
+                                    @Value("${inference.responseCache.semantic.enabled:false}") boolean semanticCacheEnabled,
+                                    @Value("${inference.responseCache.semantic.similarity:0.95}") double semanticSimilarity,
+                                    ObjectProvider<EmbeddingModel> embeddingModel) {
     String defaultProvider = providerProperties != null ? providerProperties.getDefaultProvider() : null;
     LOGGER.info("Initializing InferenceService bean (defaultProvider={})", defaultProvider);
-    return new InferenceService(applicationContext, providerProperties, telemetry);
+    BoundedChatMemoryStore memory = new BoundedChatMemoryStore(Duration.ofSeconds(memoryTtlSeconds), memoryMaxSessions);
+    registerMemoryGauges(telemetry, memory);
+    ResponseCache cache = null;
+    if (cacheEnabled) {
+      EmbeddingModel embeddings = semanticCacheEnabled ? embeddingModel.getIfAvailable(HashingEmbeddingModel::new) : null;
+      cache = new ResponseCache(Duration.ofSeconds(cacheTtlSeconds), cacheMaxEntries, embeddings, semanticSimilarity);
+      LOGGER.info("Response cache: maxEntries={}, ttl={}s, semantic={}", cacheMaxEntries, cacheTtlSeconds,
+          embeddings == null ? "off" : embeddings.getClass().getSimpleName() + " >= " + semanticSimilarity);
+      registerResponseCacheGauges(telemetry, cache);
+    }
+    InferenceService service = new InferenceService(applicationContext, providerProperties, telemetry, memory, cache);
+    registerRouteGauges(telemetry, service);
+    return service;
+  }
+
+  private static void registerResponseCacheGauges(TelemetryService telemetry, ResponseCache cache) {
+    telemetry.registerGauge("com.gentorox.inference.response.cache.entries", "Answers held in the response cache",
+        () -> cache.stats().entries());
+    telemetry.registerGauge("com.gentorox.inference.response.cache.hit_ratio_pct", "Share of response cache lookups answered from the cache",
+        () -> {
+          ResponseCache.Stats stats = cache.stats();
+          long hits = stats.exactHits() + stats.semanticHits();
+          long lookups = hits + stats.misses();
+          return lookups == 0 ? 0 : Math.round(100.0 * hits / lookups);
+        });
+    telemetry.registerGauge("com.gentorox.inference.response.cache.evictions", "Response cache entries evicted past the size cap",
+        () -> cache.stats().evictions());
+  }
+
+  private static void registerRouteGauges(TelemetryService telemetry, InferenceService service) {
+    for (String provider : service.routeStats().keySet()) {
+      String prefix = "com.gentorox.inference.route." + provider;
+      telemetry.registerGauge(prefix + ".p50_ms", "Rolling median latency of " + provider + " calls",
+          () -> service.routeStats(provider).p50Millis());
+      telemetry.registerGauge(prefix + ".p99_ms", "Rolling p99 latency of " + provider + " calls",
+          () -> service.routeStats(provider).p99Millis());
+      telemetry.registerGauge(prefix + ".error_rate_pct", "Share of recent " + provider + " calls that failed",
+          () -> Math.round(service.routeStats(provider).errorRate() * 100));
+    }
+  }
+
+  private static void registerMemoryGauges(TelemetryService telemetry, BoundedChatMemoryStore memory) {
+    telemetry.registerGauge("com.gentorox.inference.memory.sessions", "Chat memory sessions held",
+        () -> memory.stats().sessions());
+    telemetry.registerGauge("com.gentorox.inference.memory.messages", "Chat messages held across sessions",
+        () -> memory.stats().messages());
+    telemetry.registerGauge("com.gentorox.inference.memory.evictions", "Chat memory sessions evicted past the session cap",
+        () -> memory.stats().evictions());
+    telemetry.registerGauge("com.gentorox.inference.memory.expirations", "Chat memory sessions dropped after their TTL",
+        () -> memory.stats().expirations());
   }
 
 }
@@ -0,0 +1,25 @@
+package com.gentorox.services.inference;
+
+import java.util.Objects;
+
+/**
+ * One provider/model a request can be routed to.
+ *
+ * @param name    route name, e.g. {@code openai:gpt-4o-mini}
+ * @param model   the chat model client
+ * @param weight  share of traffic under {@link RoutingPolicy#WEIGHTED}
+ * @param latency rolling statistics of the calls made through this route; shared by all clients of the same
+ *                provider/model
+ */
+public record ModelRoute<M>(String name, M model, int weight, RollingLatency latency) {
+  public ModelRoute {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(model, "model");
+    Objects.requireNonNull(latency, "latency");
+    if (weight < 0) throw new IllegalArgumentException("weight must be >= 0");
+  }
+
+  public <N> ModelRoute<N> withModel(N other) {
+    return new ModelRoute<>(name, other, weight, latency);
+  }
+}
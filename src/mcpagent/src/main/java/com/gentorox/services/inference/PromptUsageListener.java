@@ -0,0 +1,60 @@
+package com.gentorox.services.inference;
+
+import com.gentorox.services.telemetry.TelemetryService;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+
+/**
+ * Reports the prompt usage of one provider/model client: the token counts of every call, and whether the
+ * system message (the cacheable prompt prefix) was the same as in the previous call.
+ *
+ * Providers cache a prompt prefix only while it stays byte-identical, so a low prefix hit rate means the
+ * system prompt is being re-rendered and provider-side prefix caching cannot help.
+ */
+final class PromptUsageListener implements ChatModelListener {
+  private final TelemetryService telemetry;
+  private final String provider;
+  private final String model;
+  // system message of the previous call; compared by identity first, as the compiled prompt is reused as is
+  private volatile String lastPrefix;
+
+  PromptUsageListener(TelemetryService telemetry, String provider, String model) {
+    this.telemetry = telemetry;
+    this.provider = provider;
+    this.model = model;
+  }
+
+  @Override
+  public void onRequest(ChatModelRequestContext context) {
+    String prefix = systemMessage(context.request().messages());
+    if (prefix == null) return;
+    String previous = lastPrefix;
+    lastPrefix = prefix;
+    telemetry.countPromptPrefix(provider, model, prefix == previous || prefix.equals(previous));
+  }
+
+  @Override
+  public void onResponse(ChatModelResponseContext context) {
+    TokenUsage usage = context.response().tokenUsage();
+    if (usage == null) return;
+    telemetry.countTokens(provider, model, count(usage.inputTokenCount()), count(usage.outputTokenCount()));
+  }
+
+  private static String systemMessage(List<ChatMessage> messages) {
+    if (messages == null) return null;
+    for (ChatMessage message : messages) {
+      if (message instanceof SystemMessage system) return system.text();
+    }
+    return null;
+  }
+
+  private static long count(Integer tokens) {
+    return tokens == null ? 0 : tokens;
+  }
+}
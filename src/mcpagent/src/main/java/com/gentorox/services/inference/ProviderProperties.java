@@ -3,6 +3,7 @@ package com.gentorox.services.inference;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +24,13 @@ import java.util.Map;
  *     gemini:
  *       api-key: ${GOOGLE_API_KEY}
  *       model-name: gemini-1.5-pro
+ *   routing:
+ *     providers: [anthropic]  # routed besides the default provider; empty routes to the default provider only
+ *     policy: failover        # failover | lowest-latency | weighted
+ *     hedge-after-ms: 0       # 0 disables hedging
+ *
+ * Requests go to the default provider first and fail over to the providers listed under routing (see
+ * {@link RoutingPolicy}); other configured providers are not used.
  *
  * Note: API keys are sensitive and must not be logged.
  */
@@ -40,6 +48,11 @@ public class ProviderProperties {
      */
     private String defaultProvider;
 
+    /**
+     * How requests are spread over the configured providers.
+     */
+    private Routing routing = new Routing();
+
     public Map<String, ProviderSettings> getProviders() {
         return providers;
     }
@@ -56,6 +69,50 @@ public class ProviderProperties {
         this.defaultProvider = defaultProvider;
     }
 
+    public Routing getRouting() {
+        return routing;
+    }
+
+    public void setRouting(Routing routing) {
+        this.routing = routing;
+    }
+
+    /**
+     * Routing over the configured providers.
+     */
+    public static class Routing {
+        /** Providers requests may be routed to besides the default provider, in failover order; each needs an API key. */
+        private List<String> providers = List.of();
+        /** Route order per request: failover, lowest-latency or weighted. */
+        private String policy = "failover";
+        /** Delay after which a slow blocking request is also sent to the next provider; 0 disables hedging. */
+        private long hedgeAfterMs;
+
+        public List<String> getProviders() {
+            return providers;
+        }
+
+        public void setProviders(List<String> providers) {
+            this.providers = providers;
+        }
+
+        public String getPolicy() {
+            return policy;
+        }
+
+        public void setPolicy(String policy) {
+            this.policy = policy;
+        }
+
+        public long getHedgeAfterMs() {
+            return hedgeAfterMs;
+        }
+
+        public void setHedgeAfterMs(long hedgeAfterMs) {
+            this.hedgeAfterMs = hedgeAfterMs;
+        }
+    }
+
     /**
      * Settings for a specific provider.
      */
@@ -68,6 +125,8 @@ public class ProviderProperties {
         private String endpoint;
         /** Model name identifier (e.g., gpt-4o-mini, claude-3-5-sonnet). */
         private String modelName;
+        /** Share of traffic under the weighted routing policy. */
+        private int weight = 1;
 
         public String getApiKey() {
             return apiKey;
@@ -100,5 +159,13 @@ public class ProviderProperties {
         public void setModelName(String modelName) {
             this.modelName = modelName;
         }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
     }
 }
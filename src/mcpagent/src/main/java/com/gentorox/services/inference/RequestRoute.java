@@ -0,0 +1,88 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The route one request keeps to across its tool loop.
+ *
+ * The first model call of a request picks a route with the {@link RoutingPolicy}; the calls that follow carry the
+ * tool results of the answer that route gave, so they go to the same route instead of being routed again. A call
+ * only fails over while the request has not run a tool yet: another provider would re-plan work whose side effects
+ * already happened.
+ *
+ * The route lives in a thread local. Blocking requests make every model call on the calling thread; streaming
+ * requests make each follow-up call from the completion callback of the previous one, which
+ * {@link RoutingStreamingChatModel} runs within the route that answered.
+ */
+final class RequestRoute {
+  private static final ThreadLocal<RequestRoute> CURRENT = new ThreadLocal<>();
+
+  // only read and written by the thread the request runs on
+  private String name;
+
+  private RequestRoute(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Runs {@code request} as one request on the route named {@code name}, or on the route its first call picks
+   * when null.
+   */
+  static <T> T within(String name, Supplier<T> request) {
+    RequestRoute outer = CURRENT.get();
+    CURRENT.set(new RequestRoute(name));
+    try {
+      return request.get();
+    } finally {
+      if (outer == null) CURRENT.remove();
+      else CURRENT.set(outer);
+    }
+  }
+
+  /**
+   * Routes to try for a call with {@code messages}: the policy order until the request has a route, that route
+   * first afterwards, and only the first route once the request has run a tool.
+   */
+  static <M> List<ModelRoute<M>> order(List<ModelRoute<M>> routes, RoutingPolicy policy, List<ChatMessage> messages) {
+    RequestRoute current = CURRENT.get();
+    ModelRoute<M> chosen = null;
+    if (current != null && current.name != null) {
+      for (ModelRoute<M> route : routes) {
+        if (route.name().equals(current.name)) chosen = route;
+      }
+    }
+    List<ModelRoute<M>> order;
+    if (chosen == null) {
+      order = policy.order(routes);
+    } else {
+      order = new ArrayList<>(routes.size());
+      order.add(chosen);
+      for (ModelRoute<M> route : routes) {
+        if (route != chosen) order.add(route);
+      }
+    }
+    return toolsRan(messages) ? order.subList(0, 1) : order;
+  }
+
+  /** Keeps the current request on {@code route}, which answered its latest call. */
+  static void answered(ModelRoute<?> route) {
+    RequestRoute current = CURRENT.get();
+    if (current != null) current.name = route.name();
+  }
+
+  /** Whether a tool result follows the last user message, i.e. the request has run a tool. */
+  static boolean toolsRan(List<ChatMessage> messages) {
+    for (int i = messages.size() - 1; i >= 0; i--) {
+      ChatMessage message = messages.get(i);
+      if (message instanceof ToolExecutionResultMessage) return true;
+      if (message instanceof UserMessage) return false;
+    }
+    return false;
+  }
+}
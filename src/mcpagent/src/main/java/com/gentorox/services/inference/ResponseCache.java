@@ -0,0 +1,207 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of model answers to one-shot prompts, in two tiers:
+ * - exact: keyed by a SHA-256 of the scope (model and prompt version) and the query;
+ * - semantic (optional): a query whose embedding is at least {@code similarity} cosine-similar to a cached query
+ *   of the same scope gets that query's answer.
+ *
+ * Entries live for the time-to-live after they were written and the least recently used entry is evicted past
+ * {@code maxEntries}. The semantic tier scans the cached vectors of the scope linearly, which stays well under a
+ * millisecond at the default size. This class is thread-safe.
+ */
+public final class ResponseCache {
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+  public static final double DEFAULT_SIMILARITY = 0.95;
+
+  /**
+   * A cacheable request.
+   *
+   * @param promptVersion identifies everything in the prompt besides the query (e.g. the compiled system prompt)
+   * @param query         the variable part of the prompt, e.g. the user request
+   * @param semantic      whether near-identical queries may be answered from the semantic tier
+   */
+  public record Key(String promptVersion, String query, boolean semantic) {}
+
+  /** Lookup outcome, also used as the metric label. */
+  public enum Result {
+    EXACT, SEMANTIC, MISS;
+
+    public String label() {
+      return name().toLowerCase();
+    }
+  }
+
+  /** Result of {@link #lookup}; pass it back to {@link #put} so the query is hashed and embedded once. */
+  public record Probe(String scope, String hash, float[] vector, String response, Result result) {
+    public boolean hit() {
+      return response != null;
+    }
+  }
+
+  /** Point-in-time counters of the cache. */
+  public record Stats(long entries, long exactHits, long semanticHits, long misses, long evictions) {}
+
+  private record Entry(String scope, float[] vector, String response, long writtenNanos) {}
+
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final EmbeddingModel embeddings;
+  private final double similarity;
+  private final LongSupplier nanoClock;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private final LongAdder exactHits = new LongAdder();
+  private final LongAdder semanticHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param embeddings embedding model of the semantic tier, or null for the exact tier only
+   * @param similarity minimum cosine similarity of a semantic hit, in (0, 1]
+   */
+  public ResponseCache(Duration ttl, int maxEntries, EmbeddingModel embeddings, double similarity) {
+    this(ttl, maxEntries, embeddings, similarity, System::nanoTime);
+  }
+
+  ResponseCache(Duration ttl, int maxEntries, EmbeddingModel embeddings, double similarity, LongSupplier nanoClock) {
+    if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+    if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+    if (similarity <= 0 || similarity > 1) throw new IllegalArgumentException("similarity must be within (0, 1]");
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+    this.embeddings = embeddings;
+    this.similarity = similarity;
+    this.nanoClock = nanoClock;
+  }
+
+  public boolean semanticEnabled() {
+    return embeddings != null;
+  }
+
+  /**
+   * Looks up the answer to {@code query} within {@code scope}: exact match first, then, if {@code semantic} and
+   * the tier is enabled, the most similar cached query above the threshold. With the semantic tier enabled, a miss
+   * embeds the query even if {@code semantic} is false, so {@link #put} never has to.
+   */
+  public Probe lookup(String scope, String query, boolean semantic) {
+    String hash = hash(scope, query);
+    synchronized (this) {
+      Entry exact = live(hash);
+      if (exact != null) {
+        exactHits.increment();
+        return new Probe(scope, hash, exact.vector(), exact.response(), Result.EXACT);
+      }
+    }
+    if (embeddings == null) {
+      misses.increment();
+      return new Probe(scope, hash, null, null, Result.MISS);
+    }
+
+    // Embed outside the lock: a remote embedding model may take a while
+    float[] vector = normalize(embeddings.embed(query).content().vector());
+    if (!semantic) {
+      misses.increment();
+      return new Probe(scope, hash, vector, null, Result.MISS);
+    }
+    synchronized (this) {
+      long now = nanoClock.getAsLong();
+      Entry best = null;
+      double bestScore = similarity;
+      for (Entry entry : entries.values()) {
+        if (entry.vector() == null || !entry.scope().equals(scope) || expired(entry, now)) continue;
+        double score = dot(vector, entry.vector());
+        if (score >= bestScore) {
+          best = entry;
+          bestScore = score;
+        }
+      }
+      if (best != null) {
+        semanticHits.increment();
+        return new Probe(scope, hash, vector, best.response(), Result.SEMANTIC);
+      }
+    }
+    misses.increment();
+    return new Probe(scope, hash, vector, null, Result.MISS);
+  }
+
+  /**
+   * Caches {@code response} for the query of a missed lookup, reusing the embedding computed by the lookup. Cheap
+   * enough to call from a provider callback thread.
+   */
+  public void put(Probe probe, String response) {
+    if (response != null) store(probe, probe.vector(), response);
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(entries.size(), exactHits.sum(), semanticHits.sum(), misses.sum(), evictions.sum());
+  }
+
+  private synchronized void store(Probe probe, float[] vector, String response) {
+    long now = nanoClock.getAsLong();
+    entries.put(probe.hash(), new Entry(probe.scope(), vector, response, now));
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Entry eldest = it.next().getValue();
+      boolean expired = expired(eldest, now);
+      if (!expired && entries.size() <= maxEntries) break;
+      it.remove();
+      if (!expired) evictions.increment();
+    }
+  }
+
+  private Entry live(String hash) {
+    Entry entry = entries.get(hash);
+    if (entry != null && expired(entry, nanoClock.getAsLong())) {
+      entries.remove(hash);
+      return null;
+    }
+    return entry;
+  }
+
+  private boolean expired(Entry entry, long now) {
+    return now - entry.writtenNanos() > ttlNanos;
+  }
+
+  static String hash(String scope, String query) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(scope.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(query.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static float[] normalize(float[] v) {
+    double norm = 0;
+    for (float x : v) norm += x * x;
+    if (norm == 0) return v;
+    float inv = (float) (1 / Math.sqrt(norm));
+    float[] out = new float[v.length];
+    for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+    return out;
+  }
+
+  private static double dot(float[] a, float[] b) {
+    if (a.length != b.length) return 0;
+    double sum = 0;
+    for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+    return sum;
+  }
+}
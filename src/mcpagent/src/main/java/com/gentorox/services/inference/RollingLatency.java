@@ -0,0 +1,68 @@
+package com.gentorox.services.inference;
+
+import java.util.Arrays;
+
+/**
+ * Latency and error rate of the most recent calls to one provider/model, kept in a fixed-size ring.
+ *
+ * Percentiles are computed on demand from a sorted copy of the ring, which is cheap at the window sizes used
+ * for routing (a few hundred samples). This class is thread-safe.
+ */
+public final class RollingLatency {
+  public static final int DEFAULT_WINDOW = 256;
+
+  /** Statistics over the current window; percentiles are 0 while no call has succeeded. */
+  public record Snapshot(int samples, long p50Millis, long p99Millis, double errorRate) {}
+
+  private final long[] latencies;
+  private final boolean[] failures;
+  private int next;
+  private int size;
+  private long lastFailureNanos;
+  private boolean failed;
+
+  public RollingLatency(int window) {
+    if (window <= 0) throw new IllegalArgumentException("window must be positive");
+    this.latencies = new long[window];
+    this.failures = new boolean[window];
+  }
+
+  /** Records one call; failed calls count towards the error rate but not the latency percentiles. */
+  public synchronized void record(long nanos, boolean ok) {
+    latencies[next] = nanos;
+    failures[next] = !ok;
+    next = (next + 1) % latencies.length;
+    if (size < latencies.length) size++;
+    if (!ok) {
+      failed = true;
+      lastFailureNanos = System.nanoTime();
+    }
+  }
+
+  /** Nanoseconds since the last failed call, or {@link Long#MAX_VALUE} if none failed. */
+  public synchronized long nanosSinceLastFailure() {
+    return failed ? System.nanoTime() - lastFailureNanos : Long.MAX_VALUE;
+  }
+
+  public synchronized Snapshot snapshot() {
+    long[] ok = new long[size];
+    int okCount = 0;
+    int errors = 0;
+    for (int i = 0; i < size; i++) {
+      if (failures[i]) errors++;
+      else ok[okCount++] = latencies[i];
+    }
+    if (okCount == 0) return new Snapshot(size, 0, 0, size == 0 ? 0 : 1);
+    Arrays.sort(ok, 0, okCount);
+    return new Snapshot(size, millis(ok[percentileIndex(okCount, 0.50)]), millis(ok[percentileIndex(okCount, 0.99)]),
+        (double) errors / size);
+  }
+
+  private static int percentileIndex(int count, double p) {
+    return Math.min(count - 1, (int) Math.ceil(p * count) - 1);
+  }
+
+  private static long millis(long nanos) {
+    return nanos / 1_000_000;
+  }
+}
@@ -0,0 +1,174 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link ChatLanguageModel} that spreads requests over several provider/model clients.
+ *
+ * Each request tries the routes in the order chosen by the {@link RoutingPolicy}; a failed call moves on to the
+ * next route. With hedging enabled, a call still running after the hedge delay is also sent to the next route
+ * and the first successful answer wins; the slower call is left to finish in the background. Every call feeds
+ * the latency and error statistics of its route.
+ *
+ * Within a {@link RequestRoute}, the route is chosen once: the calls of the tool loop go to the route that
+ * answered, and neither fail over nor hedge once a tool has run.
+ *
+ * This class is thread-safe.
+ */
+public final class RoutingChatModel implements ChatLanguageModel {
+  private static final Logger logger = LoggerFactory.getLogger(RoutingChatModel.class);
+
+  private final List<ModelRoute<ChatLanguageModel>> routes;
+  private final RoutingPolicy policy;
+  private final Duration hedgeAfter;
+  private final Executor executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("inference-hedge-", 0).factory());
+  private final LongAdder failovers = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final Set<Capability> capabilities;
+
+  /**
+   * @param routes     routes in configured order; the first one is the default provider
+   * @param policy     how each request orders the routes
+   * @param hedgeAfter delay after which a slow request is also sent to the next route; null or zero disables hedging
+   */
+  public RoutingChatModel(List<ModelRoute<ChatLanguageModel>> routes, RoutingPolicy policy, Duration hedgeAfter) {
+    if (routes.isEmpty()) throw new IllegalArgumentException("at least one route is required");
+    this.routes = List.copyOf(routes);
+    this.policy = policy;
+    this.hedgeAfter = hedgeAfter == null || hedgeAfter.isZero() || hedgeAfter.isNegative() ? null : hedgeAfter;
+    Set<Capability> common = EnumSet.noneOf(Capability.class);
+    common.addAll(this.routes.get(0).model().supportedCapabilities());
+    for (ModelRoute<ChatLanguageModel> route : this.routes) common.retainAll(route.model().supportedCapabilities());
+    this.capabilities = Collections.unmodifiableSet(common);
+  }
+
+  @Override
+  public Response<AiMessage> generate(List<ChatMessage> messages) {
+    return call(messages, model -> model.generate(messages));
+  }
+
+  @Override
+  public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+    return call(messages, model -> model.generate(messages, toolSpecifications));
+  }
+
+  @Override
+  public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+    return call(messages, model -> model.generate(messages, toolSpecification));
+  }
+
+  /** Capabilities every route supports, since a request may end up on any of them. */
+  @Override
+  public Set<Capability> supportedCapabilities() {
+    return capabilities;
+  }
+
+  public List<ModelRoute<ChatLanguageModel>> routes() {
+    return routes;
+  }
+
+  /** Requests that moved on to another route after a failure. */
+  public long failovers() {
+    return failovers.sum();
+  }
+
+  /** Requests that were also sent to a second route because the first one was slow. */
+  public long hedges() {
+    return hedges.sum();
+  }
+
+  private <T> T call(List<ChatMessage> messages, Function<ChatLanguageModel, T> request) {
+    List<ModelRoute<ChatLanguageModel>> order = RequestRoute.order(routes, policy, messages);
+    RuntimeException failure = null;
+    for (int i = 0; i < order.size(); ) {
+      ModelRoute<ChatLanguageModel> route = order.get(i);
+      ModelRoute<ChatLanguageModel> backup = hedgeAfter != null && i + 1 < order.size() ? order.get(i + 1) : null;
+      if (failure != null) failovers.increment();
+      try {
+        Answer<T> answer = backup == null ? new Answer<>(route, timed(route, request)) : hedged(route, backup, request);
+        RequestRoute.answered(answer.route());
+        return answer.value();
+      } catch (RuntimeException e) {
+        failure = e;
+        logger.warn("Inference via {} failed{}: {}", route.name(), i + (backup == null ? 1 : 2) < order.size() ? ", failing over" : "",
+            e.getMessage());
+      }
+      i += backup == null ? 1 : 2;
+    }
+    throw failure;
+  }
+
+  /** Runs {@code request} on {@code route}, then also on {@code backup} if it is still running after the hedge delay. */
+  private <T> Answer<T> hedged(ModelRoute<ChatLanguageModel> route, ModelRoute<ChatLanguageModel> backup,
+                               Function<ChatLanguageModel, T> request) {
+    CompletableFuture<Answer<T>> first = CompletableFuture.supplyAsync(() -> new Answer<>(route, timed(route, request)), executor);
+    try {
+      return first.get(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      // Slow: race the backup below
+    } catch (ExecutionException e) {
+      logger.warn("Inference via {} failed, failing over to {}: {}", route.name(), backup.name(), e.getCause().getMessage());
+      failovers.increment();
+      return new Answer<>(backup, timed(backup, request));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + route.name(), e);
+    }
+
+    hedges.increment();
+    logger.debug("Inference via {} slower than {} ms, hedging with {}", route.name(), hedgeAfter.toMillis(), backup.name());
+    CompletableFuture<Answer<T>> second = CompletableFuture.supplyAsync(() -> new Answer<>(backup, timed(backup, request)), executor);
+    CompletableFuture<Answer<T>> winner = new CompletableFuture<>();
+    AtomicInteger failed = new AtomicInteger();
+    for (CompletableFuture<Answer<T>> attempt : List.of(first, second)) {
+      attempt.whenComplete((value, error) -> {
+        if (error == null) winner.complete(value);
+        else if (failed.incrementAndGet() == 2) winner.completeExceptionally(error);
+      });
+    }
+    try {
+      return winner.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() instanceof CompletionException nested ? nested.getCause() : e.getCause();
+      throw cause instanceof RuntimeException re ? re : new IllegalStateException(cause);
+    }
+  }
+
+  /** A result and the route that produced it. */
+  private record Answer<T>(ModelRoute<ChatLanguageModel> route, T value) {}
+
+  private static <T> T timed(ModelRoute<ChatLanguageModel> route, Function<ChatLanguageModel, T> request) {
+    long started = System.nanoTime();
+    boolean ok = false;
+    try {
+      T result = request.apply(route.model());
+      ok = true;
+      return result;
+    } finally {
+      route.latency().record(System.nanoTime() - started, ok);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.gentorox.services.inference;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Orders the routes a request tries, first choice first; later routes are the failover candidates.
+ *
+ * Routes that are failing (at least half of the recent calls, over a minimum number of samples) go last, until
+ * a cool-down without failures has passed and they are tried again in their normal position.
+ */
+public enum RoutingPolicy {
+  /** Configured order: the default provider, then the providers listed for routing. */
+  FAILOVER,
+  /** Lowest rolling median latency first; routes without samples first, so each gets measured. */
+  LOWEST_LATENCY,
+  /** First route drawn at random in proportion to the route weights, then the configured order. */
+  WEIGHTED;
+
+  static final double UNHEALTHY_ERROR_RATE = 0.5;
+  static final int MIN_SAMPLES = 4;
+  static final Duration COOL_DOWN = Duration.ofSeconds(30);
+
+  /** Parses {@code failover}, {@code lowest-latency} or {@code weighted}. */
+  public static RoutingPolicy parse(String value) {
+    if (value == null || value.isBlank()) return FAILOVER;
+    return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+  }
+
+  public <M> List<ModelRoute<M>> order(List<ModelRoute<M>> routes) {
+    List<ModelRoute<M>> healthy = new ArrayList<>(routes.size());
+    List<ModelRoute<M>> failing = new ArrayList<>();
+    for (ModelRoute<M> route : routes) (healthy(route) ? healthy : failing).add(route);
+
+    switch (this) {
+      case FAILOVER -> { }
+      case LOWEST_LATENCY -> healthy.sort(Comparator.comparingLong(r -> r.latency().snapshot().p50Millis()));
+      case WEIGHTED -> {
+        long total = healthy.stream().mapToLong(ModelRoute::weight).sum();
+        if (total > 0) {
+          long pick = ThreadLocalRandom.current().nextLong(total);
+          for (int i = 0; i < healthy.size(); i++) {
+            pick -= healthy.get(i).weight();
+            if (pick < 0) {
+              healthy.add(0, healthy.remove(i));
+              break;
+            }
+          }
+        }
+      }
+    }
+    healthy.addAll(failing);
+    return healthy;
+  }
+
+  static boolean healthy(ModelRoute<?> route) {
+    RollingLatency.Snapshot stats = route.latency().snapshot();
+    return stats.samples() < MIN_SAMPLES
+        || stats.errorRate() < UNHEALTHY_ERROR_RATE
+        || route.latency().nanosSinceLastFailure() > COOL_DOWN.toNanos();
+  }
+}
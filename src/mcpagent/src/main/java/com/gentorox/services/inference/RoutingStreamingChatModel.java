@@ -0,0 +1,95 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Streaming counterpart of {@link RoutingChatModel}: routes are ordered by the same {@link RoutingPolicy} and
+ * statistics, and a request that fails moves on to the next route.
+ *
+ * Failover only happens while nothing has been forwarded yet; once the first token reached the caller, an error
+ * is reported as is, since a second provider would start the answer over. Streams are not hedged.
+ *
+ * Completion callbacks run within a {@link RequestRoute} of the route that answered, so the follow-up calls AI
+ * services make from them after running tools stay on that route without failing over.
+ */
+final class RoutingStreamingChatModel implements StreamingChatLanguageModel {
+  private static final Logger logger = LoggerFactory.getLogger(RoutingStreamingChatModel.class);
+
+  private final List<ModelRoute<StreamingChatLanguageModel>> routes;
+  private final RoutingPolicy policy;
+
+  RoutingStreamingChatModel(List<ModelRoute<StreamingChatLanguageModel>> routes, RoutingPolicy policy) {
+    if (routes.isEmpty()) throw new IllegalArgumentException("at least one route is required");
+    this.routes = List.copyOf(routes);
+    this.policy = policy;
+  }
+
+  @Override
+  public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+    attempt(RequestRoute.order(routes, policy, messages), 0, (model, h) -> model.generate(messages, h), handler);
+  }
+
+  @Override
+  public void generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications,
+                       StreamingResponseHandler<AiMessage> handler) {
+    attempt(RequestRoute.order(routes, policy, messages), 0, (model, h) -> model.generate(messages, toolSpecifications, h), handler);
+  }
+
+  @Override
+  public void generate(List<ChatMessage> messages, ToolSpecification toolSpecification,
+                       StreamingResponseHandler<AiMessage> handler) {
+    attempt(RequestRoute.order(routes, policy, messages), 0, (model, h) -> model.generate(messages, toolSpecification, h), handler);
+  }
+
+  private void attempt(List<ModelRoute<StreamingChatLanguageModel>> order, int index,
+                       BiConsumer<StreamingChatLanguageModel, StreamingResponseHandler<AiMessage>> request,
+                       StreamingResponseHandler<AiMessage> handler) {
+    ModelRoute<StreamingChatLanguageModel> route = order.get(index);
+    boolean last = index + 1 == order.size();
+    long started = System.nanoTime();
+    StreamingResponseHandler<AiMessage> tracked = new StreamingResponseHandler<>() {
+      private boolean forwarded;
+
+      @Override
+      public void onNext(String token) {
+        forwarded = true;
+        handler.onNext(token);
+      }
+
+      @Override
+      public void onComplete(Response<AiMessage> response) {
+        route.latency().record(System.nanoTime() - started, true);
+        RequestRoute.within(route.name(), () -> {
+          handler.onComplete(response);
+          return null;
+        });
+      }
+
+      @Override
+      public void onError(Throwable error) {
+        route.latency().record(System.nanoTime() - started, false);
+        if (forwarded || last) {
+          handler.onError(error);
+          return;
+        }
+        logger.warn("Streaming inference via {} failed, failing over: {}", route.name(), error.getMessage());
+        attempt(order, index + 1, request, handler);
+      }
+    };
+    try {
+      request.accept(route.model(), tracked);
+    } catch (RuntimeException e) {
+      tracked.onError(e);
+    }
+  }
+}
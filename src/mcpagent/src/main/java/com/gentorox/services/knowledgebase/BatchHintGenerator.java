@@ -0,0 +1,155 @@
+package com.gentorox.services.knowledgebase;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gentorox.core.model.InferenceResponse;
+import com.gentorox.services.inference.InferenceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Generates knowledge base hints with as few model round-trips as possible.
+ *
+ * Requests are packed into batches whose estimated prompt size stays within a token budget; each batch is sent
+ * as one structured prompt asking for a JSON array of hints. Entries missing from the answer (or every entry of
+ * a batch whose answer cannot be parsed) fall back to one call per entry. All calls go through
+ * {@link InferenceService#complete(String)}, without tools or chat memory.
+ */
+final class BatchHintGenerator {
+  private static final Logger logger = LoggerFactory.getLogger(BatchHintGenerator.class);
+
+  /** Characters of content shown to the model per entry. */
+  static final int EXCERPT_CHARS = 800;
+  /** Upper bound on entries per batch, which keeps the answer (about 40 tokens per hint) short. */
+  static final int MAX_BATCH_SIZE = 32;
+  private static final int PROMPT_OVERHEAD_TOKENS = 120;
+  private static final int ENTRY_OVERHEAD_TOKENS = 20;
+
+  /** One entry to describe. */
+  record Request(String id, String name, String content) {}
+
+  private final InferenceService inferenceService;
+  private final int tokenBudget;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  /**
+   * @param inferenceService model access
+   * @param tokenBudget      maximum estimated prompt tokens per batch
+   */
+  BatchHintGenerator(InferenceService inferenceService, int tokenBudget) {
+    if (tokenBudget < 1) throw new IllegalArgumentException("tokenBudget must be >= 1");
+    this.inferenceService = inferenceService;
+    this.tokenBudget = tokenBudget;
+  }
+
+  /** Splits requests into batches that fit the token budget; an entry larger than the budget gets its own batch. */
+  List<List<Request>> batches(List<Request> requests) {
+    List<List<Request>> batches = new ArrayList<>();
+    List<Request> current = new ArrayList<>();
+    int tokens = PROMPT_OVERHEAD_TOKENS;
+    for (Request r : requests) {
+      int cost = estimateTokens(r);
+      if (!current.isEmpty() && (tokens + cost > tokenBudget || current.size() >= MAX_BATCH_SIZE)) {
+        batches.add(current);
+        current = new ArrayList<>();
+        tokens = PROMPT_OVERHEAD_TOKENS;
+      }
+      current.add(r);
+      tokens += cost;
+    }
+    if (!current.isEmpty()) batches.add(current);
+    return batches;
+  }
+
+  /**
+   * Generates hints for one batch (blocking).
+   *
+   * @return raw hints keyed by request id; entries whose hint could not be generated are absent
+   */
+  Map<String, String> generate(List<Request> batch) {
+    Map<String, String> hints = new HashMap<>();
+    if (batch.size() > 1) {
+      try {
+        String answer = content(inferenceService.complete(batchPrompt(batch)));
+        Map<Integer, String> parsed = parse(answer);
+        for (int i = 0; i < batch.size(); i++) {
+          String hint = parsed.get(i + 1);
+          if (hint != null && !hint.isBlank()) hints.put(batch.get(i).id(), hint);
+        }
+        if (hints.size() < batch.size()) {
+          logger.debug("Batch hint answer covered {} of {} entries, generating the rest one by one", hints.size(), batch.size());
+        }
+      } catch (Exception e) {
+        logger.warn("Batch hint generation for {} entries failed, generating one by one: {}", batch.size(), e.getMessage());
+      }
+    }
+    for (Request r : batch) {
+      if (hints.containsKey(r.id())) continue;
+      try {
+        String hint = content(inferenceService.complete(singlePrompt(r)));
+        if (!hint.isBlank()) hints.put(r.id(), hint);
+      } catch (Exception e) {
+        logger.debug("Hint generation failed for {}", r.name(), e);
+      }
+    }
+    return hints;
+  }
+
+  static String singlePrompt(Request r) {
+    return "Given the following file name and content, produce a single concise sentence (max 30 words) that describes what information this document contains, focusing on how an engineer would use it.\n" +
+        "File: " + r.name() + "\n\n" +
+        "Content (first " + EXCERPT_CHARS + " chars):\n" + excerpt(r.content());
+  }
+
+  static String batchPrompt(List<Request> batch) {
+    StringBuilder sb = new StringBuilder(batch.size() * (EXCERPT_CHARS + 64) + 512);
+    sb.append("For each file below, produce a single concise sentence (max 30 words) that describes what information ")
+        .append("the document contains, focusing on how an engineer would use it.\n")
+        .append("Answer with only a JSON array containing one object per file, in the same order, of the form ")
+        .append("[{\"id\": 1, \"hint\": \"...\"}]. Do not add any other text.\n\n");
+    for (int i = 0; i < batch.size(); i++) {
+      Request r = batch.get(i);
+      sb.append("<file id=\"").append(i + 1).append("\" name=\"").append(r.name()).append("\">\n")
+          .append(excerpt(r.content())).append("\n</file>\n\n");
+    }
+    return sb.toString();
+  }
+
+  /** Parses {@code [{"id": n, "hint": "..."}]}, tolerating surrounding prose or code fences. */
+  Map<Integer, String> parse(String answer) throws Exception {
+    int start = answer.indexOf('[');
+    int end = answer.lastIndexOf(']');
+    if (start < 0 || end <= start) throw new IllegalArgumentException("No JSON array in hint answer");
+    JsonNode array = mapper.readTree(answer.substring(start, end + 1));
+    Map<Integer, String> out = new HashMap<>();
+    for (JsonNode item : array) {
+      JsonNode id = item.get("id");
+      JsonNode hint = item.get("hint");
+      if (id != null && id.canConvertToInt() && hint != null && hint.isTextual()) out.put(id.asInt(), hint.asText());
+    }
+    return out;
+  }
+
+  private static int estimateTokens(Request r) {
+    int chars = r.name().length() + Math.min(r.content() == null ? 0 : r.content().length(), EXCERPT_CHARS);
+    return chars / 4 + ENTRY_OVERHEAD_TOKENS;
+  }
+
+  private static String content(InferenceResponse resp) {
+    return Optional.ofNullable(resp).map(InferenceResponse::content).orElse("");
+  }
+
+  /** The first {@link #EXCERPT_CHARS} chars of {@code s}, never ending inside a surrogate pair. */
+  static String excerpt(String s) {
+    if (s == null) return "";
+    if (s.length() <= EXCERPT_CHARS) return s;
+    int end = Character.isHighSurrogate(s.charAt(EXCERPT_CHARS - 1)) ? EXCERPT_CHARS - 1 : EXCERPT_CHARS;
+    return s.substring(0, end);
+  }
+}
@@ -0,0 +1,364 @@
+package com.gentorox.services.knowledgebase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Binary implementation of {@link KnowledgeBasePersistence}, loaded through a memory-mapped file.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   magic "KBST", version, string count, entry count, signature string id,
+ *            offsets of: string offset table, string data, entry table, sources, services, search index
+ *   strings  offset table of (count + 1) ints into the data region, then UTF-8 bytes; every string is stored once
+ *   entries  fixed-size rows of (resource, hint, content, location) string ids, -1 for null
+ *   sources  count, then per source: path id, size, lastModified, crc32c, namespace id, resource ids
+ *   services count, then (namespace id, location id) pairs
+ *   index    0 when absent; else resource ids, document lengths, then per term: term id and its postings
+ * </pre>
+ *
+ * Loading maps the file and decodes the fixed-size sections directly from the mapping. Entries are decoded on
+ * access from the entry table, and strings only when first referenced, so a restore touches the pages it
+ * needs rather than parsing the whole file. Writes go to a synced temporary file that replaces the state
+ * atomically; the previous file is kept as a backup and loaded instead if the state turns out to be corrupt.
+ *
+ * Files larger than 2 GiB are not supported.
+ */
+public class BinaryKnowledgeBasePersistence implements KnowledgeBasePersistence {
+  private static final Logger logger = LoggerFactory.getLogger(BinaryKnowledgeBasePersistence.class);
+
+  static final int MAGIC = 0x4B425354; // "KBST"
+  static final int VERSION = 1;
+  private static final int HEADER_BYTES = 4 * 11;
+  private static final int ENTRY_BYTES = 4 * 4;
+  private static final int NULL = -1;
+
+  private final int backupRetention;
+
+  public BinaryKnowledgeBasePersistence() {
+    this(FileKnowledgeBasePersistence.DEFAULT_BACKUP_RETENTION);
+  }
+
+  /**
+   * @param backupRetention number of previous state files kept as backups (0 disables backups)
+   */
+  public BinaryKnowledgeBasePersistence(int backupRetention) {
+    if (backupRetention < 0) throw new IllegalArgumentException("backupRetention must be >= 0");
+    this.backupRetention = backupRetention;
+  }
+
+  /**
+   * Loads a state written by {@link #save(Path, KnowledgeBaseState)}.
+   *
+   * @param file the state file; must not be null
+   * @return the state (or that of its newest readable backup), or empty if the file does not exist
+   * @throws IOException if neither the file nor any backup can be read, because they are not binary state files
+   *         or are corrupt
+   */
+  @Override
+  public Optional<KnowledgeBaseState> load(Path file) throws IOException {
+    Objects.requireNonNull(file, "file");
+    return StateFiles.read(file, this::read);
+  }
+
+  private Optional<KnowledgeBaseState> read(Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      logger.debug("KnowledgeBaseState file not found or not a regular file: {}", file);
+      return Optional.empty();
+    }
+    long started = System.nanoTime();
+    MappedByteBuffer buf;
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (ch.size() > Integer.MAX_VALUE) throw new IOException("KnowledgeBaseState file too large: " + file);
+      buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+    }
+    try {
+      KnowledgeBaseState state = new Reader(buf).read();
+      logger.debug("Loaded KnowledgeBaseState from {} in {} us", file, (System.nanoTime() - started) / 1000);
+      return Optional.of(state);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("Corrupt KnowledgeBaseState file " + file + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Saves the state in the binary format, replacing {@code file} atomically and keeping the previous one as a backup.
+   *
+   * @param file  destination file; must not be null
+   * @param state state to persist; must not be null
+   * @throws IOException if the file cannot be written
+   */
+  @Override
+  public void save(Path file, KnowledgeBaseState state) throws IOException {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(state, "state");
+    byte[] bytes = new Writer().write(state);
+    StateFiles.write(file, out -> out.write(bytes), backupRetention);
+    logger.debug("Saved KnowledgeBaseState to {} ({} bytes)", file, bytes.length);
+  }
+
+  /** Serializes a state; strings are interned into a single table and referenced by id. */
+  private static final class Writer {
+    private final Map<String, Integer> ids = new LinkedHashMap<>();
+
+    byte[] write(KnowledgeBaseState state) throws IOException {
+      List<KnowledgeBaseEntry> entries = state.entries() == null ? List.of() : state.entries();
+      int signature = id(state.signature());
+
+      ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(entries.size() * ENTRY_BYTES);
+      DataOutputStream out = new DataOutputStream(entryBytes);
+      for (KnowledgeBaseEntry e : entries) {
+        out.writeInt(id(e.resource()));
+        out.writeInt(id(e.hint()));
+        out.writeInt(id(e.content()));
+        out.writeInt(id(e.location()));
+      }
+
+      ByteArrayOutputStream sourceBytes = new ByteArrayOutputStream();
+      out = new DataOutputStream(sourceBytes);
+      List<KnowledgeBaseSource> sources = state.sources();
+      out.writeInt(sources == null ? NULL : sources.size());
+      if (sources != null) {
+        for (KnowledgeBaseSource s : sources) {
+          out.writeInt(id(s.path()));
+          out.writeLong(s.size());
+          out.writeLong(s.lastModified());
+          out.writeLong(s.crc32c());
+          out.writeInt(id(s.namespace()));
+          writeIds(out, s.resources());
+        }
+      }
+
+      ByteArrayOutputStream serviceBytes = new ByteArrayOutputStream();
+      out = new DataOutputStream(serviceBytes);
+      Map<String, String> services = state.services() == null ? Map.of() : state.services();
+      out.writeInt(services.size());
+      for (Map.Entry<String, String> s : services.entrySet()) {
+        out.writeInt(id(s.getKey()));
+        out.writeInt(id(s.getValue()));
+      }
+
+      ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+      out = new DataOutputStream(indexBytes);
+      Bm25Index.Snapshot index = state.searchIndex();
+      out.writeInt(index == null ? 0 : 1);
+      if (index != null) {
+        writeIds(out, index.resources());
+        writeInts(out, index.docLengths());
+        out.writeInt(index.postings().size());
+        for (Map.Entry<String, int[]> p : index.postings().entrySet()) {
+          out.writeInt(id(p.getKey()));
+          writeInts(out, p.getValue());
+        }
+      }
+
+      // String table last, once every string has been interned
+      ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+      ByteArrayOutputStream stringOffsets = new ByteArrayOutputStream((ids.size() + 1) * 4);
+      out = new DataOutputStream(stringOffsets);
+      for (String s : ids.keySet()) {
+        out.writeInt(stringData.size());
+        stringData.write(s.getBytes(StandardCharsets.UTF_8));
+      }
+      out.writeInt(stringData.size());
+
+      long total = (long) HEADER_BYTES + stringOffsets.size() + stringData.size() + entryBytes.size()
+          + sourceBytes.size() + serviceBytes.size() + indexBytes.size();
+      if (total > Integer.MAX_VALUE) throw new IOException("KnowledgeBaseState too large for the binary format: " + total + " bytes");
+
+      ByteArrayOutputStream file = new ByteArrayOutputStream((int) total);
+      out = new DataOutputStream(file);
+      int offset = HEADER_BYTES;
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(ids.size());
+      out.writeInt(entries.size());
+      out.writeInt(signature);
+      for (ByteArrayOutputStream section : List.of(stringOffsets, stringData, entryBytes, sourceBytes, serviceBytes, indexBytes)) {
+        out.writeInt(offset);
+        offset += section.size();
+      }
+      for (ByteArrayOutputStream section : List.of(stringOffsets, stringData, entryBytes, sourceBytes, serviceBytes, indexBytes)) {
+        section.writeTo(file);
+      }
+      return file.toByteArray();
+    }
+
+    private int id(String s) {
+      if (s == null) return NULL;
+      return ids.computeIfAbsent(s, k -> ids.size());
+    }
+
+    private void writeIds(DataOutputStream out, List<String> strings) throws IOException {
+      out.writeInt(strings.size());
+      for (String s : strings) out.writeInt(id(s));
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+      out.writeInt(values.length);
+      for (int v : values) out.writeInt(v);
+    }
+  }
+
+  /** Decodes a mapped state file. Strings are decoded once, on first reference. */
+  private static final class Reader {
+    private final ByteBuffer buf;
+    private int stringCount;
+    private int stringOffsets;
+    private int stringData;
+    private String[] strings;
+
+    Reader(ByteBuffer buf) {
+      this.buf = buf;
+    }
+
+    KnowledgeBaseState read() throws IOException {
+      if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException("Not a binary KnowledgeBaseState file");
+      int version = buf.getInt(4);
+      if (version != VERSION) throw new IOException("Unsupported KnowledgeBaseState version " + version);
+      stringCount = buf.getInt(8);
+      int entryCount = buf.getInt(12);
+      int signature = buf.getInt(16);
+      stringOffsets = buf.getInt(20);
+      stringData = buf.getInt(24);
+      int entryTable = buf.getInt(28);
+      int sources = buf.getInt(32);
+      int services = buf.getInt(36);
+      int index = buf.getInt(40);
+      if (stringCount < 0 || entryCount < 0 || (long) entryTable + (long) entryCount * ENTRY_BYTES > buf.capacity()) {
+        throw new IllegalArgumentException("header out of bounds");
+      }
+      strings = new String[stringCount];
+      validate(entryTable, entryCount);
+
+      return new KnowledgeBaseState(string(signature), new EntryList(entryTable, entryCount),
+          readServices(services), readIndex(index), readSources(sources));
+    }
+
+    /** Checks the string table and entry ids up front, so entries decoded later cannot fail. */
+    private void validate(int entryTable, int entryCount) {
+      if ((long) stringOffsets + (stringCount + 1L) * 4 > buf.capacity()) throw new IllegalArgumentException("string table out of bounds");
+      int previous = 0;
+      for (int i = 0; i <= stringCount; i++) {
+        int offset = buf.getInt(stringOffsets + i * 4);
+        if (offset < previous || (long) stringData + offset > buf.capacity()) throw new IllegalArgumentException("string " + i + " out of bounds");
+        previous = offset;
+      }
+      for (int i = 0; i < entryCount * 4; i++) {
+        int id = buf.getInt(entryTable + i * 4);
+        if (id < NULL || id >= stringCount) throw new IllegalArgumentException("unknown string id " + id);
+      }
+    }
+
+    private List<KnowledgeBaseSource> readSources(int offset) {
+      ByteBuffer in = buf.duplicate().position(offset);
+      int count = in.getInt();
+      if (count == NULL) return null;
+      List<KnowledgeBaseSource> out = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        String path = string(in.getInt());
+        long size = in.getLong();
+        long lastModified = in.getLong();
+        long crc = in.getLong();
+        String namespace = string(in.getInt());
+        out.add(new KnowledgeBaseSource(path, size, lastModified, crc, namespace, readStrings(in)));
+      }
+      return out;
+    }
+
+    private Map<String, String> readServices(int offset) {
+      ByteBuffer in = buf.duplicate().position(offset);
+      int count = in.getInt();
+      Map<String, String> out = new HashMap<>(Math.max(4, count * 2));
+      for (int i = 0; i < count; i++) out.put(string(in.getInt()), string(in.getInt()));
+      return out;
+    }
+
+    private Bm25Index.Snapshot readIndex(int offset) {
+      ByteBuffer in = buf.duplicate().position(offset);
+      if (in.getInt() == 0) return null;
+      List<String> resources = readStrings(in);
+      int[] docLengths = readInts(in);
+      int terms = in.getInt();
+      Map<String, int[]> postings = new HashMap<>(Math.max(4, terms * 2));
+      for (int i = 0; i < terms; i++) postings.put(string(in.getInt()), readInts(in));
+      return new Bm25Index.Snapshot(resources, docLengths, postings);
+    }
+
+    private List<String> readStrings(ByteBuffer in) {
+      int count = in.getInt();
+      if (count < 0) throw new IllegalArgumentException("negative list size");
+      String[] out = new String[count];
+      for (int i = 0; i < count; i++) out[i] = string(in.getInt());
+      return List.of(out);
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+      int count = in.getInt();
+      if (count < 0 || count > in.remaining() / 4) throw new IllegalArgumentException("array size out of bounds");
+      int[] out = new int[count];
+      in.asIntBuffer().get(out);
+      in.position(in.position() + count * 4);
+      return out;
+    }
+
+    private String string(int id) {
+      if (id == NULL) return null;
+      if (id < 0 || id >= stringCount) throw new IllegalArgumentException("unknown string id " + id);
+      String s = strings[id];
+      if (s == null) {
+        int start = buf.getInt(stringOffsets + id * 4);
+        int end = buf.getInt(stringOffsets + (id + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        buf.get(stringData + start, bytes);
+        s = new String(bytes, StandardCharsets.UTF_8);
+        strings[id] = s;
+      }
+      return s;
+    }
+
+    /** Entries decoded from the entry table on access. */
+    private final class EntryList extends AbstractList<KnowledgeBaseEntry> {
+      private final int offset;
+      private final int size;
+
+      EntryList(int offset, int size) {
+        this.offset = offset;
+        this.size = size;
+      }
+
+      @Override
+      public KnowledgeBaseEntry get(int i) {
+        Objects.checkIndex(i, size);
+        int row = offset + i * ENTRY_BYTES;
+        return new KnowledgeBaseEntry(string(buf.getInt(row)), string(buf.getInt(row + 4)),
+            string(buf.getInt(row + 8)), string(buf.getInt(row + 12)));
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    }
+  }
+}
@@ -0,0 +1,334 @@
+package com.gentorox.services.knowledgebase;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable in-memory inverted index over knowledge base entries, ranked with Okapi BM25.
+ *
+ * <p>Each entry becomes a document made of its resource path, hint and content. Terms are lower-cased
+ * alphanumeric runs (so snake_case splits on the underscore) and camelCase identifiers are additionally
+ * indexed by their parts, so "createOrder" matches both "createorder" and "order". Postings are stored as parallel int arrays
+ * (document id, term frequency) to keep the footprint small and scoring allocation-free per posting.
+ *
+ * Instances are thread-safe. Use {@link #build(Collection)} after ingestion, {@link #update} when only some entries
+ * changed, and {@link #snapshot()} / {@link #restore(Snapshot)} to persist the index alongside the
+ * {@link KnowledgeBaseState}.
+ */
+public final class Bm25Index {
+  static final double K1 = 1.2;
+  static final double B = 0.75;
+  private static final int MIN_TERM_LENGTH = 2;
+
+  private static final Bm25Index EMPTY = new Bm25Index(new String[0], new int[0], Map.of());
+
+  private final String[] resources;
+  private final int[] docLengths;
+  private final Map<String, Postings> postings;
+  private final double avgDocLength;
+
+  private Bm25Index(String[] resources, int[] docLengths, Map<String, Postings> postings) {
+    this.resources = resources;
+    this.docLengths = docLengths;
+    this.postings = postings;
+    long total = 0;
+    for (int len : docLengths) total += len;
+    this.avgDocLength = docLengths.length == 0 ? 0 : (double) total / docLengths.length;
+  }
+
+  /** An index without documents; every search returns no hits. */
+  public static Bm25Index empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Builds an index over the given entries.
+   *
+   * @param entries entries to index; null resources are skipped
+   * @return a new immutable index
+   */
+  public static Bm25Index build(Collection<KnowledgeBaseEntry> entries) {
+    return build(entries, KnowledgeBaseEntry::content);
+  }
+
+  /**
+   * Builds an index over the given entries, reading each content through {@code contents} (for entries whose
+   * content is loaded on demand).
+   *
+   * @param entries  entries to index; null resources are skipped
+   * @param contents content of an entry; may return null
+   * @return a new immutable index
+   */
+  public static Bm25Index build(Collection<KnowledgeBaseEntry> entries, Function<KnowledgeBaseEntry, String> contents) {
+    List<String> resources = new ArrayList<>(entries.size());
+    List<Integer> lengths = new ArrayList<>(entries.size());
+    Map<String, PostingsBuilder> builders = new HashMap<>();
+
+    for (KnowledgeBaseEntry e : entries) addDocument(e, contents, resources, lengths, builders);
+
+    Map<String, Postings> postings = new HashMap<>(builders.size() * 2);
+    builders.forEach((term, b) -> postings.put(term, b.build()));
+    return new Bm25Index(resources.toArray(String[]::new), lengths.stream().mapToInt(Integer::intValue).toArray(), postings);
+  }
+
+  /**
+   * Returns a copy of this index without the documents of {@code removed} and with {@code added} indexed. Only
+   * the added entries are read, so refreshing a few changed files does not touch the contents of the others.
+   *
+   * @param removed  resources whose documents are dropped (changed resources are both removed and added)
+   * @param added    entries to index; null resources are skipped
+   * @param contents content of an added entry; may return null
+   * @return a new immutable index
+   */
+  public Bm25Index update(Set<String> removed, Collection<KnowledgeBaseEntry> added,
+                          Function<KnowledgeBaseEntry, String> contents) {
+    // Keep the surviving documents in order, renumbered densely
+    int[] remap = new int[resources.length];
+    List<String> keptResources = new ArrayList<>(resources.length + added.size());
+    List<Integer> keptLengths = new ArrayList<>(resources.length + added.size());
+    for (int doc = 0; doc < resources.length; doc++) {
+      if (removed.contains(resources[doc])) {
+        remap[doc] = -1;
+      } else {
+        remap[doc] = keptResources.size();
+        keptResources.add(resources[doc]);
+        keptLengths.add(docLengths[doc]);
+      }
+    }
+    Map<String, PostingsBuilder> builders = new HashMap<>(postings.size() * 2);
+    postings.forEach((term, p) -> {
+      PostingsBuilder b = null;
+      for (int i = 0; i < p.size(); i++) {
+        int doc = remap[p.docs[i]];
+        if (doc < 0) continue;
+        if (b == null) b = builders.computeIfAbsent(term, t -> new PostingsBuilder());
+        b.add(doc, p.freqs[i]);
+      }
+    });
+    for (KnowledgeBaseEntry e : added) addDocument(e, contents, keptResources, keptLengths, builders);
+
+    Map<String, Postings> out = new HashMap<>(builders.size() * 2);
+    builders.forEach((term, b) -> out.put(term, b.build()));
+    return new Bm25Index(keptResources.toArray(String[]::new), keptLengths.stream().mapToInt(Integer::intValue).toArray(), out);
+  }
+
+  private static void addDocument(KnowledgeBaseEntry e, Function<KnowledgeBaseEntry, String> contents, List<String> resources,
+                                  List<Integer> lengths, Map<String, PostingsBuilder> builders) {
+    if (e.resource() == null) return;
+    int doc = resources.size();
+    resources.add(e.resource());
+
+    Map<String, Integer> tf = new HashMap<>();
+    int length = 0;
+    length += accumulate(tokenize(e.resource()), tf);
+    length += accumulate(tokenize(e.hint()), tf);
+    length += accumulate(tokenize(contents.apply(e)), tf);
+    lengths.add(length);
+
+    for (Map.Entry<String, Integer> t : tf.entrySet()) {
+      builders.computeIfAbsent(t.getKey(), k -> new PostingsBuilder()).add(doc, t.getValue());
+    }
+  }
+
+  /**
+   * Returns the {@code k} best matching resources for a free-text query, best first. Documents matching
+   * none of the query terms are never returned.
+   *
+   * @param query free-text query; null or blank yields no hits
+   * @param k     maximum number of hits (non-positive yields no hits)
+   */
+  public List<Hit> search(String query, int k) {
+    if (k <= 0 || resources.length == 0) return List.of();
+    Set<String> terms = new LinkedHashSet<>(tokenize(query));
+    if (terms.isEmpty()) return List.of();
+
+    double[] scores = new double[resources.length];
+    boolean matched = false;
+    int n = resources.length;
+    for (String term : terms) {
+      Postings p = postings.get(term);
+      if (p == null) continue;
+      matched = true;
+      double idf = Math.log(1 + (n - p.size() + 0.5) / (p.size() + 0.5));
+      for (int i = 0; i < p.size(); i++) {
+        int doc = p.docs[i];
+        int freq = p.freqs[i];
+        double norm = K1 * (1 - B + B * docLengths[doc] / avgDocLength);
+        scores[doc] += idf * (freq * (K1 + 1)) / (freq + norm);
+      }
+    }
+    if (!matched) return List.of();
+
+    // Min-heap of the best k documents
+    PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(k, n) + 1,
+        (a, b) -> a.score() != b.score() ? Double.compare(a.score(), b.score()) : b.resource().compareTo(a.resource()));
+    for (int doc = 0; doc < n; doc++) {
+      if (scores[doc] <= 0) continue;
+      heap.offer(new Hit(resources[doc], scores[doc]));
+      if (heap.size() > k) heap.poll();
+    }
+    Hit[] out = new Hit[heap.size()];
+    for (int i = out.length - 1; i >= 0; i--) out[i] = heap.poll();
+    return Arrays.asList(out);
+  }
+
+  /** Number of indexed documents. */
+  public int size() {
+    return resources.length;
+  }
+
+  /** Number of distinct terms. */
+  public int termCount() {
+    return postings.size();
+  }
+
+  /** Serializable form of this index. */
+  public Snapshot snapshot() {
+    Map<String, int[]> out = new HashMap<>(postings.size() * 2);
+    postings.forEach((term, p) -> {
+      int[] pairs = new int[p.size() * 2];
+      for (int i = 0; i < p.size(); i++) {
+        pairs[2 * i] = p.docs[i];
+        pairs[2 * i + 1] = p.freqs[i];
+      }
+      out.put(term, pairs);
+    });
+    return new Snapshot(List.of(resources), docLengths.clone(), out);
+  }
+
+  /**
+   * Rebuilds an index from its snapshot.
+   *
+   * @throws IllegalArgumentException if the snapshot is inconsistent (e.g. truncated or hand-edited)
+   */
+  public static Bm25Index restore(Snapshot snapshot) {
+    if (snapshot == null || snapshot.resources() == null || snapshot.docLengths() == null || snapshot.postings() == null) {
+      throw new IllegalArgumentException("Incomplete search index snapshot");
+    }
+    int n = snapshot.resources().size();
+    if (snapshot.docLengths().length != n) {
+      throw new IllegalArgumentException("Search index snapshot has " + n + " documents but " + snapshot.docLengths().length + " lengths");
+    }
+    Map<String, Postings> postings = new HashMap<>(snapshot.postings().size() * 2);
+    snapshot.postings().forEach((term, pairs) -> {
+      if (pairs == null || pairs.length % 2 != 0) throw new IllegalArgumentException("Malformed postings for term " + term);
+      int size = pairs.length / 2;
+      int[] docs = new int[size];
+      int[] freqs = new int[size];
+      for (int i = 0; i < size; i++) {
+        docs[i] = pairs[2 * i];
+        freqs[i] = pairs[2 * i + 1];
+        if (docs[i] < 0 || docs[i] >= n) throw new IllegalArgumentException("Posting for term " + term + " references unknown document " + docs[i]);
+      }
+      postings.put(term, new Postings(docs, freqs));
+    });
+    return new Bm25Index(snapshot.resources().toArray(String[]::new), snapshot.docLengths().clone(), postings);
+  }
+
+  /**
+   * Splits text into index terms: lower-cased alphanumeric runs of at least two characters, plus the
+   * camelCase parts of mixed-case runs.
+   */
+  static List<String> tokenize(String text) {
+    if (text == null || text.isEmpty()) return List.of();
+    List<String> out = new ArrayList<>();
+    int len = text.length();
+    int i = 0;
+    while (i < len) {
+      while (i < len && !Character.isLetterOrDigit(text.charAt(i))) i++;
+      int start = i;
+      while (i < len && Character.isLetterOrDigit(text.charAt(i))) i++;
+      if (i > start) addWord(text, start, i, out);
+    }
+    return out;
+  }
+
+  private static void addWord(String text, int start, int end, List<String> out) {
+    if (end - start < MIN_TERM_LENGTH) return;
+    String word = text.substring(start, end);
+    String lower = word.toLowerCase(Locale.ROOT);
+    out.add(lower);
+
+    // camelCase / PascalCase / letter-digit boundaries
+    int partStart = 0;
+    List<String> pieces = new ArrayList<>(4);
+    for (int j = 1; j < word.length(); j++) {
+      char prev = word.charAt(j - 1);
+      char cur = word.charAt(j);
+      boolean boundary = (Character.isLowerCase(prev) && Character.isUpperCase(cur))
+          || (Character.isLetter(prev) != Character.isLetter(cur))
+          || (j + 1 < word.length() && Character.isUpperCase(prev) && Character.isUpperCase(cur) && Character.isLowerCase(word.charAt(j + 1)));
+      if (boundary) {
+        pieces.add(lower.substring(partStart, j));
+        partStart = j;
+      }
+    }
+    if (pieces.isEmpty()) return;
+    pieces.add(lower.substring(partStart));
+    for (String piece : pieces) {
+      if (piece.length() >= MIN_TERM_LENGTH) out.add(piece);
+    }
+  }
+
+  private static int accumulate(List<String> terms, Map<String, Integer> tf) {
+    for (String t : terms) tf.merge(t, 1, Integer::sum);
+    return terms.size();
+  }
+
+  /** A ranked search result. */
+  public record Hit(String resource, double score) {}
+
+  /**
+   * Persisted form of the index.
+   *
+   * @param resources  document id to resource URI
+   * @param docLengths document id to number of indexed terms
+   * @param postings   term to interleaved (document id, term frequency) pairs
+   */
+  public record Snapshot(List<String> resources, int[] docLengths, Map<String, int[]> postings) {
+    @JsonCreator
+    public Snapshot(@JsonProperty("resources") List<String> resources,
+                    @JsonProperty("docLengths") int[] docLengths,
+                    @JsonProperty("postings") Map<String, int[]> postings) {
+      this.resources = resources;
+      this.docLengths = docLengths;
+      this.postings = postings;
+    }
+  }
+
+  private record Postings(int[] docs, int[] freqs) {
+    int size() { return docs.length; }
+  }
+
+  private static final class PostingsBuilder {
+    private int[] docs = new int[4];
+    private int[] freqs = new int[4];
+    private int size;
+
+    void add(int doc, int freq) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+        freqs = Arrays.copyOf(freqs, size * 2);
+      }
+      docs[size] = doc;
+      freqs[size] = freq;
+      size++;
+    }
+
+    Postings build() {
+      return new Postings(Arrays.copyOf(docs, size), Arrays.copyOf(freqs, size));
+    }
+  }
+}
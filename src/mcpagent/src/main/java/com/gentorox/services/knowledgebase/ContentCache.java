@@ -0,0 +1,110 @@
+package com.gentorox.services.knowledgebase;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded LRU cache of knowledge base contents, keyed by content locator.
+ *
+ * The bound is on the approximate heap size of the cached strings (two bytes per char), so resident content
+ * follows the working set of {@code getContent} calls rather than the size of the foundation. Values larger than
+ * the whole budget are returned but not cached. Loads happen outside the lock; two threads missing on the same
+ * key may both load it, which only costs a redundant read. A load that overlaps an {@link #invalidate} or
+ * {@link #clear} is returned but not cached, so a value read before the content changed cannot outlive the
+ * invalidation.
+ *
+ * This class is thread-safe.
+ */
+final class ContentCache {
+  private final long maxBytes;
+  private final LinkedHashMap<String, String> values = new LinkedHashMap<>(64, 0.75f, true);
+  private long bytes;
+  // bumped by every invalidation; a load only caches its value if no invalidation happened meanwhile
+  private long generation;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param maxBytes maximum approximate size of the cached contents; 0 disables caching
+   */
+  ContentCache(long maxBytes) {
+    if (maxBytes < 0) throw new IllegalArgumentException("maxBytes must be >= 0");
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the cached value for {@code key}, loading (and caching) it on a miss.
+   *
+   * @param loader loads the value; may return null, which is not cached
+   * @return the value, or null if the loader returned null
+   */
+  String get(String key, Function<String, String> loader) {
+    long loadGeneration;
+    synchronized (this) {
+      String cached = values.get(key);
+      if (cached != null) {
+        hits.increment();
+        return cached;
+      }
+      loadGeneration = generation;
+    }
+    misses.increment();
+    String loaded = loader.apply(key);
+    if (loaded != null) put(key, loaded, loadGeneration);
+    return loaded;
+  }
+
+  /** Drops the value cached for {@code key}, if any. */
+  synchronized void invalidate(String key) {
+    generation++;
+    String removed = values.remove(key);
+    if (removed != null) bytes -= weight(removed);
+  }
+
+  synchronized void clear() {
+    generation++;
+    values.clear();
+    bytes = 0;
+  }
+
+  Stats stats() {
+    synchronized (this) {
+      return new Stats(hits.sum(), misses.sum(), evictions.sum(), values.size(), bytes);
+    }
+  }
+
+  private synchronized void put(String key, String value, long loadGeneration) {
+    long weight = weight(value);
+    if (weight > maxBytes || loadGeneration != generation) return;
+    String previous = values.put(key, value);
+    if (previous != null) bytes -= weight(previous);
+    bytes += weight;
+    Iterator<Map.Entry<String, String>> eldest = values.entrySet().iterator();
+    while (bytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, String> e = eldest.next();
+      if (e.getKey().equals(key)) continue;
+      bytes -= weight(e.getValue());
+      eldest.remove();
+      evictions.increment();
+    }
+  }
+
+  private static long weight(String value) {
+    return 2L * value.length();
+  }
+
+  /**
+   * Cache counters.
+   *
+   * @param hits      lookups served from the cache
+   * @param misses    lookups that went to the loader
+   * @param evictions values dropped to stay within the budget
+   * @param entries   values currently cached
+   * @param bytes     approximate size of the cached values
+   */
+  record Stats(long hits, long misses, long evictions, int entries, long bytes) {}
+}
@@ -0,0 +1,89 @@
+package com.gentorox.services.knowledgebase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content-addressed blob directory for knowledge base contents that have no file of their own, such as the
+ * markdown docs fetched from the Typescript runtime. Each content is written once to a file named after its
+ * SHA-256 and referenced by a {@code blob://<sha256>} locator.
+ */
+final class ContentStore {
+  private static final Logger logger = LoggerFactory.getLogger(ContentStore.class);
+  static final String SCHEME = "blob://";
+
+  private final Path dir;
+
+  ContentStore(Path dir) {
+    this.dir = dir;
+  }
+
+  /**
+   * Stores a content (unless already present) and returns its locator.
+   *
+   * @throws IOException if the blob cannot be written
+   */
+  String put(String content) throws IOException {
+    String hash = sha256(content);
+    Path blob = dir.resolve(hash);
+    if (!Files.exists(blob)) {
+      Files.createDirectories(dir);
+      Path tmp = Files.createTempFile(dir, hash, ".tmp");
+      try {
+        Files.writeString(tmp, content, StandardCharsets.UTF_8);
+        Files.move(tmp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+    return SCHEME + hash;
+  }
+
+  /** Reads the content of a {@code blob://} locator; empty if the locator is foreign or the blob is missing. */
+  Optional<String> read(String locator) {
+    if (locator == null || !locator.startsWith(SCHEME)) return Optional.empty();
+    String hash = locator.substring(SCHEME.length());
+    if (hash.isEmpty() || hash.contains("/") || hash.contains("\\") || hash.contains("..")) return Optional.empty();
+    try {
+      return Optional.of(Files.readString(dir.resolve(hash), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      logger.debug("Failed to read knowledge base blob {}", locator, e);
+      return Optional.empty();
+    }
+  }
+
+  /** Deletes the blobs that are not referenced by any of {@code locators}. */
+  void retain(Set<String> locators) {
+    if (!Files.isDirectory(dir)) return;
+    try (var stream = Files.list(dir)) {
+      stream.filter(p -> !locators.contains(SCHEME + p.getFileName())).forEach(p -> {
+        try {
+          Files.deleteIfExists(p);
+        } catch (IOException e) {
+          logger.debug("Failed to delete unused knowledge base blob {}", p, e);
+        }
+      });
+    } catch (IOException e) {
+      logger.debug("Failed to list knowledge base blobs in {}", dir, e);
+    }
+  }
+
+  private static String sha256(String content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
@@ -1,53 +1,84 @@
 package com.gentorox.services.knowledgebase;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * File-based implementation of {@link KnowledgeBasePersistence} that stores the knowledge base state as JSON.
  * <p>
  * Behavior:
- * - load(Path): returns Optional.empty() when the path is not a regular file or does not exist.
- * - save(Path, KnowledgeBaseState): ensures the parent directory exists, creates a timestamped backup if the
- *   target file already exists, then writes the new state in pretty-printed JSON format.
+ * - load(Path): returns Optional.empty() when the path is not a regular file or does not exist. If the file cannot
+ *   be parsed, the newest readable backup is returned instead. Gzip-compressed files are detected automatically.
+ * - save(Path, KnowledgeBaseState): ensures the parent directory exists, writes the new state (pretty-printed JSON,
+ *   optionally gzip-compressed) to a temporary file that is synced and atomically renamed over the target, and keeps
+ *   the previous file as a timestamped backup. Only the newest {@code backupRetention} backups are kept.
  */
 @Component
 public class FileKnowledgeBasePersistence implements KnowledgeBasePersistence {
   private static final Logger logger = LoggerFactory.getLogger(FileKnowledgeBasePersistence.class);
+  static final int DEFAULT_BACKUP_RETENTION = 3;
 
   private final ObjectMapper objectMapper;
+  private final int backupRetention;
+  private final boolean compress;
 
   /**
-   * Constructs a new persistence component using a default Jackson {@link ObjectMapper} configured for pretty output.
+   * Constructs a new persistence component using a default Jackson {@link ObjectMapper} configured for pretty output,
+   * keeping {@value #DEFAULT_BACKUP_RETENTION} uncompressed backups.
    */
   public FileKnowledgeBasePersistence() {
+    this(DEFAULT_BACKUP_RETENTION, false);
+  }
+
+  /**
+   * @param backupRetention number of previous state files kept as backups (0 disables backups)
+   * @param compress whether to gzip the state file
+   */
+  @Autowired
+  public FileKnowledgeBasePersistence(@Value("${knowledgeBase.persistence.backups:3}") int backupRetention,
+                                      @Value("${knowledgeBase.persistence.compress:false}") boolean compress) {
+    if (backupRetention < 0) throw new IllegalArgumentException("backupRetention must be >= 0");
     this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    this.backupRetention = backupRetention;
+    this.compress = compress;
   }
 
   /**
    * Loads a {@link KnowledgeBaseState} from a JSON file if it exists and is a regular file.
    *
    * @param file the path to the JSON file; must not be null
-   * @return an Optional containing the loaded state, or empty if the file does not exist or is not a regular file
-   * @throws IOException if an I/O error occurs while reading or parsing the file
+   * @return an Optional containing the loaded state (or of its newest readable backup), or empty if the file does
+   *         not exist or is not a regular file
+   * @throws IOException if neither the file nor any backup can be read or parsed
    */
   @Override
   public Optional<KnowledgeBaseState> load(Path file) throws IOException {
     Objects.requireNonNull(file, "file");
+    return StateFiles.read(file, this::read);
+  }
 
+  private Optional<KnowledgeBaseState> read(Path file) throws IOException {
     if (Files.isRegularFile(file)) {
       logger.debug("Loading KnowledgeBaseState from {}", file);
-      try (var in = Files.newBufferedReader(file)) {
-        return Optional.ofNullable(objectMapper.readValue(in, KnowledgeBaseState.class));
+      try (var in = new BufferedInputStream(Files.newInputStream(file))) {
+        return Optional.ofNullable(objectMapper.readValue(isGzip(in) ? new GZIPInputStream(in) : in, KnowledgeBaseState.class));
       }
     }
 
@@ -57,7 +88,8 @@ public class FileKnowledgeBasePersistence implements KnowledgeBasePersistence {
 
   /**
    * Saves the provided {@link KnowledgeBaseState} to the specified file as pretty-printed JSON.
-   * Creates the parent directory if necessary and writes a timestamped backup of the existing file, if present.
+   * Creates the parent directory if necessary, keeps a timestamped backup of the existing file, if present, and
+   * replaces the file atomically so a crash never leaves a partially written state.
    *
    * @param file  the path to write the JSON file to; must not be null
    * @param state the state to persist; must not be null
@@ -68,20 +100,20 @@ public class FileKnowledgeBasePersistence implements KnowledgeBasePersistence {
     Objects.requireNonNull(file, "file");
     Objects.requireNonNull(state, "state");
 
-    Path parent = file.getParent();
-    if (parent != null) {
-      Files.createDirectories(parent);
-    }
-
-    if (Files.exists(file)) {
-      Path backup = file.resolveSibling(file.getFileName() + ".bak." + System.currentTimeMillis());
-      logger.info("Existing KnowledgeBaseState detected. Creating backup: {} -> {}", file, backup);
-      Files.move(file, backup);
-    }
-
     logger.debug("Saving KnowledgeBaseState to {}", file);
-    try (var out = Files.newBufferedWriter(file)) {
-      objectMapper.writeValue(out, state);
-    }
+    StateFiles.write(file, out -> {
+      OutputStream target = compress ? new GZIPOutputStream(out, 1 << 16) : new BufferedOutputStream(out, 1 << 16);
+      objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(target, state);
+      if (target instanceof GZIPOutputStream gzip) gzip.finish();
+      target.flush();
+    }, backupRetention);
+  }
+
+  private static boolean isGzip(BufferedInputStream in) throws IOException {
+    in.mark(2);
+    int b1 = in.read();
+    int b2 = in.read();
+    in.reset();
+    return b1 == 0x1f && b2 == 0x8b;
   }
 }
@@ -0,0 +1,76 @@
+package com.gentorox.services.knowledgebase;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local, dependency-free {@link EmbeddingModel} based on feature hashing.
+ *
+ * Each term (see {@link Bm25Index#tokenize(String)}) and each pair of adjacent terms is hashed into one of
+ * {@code dimension} buckets with a hashed sign, weighted by {@code 1 + log(tf)}, and the vector is L2-normalized.
+ * It captures lexical rather than semantic similarity, but needs no model download or network access, so the
+ * knowledge base always has a working vector index. Plug in a real embedding model bean to replace it.
+ */
+public final class HashingEmbeddingModel implements EmbeddingModel {
+  public static final int DEFAULT_DIMENSION = 384;
+
+  private final int dimension;
+
+  public HashingEmbeddingModel() {
+    this(DEFAULT_DIMENSION);
+  }
+
+  public HashingEmbeddingModel(int dimension) {
+    if (dimension < 16) throw new IllegalArgumentException("dimension must be >= 16");
+    this.dimension = dimension;
+  }
+
+  @Override
+  public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+    List<Embedding> out = new ArrayList<>(segments.size());
+    for (TextSegment segment : segments) out.add(Embedding.from(embedText(segment.text())));
+    return Response.from(out);
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  float[] embedText(String text) {
+    float[] v = new float[dimension];
+    List<String> terms = Bm25Index.tokenize(text);
+    for (int i = 0; i < terms.size(); i++) {
+      add(v, terms.get(i).hashCode());
+      if (i > 0) add(v, 31 * terms.get(i - 1).hashCode() + terms.get(i).hashCode() + 0x9E3779B9);
+    }
+    double norm = 0;
+    for (int i = 0; i < dimension; i++) {
+      if (v[i] != 0) v[i] = (float) (Math.signum(v[i]) * (1 + Math.log(Math.abs(v[i]))));
+      norm += v[i] * v[i];
+    }
+    if (norm > 0) {
+      float inv = (float) (1 / Math.sqrt(norm));
+      for (int i = 0; i < dimension; i++) v[i] *= inv;
+    }
+    return v;
+  }
+
+  private void add(float[] v, int hash) {
+    int h = mix(hash);
+    v[Math.floorMod(h, dimension)] += (h & 0x80000000) == 0 ? 1 : -1;
+  }
+
+  private static int mix(int h) { // murmur3 finalizer
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    return h ^ (h >>> 16);
+  }
+}
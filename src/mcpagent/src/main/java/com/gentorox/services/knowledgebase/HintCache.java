@@ -0,0 +1,137 @@
+package com.gentorox.services.knowledgebase;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed cache of AI-generated hints, persisted as an append-only JSON lines file.
+ *
+ * A hint is keyed by a SHA-256 of everything the hint prompt depends on: the model, the hint size, the file name
+ * and the content excerpt shown to the model. Identical documents (e.g. model files shared by several generated
+ * SDKs) and unchanged files are therefore never summarized twice, whatever happened to the rest of the knowledge
+ * base. Each line is {@code {"k": key, "h": hint}}; later lines win, and a torn last line (crash while appending)
+ * is ignored. The file is compacted on open when it holds mostly superseded lines.
+ *
+ * This class is thread-safe.
+ */
+final class HintCache {
+  private static final Logger logger = LoggerFactory.getLogger(HintCache.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final Path file;
+  private final String modelId;
+  private final int hintSize;
+  private final Map<String, String> hints = new ConcurrentHashMap<>();
+
+  private HintCache(Path file, String modelId, int hintSize) {
+    this.file = file;
+    this.modelId = modelId == null ? "unknown" : modelId;
+    this.hintSize = hintSize;
+  }
+
+  /**
+   * Opens (or creates on first write) the cache file.
+   *
+   * @param file     JSON lines file; read if it exists
+   * @param modelId  model generating the hints
+   * @param hintSize configured maximum hint length
+   */
+  static HintCache open(Path file, String modelId, int hintSize) {
+    HintCache cache = new HintCache(file, modelId, hintSize);
+    cache.load();
+    return cache;
+  }
+
+  Path file() { return file; }
+
+  int size() { return hints.size(); }
+
+  /** Cached hint for a document, if any. */
+  Optional<String> get(String name, String content) {
+    return Optional.ofNullable(hints.get(key(name, content)));
+  }
+
+  /** Records a generated hint and appends it to the file. Failures to persist are logged and otherwise ignored. */
+  void put(String name, String content, String hint) {
+    if (hint == null || hint.isBlank()) return;
+    String key = key(name, content);
+    if (hint.equals(hints.put(key, hint))) return;
+    try {
+      String line = MAPPER.writeValueAsString(Map.of("k", key, "h", hint)) + "\n";
+      synchronized (this) {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to append to hint cache {}: {}", file, e.getMessage());
+    }
+  }
+
+  String key(String name, String content) {
+    try {
+      MessageDigest sha = MessageDigest.getInstance("SHA-256");
+      sha.update((modelId + '\0' + hintSize + '\0' + name + '\0').getBytes(StandardCharsets.UTF_8));
+      sha.update(BatchHintGenerator.excerpt(content).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(Arrays.copyOf(sha.digest(), 16));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private void load() {
+    if (!Files.isRegularFile(file)) return;
+    int lines = 0;
+    try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      for (String line; (line = reader.readLine()) != null; ) {
+        if (line.isBlank()) continue;
+        lines++;
+        try {
+          JsonNode node = MAPPER.readTree(line);
+          JsonNode k = node.get("k");
+          JsonNode h = node.get("h");
+          if (k != null && h != null && k.isTextual() && h.isTextual()) hints.put(k.asText(), h.asText());
+        } catch (IOException e) {
+          logger.debug("Skipping malformed hint cache line in {}", file);
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to read hint cache {}: {}", file, e.getMessage());
+      return;
+    }
+    logger.info("Loaded {} cached hint(s) from {}", hints.size(), file);
+    if (lines > 2 * hints.size() + 100) compact();
+  }
+
+  private synchronized void compact() {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      List<String> lines = new ArrayList<>(hints.size());
+      for (Map.Entry<String, String> e : hints.entrySet()) {
+        lines.add(MAPPER.writeValueAsString(Map.of("k", e.getKey(), "h", e.getValue())));
+      }
+      Files.write(tmp, lines, StandardCharsets.UTF_8);
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Failed to compact hint cache {}: {}", file, e.getMessage());
+    }
+  }
+}
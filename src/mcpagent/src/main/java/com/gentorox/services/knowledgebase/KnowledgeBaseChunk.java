@@ -0,0 +1,26 @@
+package com.gentorox.services.knowledgebase;
+
+/**
+ * A contiguous slice of a knowledge base entry's content, addressed as {@code <resource>#chunk-<index>}.
+ *
+ * @param resource kb:// URI of the entry the chunk belongs to
+ * @param index    zero-based position of the chunk within the entry
+ * @param start    start offset (inclusive) in the entry content
+ * @param end      end offset (exclusive) in the entry content
+ */
+public record KnowledgeBaseChunk(String resource, int index, int start, int end) {
+
+  /** Stable chunk id, e.g. {@code kb://docs/Orders.md#chunk-3}. */
+  public String id() {
+    return id(resource, index);
+  }
+
+  /** Extracts this chunk's text from the content of its entry. */
+  public String text(String content) {
+    return content.substring(start, Math.min(end, content.length()));
+  }
+
+  public static String id(String resource, int index) {
+    return resource + "#chunk-" + index;
+  }
+}
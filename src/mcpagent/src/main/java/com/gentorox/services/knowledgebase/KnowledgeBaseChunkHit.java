@@ -0,0 +1,11 @@
+package com.gentorox.services.knowledgebase;
+
+/**
+ * A chunk returned by semantic search.
+ *
+ * @param id       chunk id, e.g. kb://docs/Orders.md#chunk-3
+ * @param resource kb:// URI of the entry the chunk belongs to
+ * @param content  chunk text
+ * @param score    cosine similarity with the query (higher is better)
+ */
+public record KnowledgeBaseChunkHit(String id, String resource, String content, double score) {}
@@ -0,0 +1,101 @@
+package com.gentorox.services.knowledgebase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits entry content into chunks of at most {@code maxChars} characters.
+ *
+ * Chunks end on block boundaries (blank lines and markdown headings) whenever possible so a section is not cut
+ * in the middle; a block larger than {@code maxChars} is split at the last line break (or space) that fits.
+ * Chunking is deterministic, so the same content always produces the same chunk ids.
+ */
+public final class KnowledgeBaseChunker {
+  /** Default maximum chunk length in characters (roughly 300 tokens). */
+  public static final int DEFAULT_MAX_CHARS = 1200;
+
+  private final int maxChars;
+
+  public KnowledgeBaseChunker(int maxChars) {
+    if (maxChars < 64) throw new IllegalArgumentException("maxChars must be >= 64");
+    this.maxChars = maxChars;
+  }
+
+  /** Maximum chunk length in characters. */
+  public int maxChars() {
+    return maxChars;
+  }
+
+  /**
+   * Chunks the content of one entry. Whitespace-only content yields no chunks.
+   *
+   * @param resource kb:// URI of the entry
+   * @param content  entry content; may be null
+   */
+  public List<KnowledgeBaseChunk> split(String resource, String content) {
+    List<KnowledgeBaseChunk> out = new ArrayList<>();
+    if (content == null || content.isBlank()) return out;
+
+    int chunkStart = -1;
+    int chunkEnd = -1;
+    for (int[] block : blocks(content)) {
+      int bs = block[0], be = block[1];
+      if (chunkStart >= 0 && (be - chunkStart > maxChars || isHeading(content, bs))) {
+        out.add(new KnowledgeBaseChunk(resource, out.size(), chunkStart, chunkEnd));
+        chunkStart = -1;
+      }
+      while (be - bs > maxChars) { // oversized block: cut it down
+        int cut = cutPoint(content, bs, bs + maxChars);
+        out.add(new KnowledgeBaseChunk(resource, out.size(), bs, cut));
+        bs = skipWhitespace(content, cut, be);
+      }
+      if (bs >= be) continue;
+      if (chunkStart < 0) chunkStart = bs;
+      chunkEnd = be;
+    }
+    if (chunkStart >= 0) out.add(new KnowledgeBaseChunk(resource, out.size(), chunkStart, chunkEnd));
+    return out;
+  }
+
+  /** Offsets [start, end) of the non-blank blocks separated by blank lines, headings starting their own block. */
+  private static List<int[]> blocks(String s) {
+    List<int[]> blocks = new ArrayList<>();
+    int len = s.length();
+    int blockStart = -1;
+    int blockEnd = -1;
+    int line = 0;
+    while (line < len) {
+      int nl = s.indexOf('\n', line);
+      int lineEnd = nl < 0 ? len : nl;
+      boolean blank = s.substring(line, lineEnd).isBlank();
+      if (blank || (blockStart >= 0 && isHeading(s, line))) {
+        if (blockStart >= 0) blocks.add(new int[]{blockStart, blockEnd});
+        blockStart = -1;
+      }
+      if (!blank) {
+        if (blockStart < 0) blockStart = line;
+        blockEnd = lineEnd;
+      }
+      line = lineEnd + 1;
+    }
+    if (blockStart >= 0) blocks.add(new int[]{blockStart, blockEnd});
+    return blocks;
+  }
+
+  private static boolean isHeading(String s, int lineStart) {
+    return lineStart < s.length() && s.charAt(lineStart) == '#';
+  }
+
+  private static int cutPoint(String s, int from, int limit) {
+    int nl = s.lastIndexOf('\n', limit - 1);
+    if (nl > from) return nl;
+    int sp = s.lastIndexOf(' ', limit - 1);
+    if (sp > from) return sp;
+    return limit;
+  }
+
+  private static int skipWhitespace(String s, int from, int to) {
+    while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+    return from;
+  }
+}
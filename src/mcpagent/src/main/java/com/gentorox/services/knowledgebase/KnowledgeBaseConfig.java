@@ -1,9 +1,12 @@
 package com.gentorox.services.knowledgebase;
 
 import com.gentorox.services.inference.InferenceService;
+import com.gentorox.services.telemetry.TelemetryService;
 import com.gentorox.services.typescript.TypescriptRuntimeClient;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,6 +14,8 @@ import org.springframework.context.annotation.Configuration;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
 
 /**
  * Spring configuration for the Knowledge Base service.
@@ -19,6 +24,19 @@ import java.nio.file.Path;
  * - knowledgeBase.foundation.dir: The root directory containing docs, tests, feedback, and openapi subfolders.
  * - knowledgeBase.hint.useAi: Whether to use the InferenceService to generate short human-friendly hints for entries.
  * - knowledgeBase.hint.size: Maximum length of the generated hint.
+ * - knowledgeBase.hint.batchTokenBudget: Maximum estimated prompt tokens of one batched AI hint request.
+ * - knowledgeBase.chunk.size: Maximum length of the content chunks embedded for semantic search.
+ * - knowledgeBase.embedding.dimension: Dimension of the default local {@link HashingEmbeddingModel}. Any
+ *   {@link EmbeddingModel} bean in the context replaces the default.
+ * - knowledgeBase.ingest.hintParallelism: Maximum number of hints generated concurrently during ingestion.
+ * - knowledgeBase.ingest.sdkParallelism: Maximum number of OpenAPI specs uploaded to the Typescript runtime concurrently.
+ * - knowledgeBase.contentCache.maxBytes: Maximum approximate heap size of the entry contents cached in memory.
+ * - knowledgeBase.persistence.format: Format of the persisted state: "binary" (memory-mapped, default) or "json"
+ *   (pretty-printed, for debugging).
+ * - knowledgeBase.persistence.backups: Number of previous state files kept as backups, restored when the state is corrupt.
+ * - knowledgeBase.persistence.compress: Whether the JSON state is gzip-compressed.
+ * - knowledgeBase.watch.enabled: Whether foundation changes are picked up without a restart.
+ * - knowledgeBase.watch.debounceMs: Quiet period after the last file event before the knowledge base is refreshed.
  */
 @Configuration
 public class KnowledgeBaseConfig {
@@ -32,9 +50,19 @@ public class KnowledgeBaseConfig {
                                @Value("${knowledgeBase.foundation.dir:/var/foundation}") String rootFoundationDir,
                                @Value("${knowledgeBase.hint.useAi:false}") boolean hintAiGenerationEnabled,
                                @Value("${knowledgeBase.hint.size:240}") int hintContentLimit,
+                               @Value("${knowledgeBase.hint.batchTokenBudget:4000}") int hintBatchTokenBudget,
+                               @Value("${knowledgeBase.chunk.size:1200}") int chunkSize,
+                               @Value("${knowledgeBase.embedding.dimension:384}") int embeddingDimension,
+                               ObjectProvider<EmbeddingModel> embeddingModel,
+                               @Value("${knowledgeBase.ingest.hintParallelism:4}") int hintParallelism,
+                               @Value("${knowledgeBase.ingest.sdkParallelism:2}") int sdkParallelism,
+                               @Value("${knowledgeBase.contentCache.maxBytes:33554432}") long contentCacheBytes,
+                               ObjectProvider<TelemetryService> telemetry,
+                               @Value("${knowledgeBase.persistence.format:binary}") String persistenceFormat,
+                               @Value("${knowledgeBase.persistence.backups:3}") int persistenceBackups,
                                InferenceService inferenceService,
                               TypescriptRuntimeClient tsRuntimeClient,
-                              KnowledgeBasePersistence persistence) throws IOException {
+                              FileKnowledgeBasePersistence jsonPersistence) throws IOException {
     Path rootFoundationPath = Path.of(rootFoundationDir);
     logger.info("Initializing KnowledgeBaseService with foundation dir: {}", rootFoundationPath.toAbsolutePath());
     if (!Files.exists(rootFoundationPath) || !Files.isDirectory(rootFoundationPath)) {
@@ -47,12 +75,54 @@ public class KnowledgeBaseConfig {
       logger.debug("Created state directory at {}", stateDir.toAbsolutePath());
     }
 
-    Path stateFile = stateDir.resolve("knowledge-base-state.json");
-    logger.info("KnowledgeBase hints: aiGenerationEnabled={}, maxLength={}", hintAiGenerationEnabled, hintContentLimit);
-    KnowledgeBaseService knowledgeBaseService = new KnowledgeBaseServiceImpl(inferenceService, tsRuntimeClient, persistence, stateFile, hintAiGenerationEnabled, hintContentLimit);
+    KnowledgeBasePersistence persistence = switch (persistenceFormat.trim().toLowerCase(Locale.ROOT)) {
+      case "binary" -> new BinaryKnowledgeBasePersistence(persistenceBackups);
+      case "json" -> jsonPersistence;
+      default -> throw new IllegalStateException("Unknown knowledgeBase.persistence.format: " + persistenceFormat);
+    };
+    Path stateFile = stateDir.resolve(persistence instanceof BinaryKnowledgeBasePersistence
+        ? "knowledge-base-state.bin" : "knowledge-base-state.json");
+    logger.info("KnowledgeBase persistence: format={}", persistenceFormat);
+    logger.info("KnowledgeBase hints: aiGenerationEnabled={}, maxLength={}, batchTokenBudget={}", hintAiGenerationEnabled, hintContentLimit, hintBatchTokenBudget);
+    EmbeddingModel embeddings = embeddingModel.getIfAvailable(() -> new HashingEmbeddingModel(embeddingDimension));
+    logger.info("KnowledgeBase ingestion: hintParallelism={}, sdkParallelism={}", hintParallelism, sdkParallelism);
+    logger.info("KnowledgeBase chunks: maxLength={}, embeddingModel={}", chunkSize, embeddings.getClass().getSimpleName());
+    logger.info("KnowledgeBase content cache: maxBytes={}", contentCacheBytes);
+    KnowledgeBaseServiceImpl knowledgeBaseService = new KnowledgeBaseServiceImpl(inferenceService, tsRuntimeClient, persistence,
+        stateFile, hintAiGenerationEnabled, hintContentLimit, embeddings, chunkSize, hintParallelism, sdkParallelism,
+        hintBatchTokenBudget, contentCacheBytes);
+    telemetry.ifAvailable(t -> registerContentCacheGauges(t, knowledgeBaseService));
     knowledgeBaseService.initialize(Path.of(rootFoundationDir));
     logger.info("KnowledgeBaseService initialized; state file: {}", stateFile.toAbsolutePath());
     return knowledgeBaseService;
   }
 
+  /**
+   * Watches the foundation and refreshes the knowledge base when its files change.
+   */
+  @Bean(destroyMethod = "close")
+  public KnowledgeBaseWatcher knowledgeBaseWatcher(KnowledgeBaseService knowledgeBaseService,
+                                                   @Value("${knowledgeBase.foundation.dir:/var/foundation}") String rootFoundationDir,
+                                                   @Value("${knowledgeBase.watch.enabled:true}") boolean enabled,
+                                                   @Value("${knowledgeBase.watch.debounceMs:1000}") long debounceMs) throws IOException {
+    KnowledgeBaseWatcher watcher = new KnowledgeBaseWatcher(knowledgeBaseService, Path.of(rootFoundationDir), Duration.ofMillis(debounceMs));
+    if (enabled) {
+      watcher.start();
+    } else {
+      logger.info("KnowledgeBase watch disabled; foundation changes require a restart");
+    }
+    return watcher;
+  }
+
+  private static void registerContentCacheGauges(TelemetryService telemetry, KnowledgeBaseServiceImpl kb) {
+    telemetry.registerGauge("com.gentorox.kb.content.cache.hits", "Knowledge base content loads served from the cache",
+        () -> kb.contentCacheStats().hits());
+    telemetry.registerGauge("com.gentorox.kb.content.cache.misses", "Knowledge base content loads that read the content",
+        () -> kb.contentCacheStats().misses());
+    telemetry.registerGauge("com.gentorox.kb.content.cache.evictions", "Knowledge base contents evicted from the cache",
+        () -> kb.contentCacheStats().evictions());
+    telemetry.registerGauge("com.gentorox.kb.content.cache.bytes", "Approximate size of the cached knowledge base contents",
+        () -> kb.contentCacheStats().bytes());
+  }
+
 }
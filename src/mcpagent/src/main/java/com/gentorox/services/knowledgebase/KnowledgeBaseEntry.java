@@ -1,28 +1,39 @@
 package com.gentorox.services.knowledgebase;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Simple record representing a knowledge base entry that an LLM can load on-demand.
  * Each entry has an abstract resource URI (e.g., kb://docs/Agent.md) and a short hint
- * describing what the content contains. Content is the full textual payload.
+ * describing what the content contains. Entries of the knowledge base hold a content locator rather than the
+ * content itself; use {@link KnowledgeBaseService#getContent(String)} to load it.
  *
  * @param resource abstract resource URI, typically starting with kb://
  * @param hint short human-friendly description of the content
- * @param content full textual payload for the resource
+ * @param content full textual payload for the resource, or null when it is loaded on demand from {@code location}
+ * @param location where the content is loaded from (a file:// URI or a blob:// locator); null when {@code content} is inline
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record KnowledgeBaseEntry(
     String resource,
     String hint,
-    String content
+    String content,
+    String location
 ) {
   @JsonCreator
   public KnowledgeBaseEntry(@JsonProperty("resource") String resource,
                             @JsonProperty("hint") String hint,
-                            @JsonProperty("content") String content) {
+                            @JsonProperty("content") String content,
+                            @JsonProperty("location") String location) {
     this.resource = resource;
     this.hint = hint;
     this.content = content;
+    this.location = location;
+  }
+
+  public KnowledgeBaseEntry(String resource, String hint, String content) {
+    this(resource, hint, content, null);
   }
 }
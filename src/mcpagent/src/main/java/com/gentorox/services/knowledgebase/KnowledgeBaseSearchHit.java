@@ -0,0 +1,10 @@
+package com.gentorox.services.knowledgebase;
+
+/**
+ * A knowledge base entry matched by {@link KnowledgeBaseService#search(String, int)}.
+ *
+ * @param resource abstract resource URI, typically starting with kb://
+ * @param hint short human-friendly description of the content
+ * @param score relevance score (BM25); only comparable within the same search
+ */
+public record KnowledgeBaseSearchHit(String resource, String hint, double score) {}
@@ -1,6 +1,8 @@
 package com.gentorox.services.knowledgebase;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,13 +31,46 @@ public interface KnowledgeBaseService {
   List<KnowledgeBaseEntry> list(String dirPrefix);
 
   /**
-   * Retrieve the full textual content of a resource URI (supports kb://, file://, and in-memory mem:// indirection).
+   * Full-text search over resource names, hints and contents, ranked by relevance (BM25).
+   *
+   * @param query free-text query, e.g. "create order endpoint"
+   * @param k maximum number of hits to return
+   * @return up to k hits, best first; empty when nothing matches
+   */
+  List<KnowledgeBaseSearchHit> search(String query, int k);
+
+  /**
+   * Semantic search over chunks of the entries' contents, ranked by embedding similarity. Returns only the
+   * relevant slices of documents instead of whole files.
+   *
+   * @param query free-text query
+   * @param k maximum number of chunks to return
+   * @return up to k chunks, best first
+   */
+  List<KnowledgeBaseChunkHit> searchChunks(String query, int k);
+
+  /**
+   * Retrieve the full textual content of a resource URI; kb:// URIs are resolved to their original source on demand.
    *
    * @param resourceUri kb:// or original URI
    * @return optional content
    */
   Optional<String> getContent(String resourceUri);
 
+  /**
+   * Retrieve the contents of several resources at once. Implementations may resolve and load them concurrently.
+   *
+   * @param resourceUris kb:// or original URIs
+   * @return the contents found, keyed by URI in request order; missing resources are left out
+   */
+  default Map<String, String> getContents(Collection<String> resourceUris) {
+    Map<String, String> out = new LinkedHashMap<>();
+    for (String uri : resourceUris) {
+      if (uri != null && !out.containsKey(uri)) getContent(uri).ifPresent(c -> out.put(uri, c));
+    }
+    return out;
+  }
+
   /**
    * Retrieves a map of service names and their corresponding descriptions or details, if available.
    *
@@ -50,4 +85,22 @@ public interface KnowledgeBaseService {
    * @return true if loaded from cache
    */
   boolean loadedFromCache();
+
+  /**
+   * Version of the published knowledge base, incremented whenever a (re-)initialization changes its content.
+   * Everything read while the version is unchanged is consistent, so callers can key derived caches on it.
+   *
+   * @return the current version
+   */
+  long version();
+
+  /**
+   * Registers a callback run after {@link #initialize(Path)} publishes a knowledge base that differs from the
+   * previous one, e.g. when a refresh picked up edited foundation files. Callbacks run on the refreshing thread
+   * and should be quick. Implementations whose content never changes may ignore listeners.
+   *
+   * @param listener callback to run on change
+   */
+  default void addChangeListener(Runnable listener) {
+  }
 }
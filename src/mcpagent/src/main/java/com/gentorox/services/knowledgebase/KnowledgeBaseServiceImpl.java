@@ -1,33 +1,46 @@
 package com.gentorox.services.knowledgebase;
 
-import com.gentorox.core.model.InferenceResponse;
 import com.gentorox.services.inference.InferenceService;
 import com.gentorox.services.typescript.TypescriptRuntimeClient;
 import com.gentorox.services.typescript.TypescriptRuntimeClient.DocsResponse;
 import com.gentorox.services.typescript.TypescriptRuntimeClient.DocFile;
 import com.gentorox.services.typescript.TypescriptRuntimeClient.UploadResult;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
 
 /**
  * Default KnowledgeBaseService implementation.
  *
  * Features:
  * - Scans a Foundation directory for docs (docs/*.md), tests (tests/**), feedback, and OpenAPI specs.
- * - Produces abstract kb:// URIs mapped to original file:// or in-memory mem:// resources.
+ * - Produces abstract kb:// URIs whose content is loaded on demand from the original file:// or a blob:// locator,
+ *   through a size-bounded LRU cache; only metadata and hints stay resident.
  * - Optionally generates concise hints using the configured InferenceService (or falls back to first bytes).
- * - Persists a lightweight KnowledgeBaseState so startup can restore from cache when nothing changed.
+ * - Persists a lightweight KnowledgeBaseState with per-file fingerprints so startup only re-processes the files that changed.
  */
 /**
  * Default implementation of {@link KnowledgeBaseService} that builds a lightweight searchable catalog of
@@ -40,19 +53,31 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
   private final TypescriptRuntimeClient tsRuntimeClient;
   private final KnowledgeBasePersistence persistence;
 
-  // Entries are keyed by abstracted kb:// URIs
-  private final Map<String, KnowledgeBaseEntry> entries = new ConcurrentHashMap<>();
-  // Map abstract kb:// -> original (file:// or mem://) for content resolution
-  private final Map<String, String> abstractToOriginal = new ConcurrentHashMap<>();
-  // In-memory content for mem:// resources
-  private final Map<String, String> inMemoryContent = new ConcurrentHashMap<>();
-  private boolean loadedFromCache = false;
+  // Published knowledge base; initialize() stages a new one and swaps it in once ingestion and indexing have completed
+  private volatile Snapshot snapshot;
   private Path stateFile;
-  private Path foundationRoot;
   private final boolean aiHintGenerationEnabled;
   private final int hintContentLimit;
+  private final int hintParallelism;
+  private final BatchHintGenerator hintGenerator;
+  // AI hints by content; opened next to the state file on first use
+  private volatile HintCache hintCache;
+  private final int sdkParallelism;
 
-  private final Map<String, String> compiledSDKs = new ConcurrentHashMap<>();
+  // Chunk embeddings are persisted next to the state file so a restart does not re-embed
+  private static final int EMBEDDING_BATCH_SIZE = 64;
+  static final int DEFAULT_HINT_PARALLELISM = 4;
+  static final int DEFAULT_SDK_PARALLELISM = 2;
+  static final int DEFAULT_HINT_BATCH_TOKEN_BUDGET = 4000;
+  private final EmbeddingModel embeddingModel;
+  private final KnowledgeBaseChunker chunker;
+  static final long DEFAULT_CONTENT_CACHE_BYTES = 32L * 1024 * 1024;
+  // Contents by locator; entries only hold the locator
+  private final ContentCache contentCache;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+  // Serializes initialize(), which may be re-run by the foundation watcher while requests are served. Not a
+  // monitor: a refresh blocks on ingestion futures, which would pin a virtual thread's carrier
+  private final ReentrantLock refreshLock = new ReentrantLock();
 
   /**
    * Creates a new service instance.
@@ -63,19 +88,53 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
    * @param stateFile file where the KB state is persisted; if null, a default under target/kb is used
    * @param aiHintGenerationEnabled whether AI-based hint generation is enabled
    * @param hintContentLimit maximum hint length in characters
+   * @param embeddingModel model used to embed chunks and queries for {@link #searchChunks(String, int)}
+   * @param chunkSize maximum chunk length in characters
+   * @param hintParallelism maximum number of hints generated concurrently during ingestion
+   * @param sdkParallelism maximum number of OpenAPI specs uploaded to the Typescript runtime concurrently
+   * @param hintBatchTokenBudget maximum estimated prompt tokens of one batched AI hint request
+   * @param contentCacheBytes maximum approximate size of the contents cached for {@link #getContent(String)}
    */
   public KnowledgeBaseServiceImpl(InferenceService inferenceService,
                                   TypescriptRuntimeClient tsRuntimeClient,
                                   KnowledgeBasePersistence persistence,
                                   Path stateFile,
                                   boolean aiHintGenerationEnabled,
-                                  int hintContentLimit) {
+                                  int hintContentLimit,
+                                  EmbeddingModel embeddingModel,
+                                  int chunkSize,
+                                  int hintParallelism,
+                                  int sdkParallelism,
+                                  int hintBatchTokenBudget,
+                                  long contentCacheBytes) {
+    if (hintParallelism < 1) throw new IllegalArgumentException("hintParallelism must be >= 1");
+    if (sdkParallelism < 1) throw new IllegalArgumentException("sdkParallelism must be >= 1");
     this.inferenceService = Objects.requireNonNull(inferenceService, "inferenceService");
     this.tsRuntimeClient = Objects.requireNonNull(tsRuntimeClient, "tsRuntimeClient");
     this.persistence = Objects.requireNonNull(persistence, "persistence");
     this.stateFile = (stateFile != null) ? stateFile : Path.of("target/kb/knowledge-base-state.json");
     this.aiHintGenerationEnabled = aiHintGenerationEnabled;
     this.hintContentLimit = hintContentLimit;
+    this.embeddingModel = Objects.requireNonNull(embeddingModel, "embeddingModel");
+    this.chunker = new KnowledgeBaseChunker(chunkSize);
+    this.hintParallelism = hintParallelism;
+    this.sdkParallelism = sdkParallelism;
+    this.hintGenerator = new BatchHintGenerator(inferenceService, hintBatchTokenBudget);
+    this.snapshot = new Snapshot(0, null, Collections.emptyNavigableMap(), Map.of(), Bm25Index.empty(),
+        VectorIndex.empty(embeddingModelId(), embeddingModel.dimension()), null, false);
+    this.contentCache = new ContentCache(contentCacheBytes);
+  }
+
+  public KnowledgeBaseServiceImpl(InferenceService inferenceService,
+                                  TypescriptRuntimeClient tsRuntimeClient,
+                                  KnowledgeBasePersistence persistence,
+                                  Path stateFile,
+                                  boolean aiHintGenerationEnabled,
+                                  int hintContentLimit) {
+    this(inferenceService, tsRuntimeClient, persistence, stateFile, aiHintGenerationEnabled, hintContentLimit,
+        new HashingEmbeddingModel(), KnowledgeBaseChunker.DEFAULT_MAX_CHARS,
+        DEFAULT_HINT_PARALLELISM, DEFAULT_SDK_PARALLELISM, DEFAULT_HINT_BATCH_TOKEN_BUDGET,
+        DEFAULT_CONTENT_CACHE_BYTES);
   }
 
   public KnowledgeBaseServiceImpl(InferenceService inferenceService,
@@ -86,55 +145,174 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
   }
 
   /**
-   * Initializes the knowledge base by attempting to restore from the persisted state file. If the state
-   * is missing or stale (signature mismatch), performs a fresh scan of the foundation directory and then
-   * persists the new state.
+   * Initializes the knowledge base from the persisted state file, re-processing only the foundation files that
+   * were added, changed or removed since it was written. Files are matched by a per-file fingerprint (size,
+   * mtime and CRC32C); unchanged files keep their cached entries, hints and SDK docs. Without a usable state,
+   * performs a full scan of the foundation directory. The new state is persisted whenever something changed.
+   *
+   * Files are read, hinted and uploaded by a parallel pipeline (see {@link #ingestAll}); the resulting catalog
+   * is published atomically, so concurrent readers see either the previous or the new knowledge base. Calling it
+   * again refreshes the knowledge base; change listeners run when the refresh changed something.
    *
    * @param foundationRoot the root directory containing docs, tests, feedback, and openapi; if null, defaults to "foundation"
    */
   @Override
   public void initialize(Path foundationRoot) {
+    refreshLock.lock();
+    try {
+      if (refresh(foundationRoot)) notifyChangeListeners();
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  @Override
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(Objects.requireNonNull(listener, "listener"));
+  }
+
+  private void notifyChangeListeners() {
+    for (Runnable listener : changeListeners) {
+      try {
+        listener.run();
+      } catch (RuntimeException e) {
+        logger.warn("Knowledge base change listener failed", e);
+      }
+    }
+  }
+
+  /** Publishes the knowledge base for {@code foundationRoot}; returns whether it differs from the published one. */
+  private boolean refresh(Path foundationRoot) {
     if (foundationRoot == null) foundationRoot = Path.of("foundation");
-    this.foundationRoot = foundationRoot.toAbsolutePath().normalize();
+    Path root = foundationRoot.toAbsolutePath().normalize();
 
-    String signature = computeSignature(foundationRoot);
+    Optional<KnowledgeBaseState> cached = Optional.empty();
     try {
-      Optional<KnowledgeBaseState> cached = persistence.load(stateFile);
-      if (cached.isPresent() && Objects.equals(cached.get().signature(), signature)) {
-        entries.clear();
-        abstractToOriginal.clear();
-        inMemoryContent.clear();
-        for (KnowledgeBaseEntry e : cached.get().entries()) {
-          // Entries are stored with abstract URIs
-          entries.put(e.resource(), e);
-        }
-        compiledSDKs.putAll(cached.get().services());
-        loadedFromCache = true;
-        return;
-      }
+      cached = persistence.load(stateFile);
     } catch (IOException e) { logger.warn("Failed to load KnowledgeBaseState from {}", stateFile, e); }
+    // States written before per-file fingerprints or content locators existed cannot be refreshed incrementally
+    KnowledgeBaseState previous = cached
+        .filter(st -> st.sources() != null && st.entries() != null)
+        .filter(st -> st.entries().stream().allMatch(e -> e.location() != null))
+        .orElse(null);
+
+    Catalog next = new Catalog();
+    Map<String, KnowledgeBaseSource> previousSources = new HashMap<>();
+    if (previous != null) {
+      // Entries are stored with abstract URIs
+      for (KnowledgeBaseEntry e : previous.entries()) next.entries.put(e.resource(), e);
+      if (previous.services() != null) next.compiledSDKs.putAll(previous.services());
+      for (KnowledgeBaseSource src : previous.sources()) previousSources.put(src.path(), src);
+    }
+
+    // Diff the foundation against the cached fingerprints
+    List<KnowledgeBaseSource> sources = new ArrayList<>();
+    List<FoundationFile> changed = new ArrayList<>();
+    Map<FoundationFile, KnowledgeBaseSource> changedFingerprints = new HashMap<>();
+    Set<String> dirtyResources = new HashSet<>();
+    boolean statsChanged = false;
+    for (FoundationFile f : scanFoundation(root)) {
+      KnowledgeBaseSource prev = previousSources.remove(f.key());
+      Optional<KnowledgeBaseSource> current = fingerprint(f, prev);
+      if (current.isEmpty()) continue;
+      if (prev != null && prev.sameContent(current.get().size(), current.get().crc32c())) {
+        sources.add(current.get());
+        statsChanged |= prev.lastModified() != current.get().lastModified();
+        continue;
+      }
+      if (prev != null) dropSource(next, prev, dirtyResources);
+      changed.add(f);
+      changedFingerprints.put(f, current.get());
+    }
+    // Whatever is left was deleted from the foundation
+    int removed = previousSources.size();
+    previousSources.values().forEach(src -> dropSource(next, src, dirtyResources));
+
+    // The first spec of a full build resets the SDKs held by the TypeScript runtime
+    List<Ingested> ingested = ingestAll(changed, previous == null);
+    // Contents read during this run, so the indexes do not read them back
+    Map<String, String> fresh = new HashMap<>();
+    for (int i = 0; i < changed.size(); i++) {
+      Ingested result = ingested.get(i);
+      next.add(result);
+      result.entries().forEach(e -> fresh.put(e.entry().resource(), e.content()));
+      dirtyResources.addAll(result.resources());
+      KnowledgeBaseSource fp = changedFingerprints.get(changed.get(i));
+      sources.add(new KnowledgeBaseSource(fp.path(), fp.size(), fp.lastModified(), fp.crc32c(),
+          result.namespace(), result.resources()));
+    }
 
-    // Fresh build
-    compiledSDKs.clear();
-    entries.clear();
-    abstractToOriginal.clear();
-    inMemoryContent.clear();
-    loadedFromCache = false;
+    String signature = computeSignature(sources);
+    boolean loadedFromCache = previous != null && changed.isEmpty() && removed == 0;
+    if (loadedFromCache) {
+      Bm25Index restoredIndex = restoreSearchIndex(previous, next);
+      VectorIndex vectors = loadOrBuildVectorIndex(next, signature, Set.of(), this::readContent);
+      boolean changedSincePublished = publish(next, restoredIndex, vectors, Set.of(), signature, root, true);
+      if (statsChanged) saveState(snapshot, sources); // refresh mtimes so the next start skips hashing
+      return changedSincePublished;
+    }
+    if (previous != null) {
+      logger.info("Knowledge base changed: {} file(s) added or modified, {} removed, {} reused",
+          changed.size(), removed, sources.size() - changed.size());
+    }
+
+    Function<KnowledgeBaseEntry, String> contents = e -> fresh.containsKey(e.resource()) ? fresh.get(e.resource()) : readContent(e);
+    Bm25Index builtIndex = searchIndexFor(previous, next, dirtyResources, contents);
+    logger.info("Indexed {} knowledge base entries ({} terms) for search", builtIndex.size(), builtIndex.termCount());
+    VectorIndex vectors = loadOrBuildVectorIndex(next, signature, dirtyResources, contents);
+    publish(next, builtIndex, vectors, dirtyResources, signature, root, false);
+    saveState(snapshot, sources);
+    return true;
+  }
 
-    ingestFoundation(foundationRoot);
+  /**
+   * Publishes the staged catalog and its indexes as one snapshot. The version only moves when the content differs
+   * from the published snapshot.
+   *
+   * @return whether the content differs from the previously published snapshot
+   */
+  private boolean publish(Catalog next, Bm25Index index, VectorIndex vectors, Set<String> dirtyResources, String signature,
+                          Path foundationRoot, boolean loadedFromCache) {
+    Snapshot previous = snapshot;
+    boolean changed = !signature.equals(previous.signature());
+    // The staged maps are not modified once published
+    snapshot = new Snapshot(changed ? previous.version() + 1 : previous.version(), signature,
+        Collections.unmodifiableNavigableMap(next.entries), Collections.unmodifiableMap(next.compiledSDKs), index, vectors,
+        foundationRoot, loadedFromCache);
+    // Locators of changed files are reused by their new entries
+    for (String resource : dirtyResources) {
+      KnowledgeBaseEntry old = previous.entries().get(resource);
+      if (old != null && old.location() != null) contentCache.invalidate(old.location());
+    }
+    return changed;
+  }
 
-    // Persist state
+  private void saveState(Snapshot published, List<KnowledgeBaseSource> sources) {
     try {
-      var state = new KnowledgeBaseState(signature,
-          new ArrayList<>(entries.values()),
-          compiledSDKs);
+      var state = new KnowledgeBaseState(published.signature(),
+          new ArrayList<>(published.entries().values()),
+          published.services(),
+          published.searchIndex().snapshot(),
+          sources);
       persistence.save(stateFile, state);
     } catch (IOException e) { logger.warn("Failed to persist KnowledgeBaseState to {}", stateFile, e); }
+    Set<String> locations = new HashSet<>();
+    published.entries().values().forEach(e -> locations.add(e.location()));
+    contentStore().retain(locations);
+  }
+
+  /** Removes the entries (and SDK namespace) produced from a source that changed or disappeared. */
+  private static void dropSource(Catalog catalog, KnowledgeBaseSource source, Set<String> dirtyResources) {
+    for (String resource : source.resources()) {
+      catalog.entries.remove(resource);
+      dirtyResources.add(resource);
+    }
+    if (source.namespace() != null) catalog.compiledSDKs.remove(source.namespace());
   }
 
   @Override
   public Optional<Map<String, String>> getServices() {
-    return Optional.of( Map.copyOf(compiledSDKs) );
+    return Optional.of(snapshot.services());
   }
 
   /**
@@ -146,42 +324,131 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
    */
   @Override
   public List<KnowledgeBaseEntry> list(String dirPrefix) {
-    if (dirPrefix == null || dirPrefix.isBlank()) return entries.values().stream()
-        .sorted(Comparator.comparing(KnowledgeBaseEntry::resource))
-        .toList();
-    String prefix = dirPrefix;
-    return entries.values().stream()
-        .filter(e -> e.resource().startsWith(prefix))
-        .sorted(Comparator.comparing(KnowledgeBaseEntry::resource))
-        .toList();
+    return listByPrefix(snapshot.entries(), dirPrefix);
+  }
+
+  /**
+   * Returns the values whose key starts with {@code prefix}, in key order, as a range query over the sorted map.
+   * A null or blank prefix returns all values.
+   */
+  static List<KnowledgeBaseEntry> listByPrefix(NavigableMap<String, KnowledgeBaseEntry> sorted, String prefix) {
+    if (prefix == null || prefix.isBlank()) return List.copyOf(sorted.values());
+    String upper = prefixUpperBound(prefix);
+    NavigableMap<String, KnowledgeBaseEntry> range = (upper == null)
+        ? sorted.tailMap(prefix, true)
+        : sorted.subMap(prefix, true, upper, false);
+    return List.copyOf(range.values());
+  }
+
+  /** Smallest string greater than every string starting with {@code prefix}, or null if there is none. */
+  private static String prefixUpperBound(String prefix) {
+    int end = prefix.length();
+    while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) end--;
+    if (end == 0) return null;
+    return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+  }
+
+  /**
+   * Ranks entries against a free-text query using the in-memory BM25 index.
+   *
+   * @param query free-text query
+   * @param k maximum number of hits
+   * @return hits ordered by descending score
+   */
+  @Override
+  public List<KnowledgeBaseSearchHit> search(String query, int k) {
+    Snapshot current = snapshot;
+    Map<String, KnowledgeBaseEntry> entries = current.entries();
+    List<Bm25Index.Hit> hits = current.searchIndex().search(query, k);
+    List<KnowledgeBaseSearchHit> out = new ArrayList<>(hits.size());
+    for (Bm25Index.Hit h : hits) {
+      KnowledgeBaseEntry e = entries.get(h.resource());
+      if (e != null) out.add(new KnowledgeBaseSearchHit(e.resource(), e.hint(), h.score()));
+    }
+    return out;
+  }
+
+  /**
+   * Ranks chunks by cosine similarity between their embedding and the query embedding.
+   *
+   * @param query free-text query
+   * @param k maximum number of chunks
+   * @return chunks ordered by descending similarity
+   */
+  @Override
+  public List<KnowledgeBaseChunkHit> searchChunks(String query, int k) {
+    if (query == null || query.isBlank() || k <= 0) return List.of();
+    Snapshot current = snapshot;
+    VectorIndex index = current.vectorIndex();
+    if (index.size() == 0) return List.of();
+    Map<String, KnowledgeBaseEntry> entries = current.entries();
+    float[] q = normalize(embeddingModel.embed(query).content().vector());
+    List<KnowledgeBaseChunkHit> out = new ArrayList<>(k);
+    for (VectorIndex.Hit hit : index.search(q, k)) {
+      KnowledgeBaseChunk chunk = hit.chunk();
+      KnowledgeBaseEntry e = entries.get(chunk.resource());
+      String content = e == null ? null : loadContent(e).orElse(null);
+      if (content == null || chunk.start() >= content.length()) continue;
+      out.add(new KnowledgeBaseChunkHit(chunk.id(), chunk.resource(), chunk.text(content).strip(), hit.score()));
+    }
+    return out;
   }
 
   /**
    * Resolves and returns the full textual content for a given resource URI.
-   * Supports indirection from abstract kb:// URIs to original file:// or in-memory mem:// locations.
+   * Contents of known entries are loaded from their locator through the content cache; unknown kb:// URIs fall
+   * back to the conventional file location of their type.
    *
    * @param resourceUri the abstract or original URI
    * @return the content if available
    */
   @Override
   public Optional<String> getContent(String resourceUri) {
-    try {
-      if( entries.containsKey(resourceUri) ) {
-        return Optional.of(entries.get(resourceUri).content());
-      }
-      // If the given URI is abstract, resolve to original
-      String original = abstractToOriginal.getOrDefault(resourceUri, null);
+    return contentOf(snapshot, resourceUri);
+  }
 
-      if (original == null && resourceUri != null && resourceUri.startsWith("kb://")) {
-        original = resolveOriginalFromAbstract(resourceUri).orElse(null);
+  /**
+   * Loads several contents at once from the same snapshot. Contents that are not cached are read concurrently,
+   * each on its own virtual thread.
+   *
+   * @param resourceUris abstract or original URIs; duplicates and nulls are ignored
+   * @return the available contents keyed by URI, in request order
+   */
+  @Override
+  public Map<String, String> getContents(Collection<String> resourceUris) {
+    Snapshot current = snapshot;
+    List<String> uris = resourceUris.stream().filter(Objects::nonNull).distinct().toList();
+    Map<String, String> out = new LinkedHashMap<>();
+    if (uris.size() <= 1) {
+      uris.forEach(uri -> contentOf(current, uri).ifPresent(c -> out.put(uri, c)));
+      return out;
+    }
+    try (ExecutorService io = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<Optional<String>>> loads = uris.stream().map(uri -> io.submit(() -> contentOf(current, uri))).toList();
+      for (int i = 0; i < uris.size(); i++) {
+        String uri = uris.get(i);
+        try {
+          loads.get(i).get().ifPresent(c -> out.put(uri, c));
+        } catch (ExecutionException e) {
+          logger.debug("Failed to load content of {}", uri, e.getCause());
+        }
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return out;
+  }
 
-      if (original == null) return Optional.empty();
-
-      // Check in-memory bucket for mem:// originals
-      if (original.startsWith("mem://")) {
-        return Optional.ofNullable(inMemoryContent.get(original));
+  private Optional<String> contentOf(Snapshot current, String resourceUri) {
+    if (resourceUri == null) return Optional.empty();
+    try {
+      KnowledgeBaseEntry entry = current.entries().get(resourceUri);
+      if (entry != null) {
+        return loadContent(entry);
       }
+      // If the given URI is abstract, resolve to original
+      String original = resourceUri.startsWith("kb://") ? resolveOriginalFromAbstract(resourceUri).orElse(null) : null;
+      if (original == null) return Optional.empty();
 
       // Otherwise treat as file:// URI
       URI uri = new URI(original);
@@ -205,7 +472,191 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
    * @return true if restored from cache; false if freshly built
    */
   @Override
-  public boolean loadedFromCache() { return loadedFromCache; }
+  public boolean loadedFromCache() { return snapshot.loadedFromCache(); }
+
+  /**
+   * Version of the published knowledge base: 0 before the first initialization, then incremented by every
+   * initialization or refresh that changes its content.
+   */
+  @Override
+  public long version() { return snapshot.version(); }
+
+  /** Hit, miss and eviction counters of the content cache. */
+  ContentCache.Stats contentCacheStats() { return contentCache.stats(); }
+
+  private Optional<String> loadContent(KnowledgeBaseEntry entry) {
+    if (entry.content() != null) return Optional.of(entry.content());
+    if (entry.location() == null) return Optional.empty();
+    return Optional.ofNullable(contentCache.get(entry.location(), this::readLocation));
+  }
+
+  /** Reads an entry content without caching it (index builds walk every entry once). */
+  private String readContent(KnowledgeBaseEntry entry) {
+    if (entry.content() != null) return entry.content();
+    return entry.location() == null ? null : readLocation(entry.location());
+  }
+
+  private String readLocation(String location) {
+    if (location.startsWith(ContentStore.SCHEME)) return contentStore().read(location).orElse(null);
+    try {
+      URI uri = new URI(location);
+      if (!"file".equalsIgnoreCase(uri.getScheme())) return null;
+      Path p = Path.of(uri);
+      return Files.isRegularFile(p) ? Files.readString(p) : null;
+    } catch (URISyntaxException | IOException | RuntimeException e) {
+      logger.debug("Failed to read content from {}", location, e);
+      return null;
+    }
+  }
+
+  private ContentStore contentStore() {
+    return new ContentStore(stateFile.resolveSibling("knowledge-base-content"));
+  }
+
+  private Bm25Index restoreSearchIndex(KnowledgeBaseState state, Catalog catalog) {
+    if (state.searchIndex() != null) {
+      try {
+        return Bm25Index.restore(state.searchIndex());
+      } catch (IllegalArgumentException e) {
+        logger.warn("Persisted search index is invalid, rebuilding it: {}", e.getMessage());
+      }
+    }
+    return Bm25Index.build(catalog.entries.values(), this::readContent);
+  }
+
+  /**
+   * Search index of the staged catalog: the index of the previous content with only {@code dirtyResources}
+   * re-indexed, so unchanged contents are not read; a full build when there is no usable previous index.
+   */
+  private Bm25Index searchIndexFor(KnowledgeBaseState previous, Catalog next, Set<String> dirtyResources,
+                                   Function<KnowledgeBaseEntry, String> contents) {
+    Bm25Index base = previousSearchIndex(previous);
+    if (base == null) return Bm25Index.build(next.entries.values(), contents);
+    List<KnowledgeBaseEntry> added = new ArrayList<>();
+    for (String resource : dirtyResources) {
+      KnowledgeBaseEntry e = next.entries.get(resource);
+      if (e != null) added.add(e);
+    }
+    return base.update(dirtyResources, added, contents);
+  }
+
+  /** The search index of the previous state: the published one when it is that state, else the persisted one. */
+  private Bm25Index previousSearchIndex(KnowledgeBaseState previous) {
+    if (previous == null) return null;
+    Snapshot published = snapshot;
+    if (previous.signature() != null && previous.signature().equals(published.signature())) return published.searchIndex();
+    if (previous.searchIndex() == null) return null;
+    try {
+      return Bm25Index.restore(previous.searchIndex());
+    } catch (IllegalArgumentException e) {
+      logger.warn("Persisted search index is invalid, rebuilding it: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private Path vectorIndexFile() {
+    return stateFile.resolveSibling("knowledge-base-vectors.bin");
+  }
+
+  private String embeddingModelId() {
+    return embeddingModel.getClass().getName();
+  }
+
+  /**
+   * Loads the persisted vector index when it matches the current content and chunk size; otherwise rebuilds it,
+   * re-embedding only the chunks of {@code dirtyResources} (and chunks that did not exist before, e.g. after a
+   * chunk size change).
+   */
+  private VectorIndex loadOrBuildVectorIndex(Catalog catalog, String signature, Set<String> dirtyResources,
+                                             Function<KnowledgeBaseEntry, String> contents) {
+    Path file = vectorIndexFile();
+    VectorIndex previous = null;
+    try {
+      previous = VectorIndex.load(file).orElse(null);
+      if (previous != null && previous.matches(embeddingModelId(), signature, chunker.maxChars(), embeddingModel.dimension())) {
+        logger.info("Loaded {} chunk embeddings from {}", previous.size(), file);
+        return previous;
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to load vector index from {}, re-embedding: {}", file, e.getMessage());
+    }
+    boolean reusable = previous != null && previous.modelId().equals(embeddingModelId())
+        && previous.dimension() == embeddingModel.dimension();
+    VectorIndex built = buildVectorIndex(catalog, signature, reusable ? previous : null, dirtyResources, contents);
+    saveVectorIndex(built);
+    return built;
+  }
+
+  private VectorIndex buildVectorIndex(Catalog catalog, String signature, VectorIndex previous, Set<String> dirtyResources,
+                                       Function<KnowledgeBaseEntry, String> contents) {
+    int dimension = embeddingModel.dimension();
+    // Rows of unchanged resources; split alike they are reused by resource, without reading the content again
+    Map<KnowledgeBaseChunk, Integer> previousRows = new HashMap<>();
+    Map<String, List<KnowledgeBaseChunk>> previousChunks = new HashMap<>();
+    boolean sameChunking = previous != null && previous.chunkSize() == chunker.maxChars();
+    if (previous != null) {
+      List<KnowledgeBaseChunk> old = previous.chunks();
+      for (int i = 0; i < old.size(); i++) {
+        KnowledgeBaseChunk c = old.get(i);
+        if (dirtyResources.contains(c.resource())) continue;
+        previousRows.put(c, i);
+        if (sameChunking) previousChunks.computeIfAbsent(c.resource(), r -> new ArrayList<>()).add(c);
+      }
+    }
+
+    List<KnowledgeBaseChunk> chunks = new ArrayList<>();
+    List<Integer> toEmbed = new ArrayList<>();
+    List<TextSegment> segments = new ArrayList<>();
+    for (KnowledgeBaseEntry e : catalog.entries.values()) {
+      List<KnowledgeBaseChunk> reused = previousChunks.get(e.resource());
+      if (reused != null) {
+        chunks.addAll(reused);
+        continue;
+      }
+      String content = contents.apply(e);
+      for (KnowledgeBaseChunk c : chunker.split(e.resource(), content)) {
+        if (!previousRows.containsKey(c)) {
+          toEmbed.add(chunks.size());
+          segments.add(TextSegment.from(c.text(content)));
+        }
+        chunks.add(c);
+      }
+    }
+    float[] arena = new float[chunks.size() * dimension];
+    for (int row = 0; row < chunks.size(); row++) {
+      Integer old = previousRows.get(chunks.get(row));
+      if (old != null) previous.copyVector(old, arena, row * dimension);
+    }
+    for (int from = 0; from < segments.size(); from += EMBEDDING_BATCH_SIZE) {
+      List<TextSegment> batch = segments.subList(from, Math.min(from + EMBEDDING_BATCH_SIZE, segments.size()));
+      List<Embedding> embeddings = embeddingModel.embedAll(batch).content();
+      for (int i = 0; i < batch.size(); i++) {
+        float[] v = normalize(embeddings.get(i).vector());
+        if (v.length != dimension) {
+          throw new IllegalStateException("Embedding model returned dimension " + v.length + ", expected " + dimension);
+        }
+        System.arraycopy(v, 0, arena, toEmbed.get(from + i) * dimension, dimension);
+      }
+    }
+    logger.info("Embedded {} of {} chunks from {} knowledge base entries", segments.size(), chunks.size(), catalog.entries.size());
+    return new VectorIndex(embeddingModelId(), signature, chunker.maxChars(), dimension, chunks, arena);
+  }
+
+  private void saveVectorIndex(VectorIndex index) {
+    try {
+      index.save(vectorIndexFile());
+    } catch (IOException e) { logger.warn("Failed to persist vector index to {}", vectorIndexFile(), e); }
+  }
+
+  private static float[] normalize(float[] v) {
+    double norm = 0;
+    for (float x : v) norm += x * x;
+    if (norm == 0 || Math.abs(norm - 1) < 1e-6) return v;
+    float[] out = new float[v.length];
+    float inv = (float) (1 / Math.sqrt(norm));
+    for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+    return out;
+  }
 
   private Optional<String> resolveOriginalFromAbstract(String abstractUri) {
     if (abstractUri == null || !abstractUri.startsWith("kb://")) return Optional.empty();
@@ -215,6 +666,7 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     String type = rest.substring(0, idx);
     String path = rest.substring(idx + 1);
 
+    Path foundationRoot = snapshot.foundationRoot();
     try {
       switch (type) {
         case "docs" -> {
@@ -249,13 +701,71 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     }
   }
 
-  private void ingestFoundation(Path root) {
+  /** A file under the foundation root that produces knowledge base entries. */
+  private record FoundationFile(Path path, String type, String relativePath) {
+    String key() { return type + "/" + relativePath; }
+  }
+
+  /** An entry produced by ingestion (without inline content), with the content read for it. */
+  private record StagedEntry(KnowledgeBaseEntry entry, String content) {}
+
+  /** Result of ingesting one file: SDK namespace and location (OpenAPI specs only) and the entries produced. */
+  private record Ingested(String namespace, String sdkLocation, List<StagedEntry> entries) {
+    List<String> resources() {
+      return entries.stream().map(e -> e.entry().resource()).toList();
+    }
+  }
+
+  /** An entry read (or fetched) by ingestion whose hint has not been generated yet. */
+  private record PendingEntry(String resource, String name, String content, String location) {}
+
+  /** Entries produced by one file before hint generation. */
+  private record PendingFile(String namespace, String sdkLocation, List<PendingEntry> entries) {}
+
+  /** SDK generated by the Typescript runtime for one spec, with its markdown docs. */
+  private record CompiledSdk(UploadResult upload, DocsResponse docs) {}
+
+  /** The executors of one ingestion run. */
+  private record Stages(ExecutorService io, ExecutorService hints, ExecutorService sdks) {}
+
+  /**
+   * An immutable, published knowledge base: entries, SDKs and the indexes built over them. Readers take the current
+   * snapshot once per call, so they never lock and never mix the indexes of one version with the entries of another.
+   *
+   * @param version         incremented whenever the content changes
+   * @param signature       content signature of the foundation it was built from; null before the first initialization
+   * @param foundationRoot  absolute foundation directory it was built from; null before the first initialization
+   * @param loadedFromCache whether the entries were restored from the persisted state unchanged
+   */
+  private record Snapshot(long version, String signature, NavigableMap<String, KnowledgeBaseEntry> entries,
+                          Map<String, String> services, Bm25Index searchIndex, VectorIndex vectorIndex,
+                          Path foundationRoot, boolean loadedFromCache) {}
+
+  /**
+   * The knowledge base contents staged by {@link #initialize(Path)} while the published snapshot keeps serving reads.
+   */
+  private static final class Catalog {
+    // Entries are keyed by abstracted kb:// URIs, kept sorted so prefix listing is a range query
+    final ConcurrentSkipListMap<String, KnowledgeBaseEntry> entries = new ConcurrentSkipListMap<>();
+    final Map<String, String> compiledSDKs = new ConcurrentHashMap<>();
+
+    void add(Ingested ingested) {
+      if (ingested.namespace() != null) compiledSDKs.put(ingested.namespace(), ingested.sdkLocation());
+      for (StagedEntry e : ingested.entries()) {
+        entries.put(e.entry().resource(), e.entry());
+      }
+    }
+  }
+
+  /** Lists the ingestible foundation files in a stable order: docs, feedback, tests, then OpenAPI specs. */
+  private static List<FoundationFile> scanFoundation(Path root) {
+    List<FoundationFile> files = new ArrayList<>();
     // docs/*.md
     Path docsDir = root.resolve("docs");
     if (Files.isDirectory(docsDir)) {
       try (var stream = Files.list(docsDir)) {
-        stream.filter(p -> Files.isRegularFile(p) && hasExtension(p, ".md", ".mdx"))
-            .forEach(p -> addFoundationFile(p, "docs", p.getFileName().toString()));
+        stream.filter(p -> Files.isRegularFile(p) && hasExtension(p, ".md", ".mdx")).sorted()
+            .forEach(p -> files.add(new FoundationFile(p, "docs", p.getFileName().toString())));
       } catch (IOException e) { logger.debug("Failed to list docs directory {}", docsDir, e); }
     }
 
@@ -263,8 +773,8 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     Path feedbackDir = root.resolve("feedback");
     if (Files.isDirectory(feedbackDir)) {
       try (var stream = Files.list(feedbackDir)) {
-        stream.filter(Files::isRegularFile)
-            .forEach(p -> addFoundationFile(p, "feedback", p.getFileName().toString()));
+        stream.filter(Files::isRegularFile).sorted()
+            .forEach(p -> files.add(new FoundationFile(p, "feedback", p.getFileName().toString())));
       } catch (IOException e) { logger.debug("Failed to list feedback directory {}", feedbackDir, e); }
     }
 
@@ -272,11 +782,8 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     Path testsDir = root.resolve("tests");
     if (Files.isDirectory(testsDir)) {
       try (var stream = Files.walk(testsDir)) {
-        stream.filter(Files::isRegularFile)
-            .forEach(p -> {
-              Path rel = testsDir.relativize(p);
-              addFoundationFile(p, "tests", rel.toString().replace('\\','/'));
-            });
+        stream.filter(Files::isRegularFile).sorted()
+            .forEach(p -> files.add(new FoundationFile(p, "tests", testsDir.relativize(p).toString().replace('\\','/'))));
       } catch (IOException e) { logger.debug("Failed to walk tests directory {}", testsDir, e); }
     }
 
@@ -284,81 +791,214 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     Path specsDir = root.resolve("openapi");
     if (Files.isDirectory(specsDir)) {
       try (var stream = Files.list(specsDir)) {
-        AtomicInteger fileIndex = new AtomicInteger(0);
-        stream.filter(p -> Files.isRegularFile(p) && hasExtension(p, ".yaml", ".yml", ".json"))
-            .forEach((p) -> {
-              this.processOpenApiSpec(fileIndex.incrementAndGet(), p);
-            });
+        stream.filter(p -> Files.isRegularFile(p) && hasExtension(p, ".yaml", ".yml", ".json")).sorted()
+            .forEach(p -> files.add(new FoundationFile(p, "openapi", p.getFileName().toString())));
       } catch (IOException e) { logger.debug("Failed to list specs directory {}", specsDir, e); }
     }
+    return files;
   }
 
-  private void addFoundationFile(Path file, String type, String relativePath) {
-    String original = toFileUri(file);
-    String abstractUri = "kb://" + type + "/" + relativePath;
-    String content = readSafe(file);
-    String hint = generateHint(file.getFileName().toString(), content);
-    entries.put(abstractUri, new KnowledgeBaseEntry(abstractUri, hint, content));
-    abstractToOriginal.put(abstractUri, original);
-  }
+  /**
+   * Ingests files through a staged pipeline: contents are read in parallel on virtual threads, OpenAPI specs are
+   * uploaded and their docs fetched on a pool bounded by {@code sdkParallelism}, and hints are generated in
+   * batches on a pool bounded by {@code hintParallelism}. Foundation files are hinted together once read; the
+   * docs of each spec are hinted as soon as they are fetched. When {@code cleanupSdks} is set, the first spec is
+   * uploaded with cleanup and every other upload waits for it, since cleanup wipes the SDKs already held by the
+   * runtime.
+   *
+   * @return one result per file, in the order of {@code files}
+   */
+  private List<Ingested> ingestAll(List<FoundationFile> files, boolean cleanupSdks) {
+    if (files.isEmpty()) return List.of();
+    long started = System.nanoTime();
+    try (ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+         ExecutorService hints = Executors.newFixedThreadPool(hintParallelism, Thread.ofVirtual().name("kb-hint-", 0).factory());
+         ExecutorService sdks = Executors.newFixedThreadPool(sdkParallelism, Thread.ofVirtual().name("kb-sdk-", 0).factory())) {
+      Stages stages = new Stages(io, hints, sdks);
+      CompletableFuture<?> uploadBarrier = CompletableFuture.completedFuture(null);
+      List<CompletableFuture<PendingFile>> pending = new ArrayList<>(files.size());
+      List<CompletableFuture<PendingFile>> plainFiles = new ArrayList<>();
+      for (FoundationFile f : files) {
+        if ("openapi".equals(f.type())) {
+          boolean cleanup = cleanupSdks;
+          cleanupSdks = false;
+          CompletableFuture<CompiledSdk> sdk = uploadBarrier.handle((r, e) -> null)
+              .thenApplyAsync(ignored -> compileSdk(f.path(), cleanup), sdks);
+          if (cleanup) uploadBarrier = sdk;
+          pending.add(readSpec(f.path(), sdk, stages));
+        } else {
+          CompletableFuture<PendingFile> read = readFile(f.path(), f.type(), f.relativePath(), stages);
+          pending.add(read);
+          plainFiles.add(read);
+        }
+      }
 
-  private void processOpenApiSpec(Integer fileIndex, Path spec) {
-    String outDir = "openapi_" + safeSdkName(spec.getFileName().toString());
-    try {
-      UploadResult up = tsRuntimeClient.uploadOpenapi(spec, outDir, fileIndex == 1)
-          .onErrorResume(e -> {
-            logger.error("Failed to upload OpenAPI spec to Typescript runtime", e);
-            return Mono.empty();
-          }).blockOptional().orElse(null);
-      if (up == null || up.sdk() == null || up.sdk().namespace() == null) {
-        throw new RuntimeException("Failed to upload OpenAPI spec to Typescript runtime");
+      CompletableFuture<Map<String, String>> plainHints = CompletableFuture.allOf(plainFiles.toArray(CompletableFuture[]::new))
+          .thenCompose(v -> generateHints(plainFiles.stream().flatMap(p -> p.join().entries().stream()).toList(), stages));
+      List<CompletableFuture<Ingested>> results = new ArrayList<>(files.size());
+      for (int i = 0; i < files.size(); i++) {
+        CompletableFuture<PendingFile> p = pending.get(i);
+        CompletableFuture<Map<String, String>> fileHints = "openapi".equals(files.get(i).type())
+            ? p.thenCompose(pf -> generateHints(pf.entries(), stages))
+            : plainHints;
+        results.add(p.thenCombine(fileHints, this::withHints));
       }
+      List<Ingested> out = results.stream().map(CompletableFuture::join).toList();
+      logger.info("Ingested {} foundation file(s) in {} ms (hintParallelism={}, sdkParallelism={})",
+          files.size(), (System.nanoTime() - started) / 1_000_000, hintParallelism, sdkParallelism);
+      return out;
+    }
+  }
 
-      compiledSDKs.put(up.sdk().namespace(), up.sdk().location());
+  private CompletableFuture<PendingFile> readFile(Path file, String type, String relativePath, Stages stages) {
+    String abstractUri = "kb://" + type + "/" + relativePath;
+    return CompletableFuture.supplyAsync(() -> new PendingFile(null, null, List.of(new PendingEntry(
+        abstractUri, file.getFileName().toString(), readSafe(file), toFileUri(file)))), stages.io());
+  }
 
-      DocsResponse docs = tsRuntimeClient.fetchDocs(up.sdk().namespace(), false).onErrorResume(e -> Mono.empty()).blockOptional().orElse(null);
-      if (docs != null && docs.files() != null && !docs.files().isEmpty()) {
-        String baseDisk = docs.diskLocation();
+  private CompletableFuture<PendingFile> readSpec(Path spec, CompletableFuture<CompiledSdk> sdk, Stages stages) {
+    return sdk.thenApply(compiled -> {
+      UploadResult up = compiled.upload();
+      DocsResponse docs = compiled.docs();
+      List<PendingEntry> docEntries = new ArrayList<>();
+      if (docs != null && docs.files() != null) {
+        String namespace = docs.namespace();
+        ContentStore store = contentStore();
         for (DocFile f : docs.files()) {
           String content = Optional.ofNullable(f.markdown()).orElse("");
-          String namespace = docs.namespace();
-          String original;
-          if (baseDisk != null && !baseDisk.isBlank()) {
-            original = toFileUri(Path.of(baseDisk).resolve(f.path()));
-          } else {
-            // Virtual in-memory resource
-            original = "mem://openapi/" + namespace + "/" + f.path();
-            inMemoryContent.put(original, content);
+          // The docs live in the Typescript runtime, which may not share our filesystem: keep a copy
+          String location;
+          try {
+            location = store.put(content);
+          } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store docs of " + namespace, e);
           }
           String abstractUri = "kb://openapi/" + namespace + "/docs/" + f.path();
-          String hint = generateHint(f.path(), content);
-          entries.put(abstractUri, new KnowledgeBaseEntry(abstractUri, hint, content));
-          abstractToOriginal.put(abstractUri, original);
+          docEntries.add(new PendingEntry(abstractUri, f.path(), content, location));
         }
       }
-    } catch (Exception e) {
+      return new PendingFile(up.sdk().namespace(), up.sdk().location(), docEntries);
+    }).exceptionallyCompose(e -> {
       // On any error, at least index the raw spec file under openapi type
       logger.warn("Failed to process OpenAPI spec {}, indexing raw file instead", spec, e);
-      addFoundationFile(spec, "openapi", spec.getFileName().toString());
+      return readFile(spec, "openapi", spec.getFileName().toString(), stages);
+    });
+  }
+
+  /**
+   * Generates AI hints for the entries, one batch per task on the hint pool. Resolves to the raw hints keyed by
+   * resource; entries without a hint get a heuristic one in {@link #withHints}. Empty when AI hints are disabled.
+   */
+  private CompletableFuture<Map<String, String>> generateHints(List<PendingEntry> entries, Stages stages) {
+    if (!aiHintGenerationEnabled || entries.isEmpty()) return CompletableFuture.completedFuture(Map.of());
+    HintCache cache = hintCache();
+    Map<String, String> cached = new HashMap<>();
+    List<BatchHintGenerator.Request> misses = new ArrayList<>();
+    for (PendingEntry e : entries) {
+      Optional<String> hint = cache.get(e.name(), e.content());
+      if (hint.isPresent()) cached.put(e.resource(), hint.get());
+      else misses.add(new BatchHintGenerator.Request(e.resource(), e.name(), e.content()));
     }
+    if (misses.isEmpty()) return CompletableFuture.completedFuture(cached);
+
+    List<CompletableFuture<Map<String, String>>> batches = hintGenerator.batches(misses).stream()
+        .map(batch -> CompletableFuture.supplyAsync(() -> {
+          Map<String, String> generated = hintGenerator.generate(batch);
+          for (BatchHintGenerator.Request r : batch) {
+            String hint = generated.get(r.id());
+            if (hint != null) cache.put(r.name(), r.content(), hint);
+          }
+          return generated;
+        }, stages.hints()))
+        .toList();
+    return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(v -> {
+      Map<String, String> hints = new HashMap<>(cached);
+      batches.forEach(b -> hints.putAll(b.join()));
+      logger.debug("Hints: {} from cache, {} generated", cached.size(), hints.size() - cached.size());
+      return hints;
+    });
   }
 
-  private String generateHint(String name, String content) {
-    // Prefer a short LLM-produced hint, fallback to heuristic first lines
-    try {
-      String txt;
-      if(aiHintGenerationEnabled) {
-        String prompt = "Given the following file name and content, produce a single concise sentence (max 30 words) that describes what information this document contains, focusing on how an engineer would use it.\n" +
-            "File: " + name + "\n\n" +
-            "Content (first 800 chars):\n" + truncate(content, 800);
-        InferenceResponse resp = inferenceService.sendRequest(prompt, List.of());
-        txt = Optional.ofNullable(resp).map(InferenceResponse::content).orElse("");
-      } else {
-        txt = content.substring(0, Math.min(content.length(), hintContentLimit)) + "...";
+  private HintCache hintCache() {
+    Path file = stateFile.resolveSibling("hint-cache.jsonl");
+    HintCache cache = hintCache;
+    if (cache == null || !cache.file().equals(file)) {
+      synchronized (this) {
+        cache = hintCache;
+        if (cache == null || !cache.file().equals(file)) {
+          cache = HintCache.open(file, inferenceService.modelId(), hintContentLimit);
+          hintCache = cache;
+        }
       }
-      txt = sanitizeHint(txt, hintContentLimit);
-      if (!txt.isBlank()) return txt;
-    } catch (Exception ignored) { }
+    }
+    return cache;
+  }
+
+  private Ingested withHints(PendingFile file, Map<String, String> hints) {
+    List<StagedEntry> staged = new ArrayList<>(file.entries().size());
+    for (PendingEntry e : file.entries()) {
+      String hint = finishHint(e.name(), e.content(), hints.get(e.resource()));
+      staged.add(new StagedEntry(new KnowledgeBaseEntry(e.resource(), hint, null, e.location()), e.content()));
+    }
+    return new Ingested(file.namespace(), file.sdkLocation(), staged);
+  }
+
+  /** Uploads a spec to the Typescript runtime and fetches the docs of the generated SDK (blocking). */
+  private CompiledSdk compileSdk(Path spec, boolean cleanup) {
+    String outDir = "openapi_" + safeSdkName(spec.getFileName().toString());
+    UploadResult up = tsRuntimeClient.uploadOpenapi(spec, outDir, cleanup)
+        .onErrorResume(e -> {
+          logger.error("Failed to upload OpenAPI spec to Typescript runtime", e);
+          return Mono.empty();
+        }).blockOptional().orElse(null);
+    if (up == null || up.sdk() == null || up.sdk().namespace() == null) {
+      throw new IllegalStateException("Failed to upload OpenAPI spec to Typescript runtime");
+    }
+    DocsResponse docs = tsRuntimeClient.fetchDocs(up.sdk().namespace(), false).onErrorResume(e -> Mono.empty()).blockOptional().orElse(null);
+    return new CompiledSdk(up, docs);
+  }
+
+  /**
+   * Fingerprints a file. The content hash of {@code previous} is reused when size and mtime are unchanged, so
+   * untouched files are not read.
+   *
+   * @return the fingerprint carrying the previous namespace and resources, or empty if the file is unreadable
+   */
+  private static Optional<KnowledgeBaseSource> fingerprint(FoundationFile file, KnowledgeBaseSource previous) {
+    try {
+      long size = Files.size(file.path());
+      long mtime = Files.getLastModifiedTime(file.path()).toMillis();
+      long crc = (previous != null && previous.size() == size && previous.lastModified() == mtime)
+          ? previous.crc32c()
+          : crc32c(file.path());
+      return Optional.of(new KnowledgeBaseSource(file.key(), size, mtime, crc,
+          previous == null ? null : previous.namespace(),
+          previous == null ? List.of() : previous.resources()));
+    } catch (IOException e) {
+      logger.warn("Failed to fingerprint {}, skipping it", file.path(), e);
+      return Optional.empty();
+    }
+  }
+
+  private static long crc32c(Path file) throws IOException {
+    CRC32C crc = new CRC32C();
+    byte[] buf = new byte[64 * 1024];
+    try (var in = Files.newInputStream(file)) {
+      for (int n; (n = in.read(buf)) > 0; ) crc.update(buf, 0, n);
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Final hint of an entry: the AI hint when enabled and available, otherwise the first characters of the content,
+   * falling back to its first non-blank line.
+   */
+  private String finishHint(String name, String content, String aiHint) {
+    String txt = aiHintGenerationEnabled
+        ? aiHint
+        : content.substring(0, Math.min(content.length(), hintContentLimit)) + "...";
+    txt = sanitizeHint(txt, hintContentLimit);
+    if (!txt.isBlank()) return txt;
     // Fallback
     String first = Arrays.stream(content.split("\n"))
         .map(String::trim)
@@ -375,13 +1015,6 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     return s;
   }
 
-  private static String truncate(String s, int max) {
-    if (s == null) return "";
-    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
-    if (bytes.length <= max) return s;
-    return new String(Arrays.copyOf(bytes, max), StandardCharsets.UTF_8);
-  }
-
   private static boolean hasExtension(Path p, String... exts) {
     String n = p.getFileName().toString().toLowerCase(Locale.ROOT);
     for (String e : exts) if (n.endsWith(e)) return true;
@@ -400,30 +1033,11 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     return (i > 0) ? name.substring(0, i) : name;
   }
 
-  private static String computeSignature(Path root) {
-    // Simple signature: concatenate file names + lastModified for known subtrees
-    List<Path> toScan = new ArrayList<>();
-    toScan.add(root.resolve("docs"));
-    toScan.add(root.resolve("openapi"));
-    toScan.add(root.resolve("agent.yaml"));
-    toScan.add(root.resolve("feedback"));
-    StringBuilder sb = new StringBuilder();
-    for (Path dir : toScan) {
-      if (Files.isDirectory(dir)) {
-        try (var walk = Files.walk(dir)) {
-          walk.filter(Files::isRegularFile).sorted()
-              .forEach(f -> {
-                try {
-                  sb.append(f.toAbsolutePath()).append('|').append(Files.getLastModifiedTime(f).toMillis()).append('\n');
-                } catch (IOException e) { logger.debug("Failed to read lastModifiedTime for {}", f, e); }
-              });
-        } catch (IOException e) { logger.debug("Failed to walk directory {}", dir, e); }
-      } else if (Files.isRegularFile(dir)) {
-        try {
-          sb.append(dir.toAbsolutePath()).append('|').append(Files.getLastModifiedTime(dir).toMillis()).append('\n');
-        } catch (IOException e) { logger.debug("Failed to read lastModifiedTime for {}", dir, e); }
-      }
-    }
-    return Integer.toHexString(sb.toString().hashCode());
+  /** Signature of the whole foundation content, derived from the per-file fingerprints. */
+  private static String computeSignature(List<KnowledgeBaseSource> sources) {
+    CRC32C crc = new CRC32C();
+    sources.stream().sorted(Comparator.comparing(KnowledgeBaseSource::path)).forEach(src ->
+        crc.update((src.path() + '|' + src.size() + '|' + src.crc32c() + '\n').getBytes(StandardCharsets.UTF_8)));
+    return Long.toHexString(crc.getValue()) + "-" + sources.size();
   }
 }
@@ -0,0 +1,46 @@
+package com.gentorox.services.knowledgebase;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Fingerprint of one foundation file and the knowledge base entries produced from it, so a restart only
+ * re-processes files that were added, changed or removed.
+ *
+ * @param path         path relative to the foundation root, e.g. "docs/Agent.md" or "openapi/sales.yaml"
+ * @param size         file size in bytes
+ * @param lastModified last modification time in epoch millis
+ * @param crc32c       CRC32C of the file content; authoritative when size or mtime differ
+ * @param namespace    SDK namespace generated from the file (OpenAPI specs only), otherwise null
+ * @param resources    kb:// URIs of the entries produced from the file
+ */
+public record KnowledgeBaseSource(
+    String path,
+    long size,
+    long lastModified,
+    long crc32c,
+    String namespace,
+    List<String> resources
+) {
+  @JsonCreator
+  public KnowledgeBaseSource(@JsonProperty("path") String path,
+                             @JsonProperty("size") long size,
+                             @JsonProperty("lastModified") long lastModified,
+                             @JsonProperty("crc32c") long crc32c,
+                             @JsonProperty("namespace") String namespace,
+                             @JsonProperty("resources") List<String> resources) {
+    this.path = path;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.crc32c = crc32c;
+    this.namespace = namespace;
+    this.resources = resources == null ? List.of() : List.copyOf(resources);
+  }
+
+  /** Whether the file content is the same as when this fingerprint was taken. */
+  boolean sameContent(long size, long crc32c) {
+    return this.size == size && this.crc32c == crc32c;
+  }
+}
@@ -11,18 +11,31 @@ import java.util.Map;
  *
  * @param signature content signature used to detect changes
  * @param entries entries included in the knowledge base
+ * @param services compiled SDK namespaces and their locations
+ * @param searchIndex full-text index over the entries; null in states written before it existed
+ * @param sources per-file fingerprints used for incremental re-ingestion; null in states written before they existed
  */
 public record KnowledgeBaseState(
     String signature,
     List<KnowledgeBaseEntry> entries,
-    Map<String, String> services
+    Map<String, String> services,
+    Bm25Index.Snapshot searchIndex,
+    List<KnowledgeBaseSource> sources
 ) {
   @JsonCreator
   public KnowledgeBaseState(@JsonProperty("signature") String signature,
                             @JsonProperty("entries") List<KnowledgeBaseEntry> entries,
-                            @JsonProperty("services") Map<String, String> services) {
+                            @JsonProperty("services") Map<String, String> services,
+                            @JsonProperty("searchIndex") Bm25Index.Snapshot searchIndex,
+                            @JsonProperty("sources") List<KnowledgeBaseSource> sources) {
     this.signature = signature;
     this.entries = entries;
     this.services = services;
+    this.searchIndex = searchIndex;
+    this.sources = sources;
+  }
+
+  public KnowledgeBaseState(String signature, List<KnowledgeBaseEntry> entries, Map<String, String> services) {
+    this(signature, entries, services, null, null);
   }
 }
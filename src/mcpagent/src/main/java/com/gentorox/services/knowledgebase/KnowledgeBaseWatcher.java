@@ -0,0 +1,151 @@
+package com.gentorox.services.knowledgebase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the knowledge base when files under the foundation's docs/, feedback/, tests/ or openapi/ trees change.
+ *
+ * Events are debounced: a refresh starts once no event has been seen for the debounce period, so an editor save
+ * or a bulk copy results in a single refresh. A refresh is a plain {@link KnowledgeBaseService#initialize(Path)},
+ * which re-ingests only the files whose fingerprint changed and publishes the new knowledge base atomically;
+ * in-flight requests keep using the previous one.
+ *
+ * The watch runs on its own virtual thread until {@link #close()}.
+ */
+public class KnowledgeBaseWatcher implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseWatcher.class);
+  static final List<String> WATCHED_DIRS = List.of("docs", "feedback", "tests", "openapi");
+
+  private final KnowledgeBaseService kbService;
+  private final Path foundationRoot;
+  private final Duration debounce;
+  private final AtomicLong refreshes = new AtomicLong();
+  private WatchService watchService;
+  private Thread thread;
+
+  /**
+   * @param kbService      knowledge base to refresh
+   * @param foundationRoot foundation root passed to {@link KnowledgeBaseService#initialize(Path)}
+   * @param debounce       quiet period after the last event before refreshing
+   */
+  public KnowledgeBaseWatcher(KnowledgeBaseService kbService, Path foundationRoot, Duration debounce) {
+    this.kbService = Objects.requireNonNull(kbService, "kbService");
+    this.foundationRoot = Objects.requireNonNull(foundationRoot, "foundationRoot").toAbsolutePath().normalize();
+    this.debounce = Objects.requireNonNull(debounce, "debounce");
+  }
+
+  /**
+   * Starts watching. The foundation root is watched too, so watched directories created later are picked up.
+   *
+   * @throws IOException if the watch service cannot be created
+   */
+  public synchronized void start() throws IOException {
+    if (thread != null) return;
+    watchService = FileSystems.getDefault().newWatchService();
+    register(foundationRoot);
+    for (String dir : WATCHED_DIRS) registerTree(foundationRoot.resolve(dir));
+    thread = Thread.ofVirtual().name("kb-watcher").start(this::run);
+    logger.info("Watching {} for knowledge base changes (debounce {} ms)", foundationRoot, debounce.toMillis());
+  }
+
+  /** Number of refreshes triggered so far. */
+  public long refreshes() {
+    return refreshes.get();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (thread == null) return;
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      logger.debug("Failed to close watch service", e);
+    }
+    thread.interrupt();
+    thread = null;
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        // Block for the first event, then wait until the foundation has been quiet for the debounce period
+        boolean relevant = drain(watchService.take());
+        WatchKey key;
+        while ((key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+          relevant |= drain(key);
+        }
+        if (relevant) refresh();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      logger.debug("Knowledge base watcher stopped");
+    }
+  }
+
+  private void refresh() {
+    long started = System.nanoTime();
+    try {
+      kbService.initialize(foundationRoot);
+      refreshes.incrementAndGet();
+      logger.info("Refreshed knowledge base after foundation change in {} ms", (System.nanoTime() - started) / 1_000_000);
+    } catch (RuntimeException e) {
+      logger.warn("Failed to refresh knowledge base after foundation change", e);
+    }
+  }
+
+  /** Consumes the events of a key; returns whether any of them concerns a watched tree. */
+  private boolean drain(WatchKey key) {
+    Path dir = (Path) key.watchable();
+    boolean relevant = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        relevant = true;
+        continue;
+      }
+      Path child = dir.resolve((Path) event.context());
+      if (dir.equals(foundationRoot)) {
+        String name = child.getFileName().toString();
+        if (!WATCHED_DIRS.contains(name)) continue;
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) registerTree(child);
+      } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+        registerTree(child);
+      }
+      relevant = true;
+    }
+    key.reset();
+    return relevant;
+  }
+
+  private void registerTree(Path dir) {
+    if (!Files.isDirectory(dir)) return;
+    try (var stream = Files.walk(dir)) {
+      stream.filter(Files::isDirectory).forEach(this::register);
+    } catch (IOException e) {
+      logger.warn("Failed to watch {}", dir, e);
+    }
+  }
+
+  private void register(Path dir) {
+    try {
+      dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+          StandardWatchEventKinds.ENTRY_DELETE);
+    } catch (IOException | ClosedWatchServiceException e) {
+      logger.debug("Failed to watch {}", dir, e);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package com.gentorox.services.knowledgebase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Crash-safe writes and backup handling shared by the {@link KnowledgeBasePersistence} implementations.
+ *
+ * A save writes a temporary file, forces it to disk and renames it over the target, so the state file is
+ * always either the previous or the new version. Before the rename, the current file is kept as
+ * {@code <name>.bak.<millis>}; only the newest {@code retention} backups are kept. A load that fails to parse the
+ * state falls back to the newest backup that parses.
+ */
+final class StateFiles {
+  private static final Logger logger = LoggerFactory.getLogger(StateFiles.class);
+  private static final String BACKUP_INFIX = ".bak.";
+
+  private StateFiles() {}
+
+  /** Writes the content of a state file to a stream. */
+  @FunctionalInterface
+  interface Content {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  /** Reads a state file. */
+  @FunctionalInterface
+  interface Reader<T> {
+    Optional<T> read(Path file) throws IOException;
+  }
+
+  /**
+   * Replaces {@code file} with {@code content} atomically, keeping up to {@code retention} backups.
+   *
+   * @param retention number of backups to keep; 0 disables backups
+   */
+  static void write(Path file, Content content, int retention) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      OutputStream out = Channels.newOutputStream(ch);
+      content.writeTo(out);
+      out.flush();
+      ch.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+
+    if (retention > 0 && Files.isRegularFile(file)) {
+      Path backup = file.resolveSibling(file.getFileName() + BACKUP_INFIX + System.currentTimeMillis());
+      logger.debug("Backing up KnowledgeBaseState: {} -> {}", file, backup);
+      Files.copy(file, backup, StandardCopyOption.REPLACE_EXISTING);
+    }
+    try {
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    syncDirectory(parent);
+    pruneBackups(file, retention);
+  }
+
+  /**
+   * Reads {@code file}; if it exists but cannot be read or parsed, returns the newest backup that can.
+   *
+   * @throws IOException the failure of the state file when no backup is readable
+   */
+  static <T> Optional<T> read(Path file, Reader<T> reader) throws IOException {
+    try {
+      return reader.read(file);
+    } catch (IOException failure) {
+      for (Path backup : backups(file)) {
+        try {
+          Optional<T> state = reader.read(backup);
+          if (state.isPresent()) {
+            logger.warn("KnowledgeBaseState {} is unreadable ({}); restored backup {}", file, failure.getMessage(), backup);
+            return state;
+          }
+        } catch (IOException e) {
+          logger.debug("Backup {} is unreadable too", backup, e);
+        }
+      }
+      throw failure;
+    }
+  }
+
+  /** Backups of {@code file}, newest first. */
+  static List<Path> backups(Path file) {
+    Path dir = file.toAbsolutePath().getParent();
+    String prefix = file.getFileName() + BACKUP_INFIX;
+    List<Path> out = new ArrayList<>();
+    if (dir == null || !Files.isDirectory(dir)) return out;
+    try (var stream = Files.list(dir)) {
+      stream.filter(p -> p.getFileName().toString().startsWith(prefix) && backupTime(p, prefix) >= 0).forEach(out::add);
+    } catch (IOException e) {
+      logger.debug("Failed to list backups of {}", file, e);
+    }
+    out.sort(Comparator.comparingLong((Path p) -> backupTime(p, prefix)).reversed());
+    return out;
+  }
+
+  private static void pruneBackups(Path file, int retention) {
+    List<Path> backups = backups(file);
+    for (Path old : backups.subList(Math.min(retention, backups.size()), backups.size())) {
+      try {
+        Files.deleteIfExists(old);
+      } catch (IOException e) {
+        logger.debug("Failed to delete old backup {}", old, e);
+      }
+    }
+  }
+
+  private static long backupTime(Path backup, String prefix) {
+    try {
+      return Long.parseLong(backup.getFileName().toString().substring(prefix.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** Makes the rename durable; not supported on every platform, where it is skipped. */
+  private static void syncDirectory(Path dir) {
+    if (dir == null) return;
+    try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+      ch.force(true);
+    } catch (IOException | UnsupportedOperationException e) {
+      logger.trace("Directory sync not supported for {}", dir, e);
+    }
+  }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.gentorox.core.model.InferenceRequest;
 import com.gentorox.core.model.InferenceResponse;
 import com.gentorox.services.agent.Orchestrator;
+import com.gentorox.services.inference.CompletionOptions;
 import com.gentorox.services.inference.InferenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +24,8 @@ import java.util.stream.Stream;
 public class RegressionService {
 
     private static final Logger LOG = LoggerFactory.getLogger(RegressionService.class);
+    // Verdicts are parsed as JSON: ask the provider for JSON output
+    private static final CompletionOptions JUDGE_OPTIONS = CompletionOptions.jsonOutput();
 
     private final Path rootFoundationPath;
     private final Orchestrator orchestrator;
@@ -113,7 +116,7 @@ public class RegressionService {
 
     private Verdict judge(String displayName, String criteria, String output) {
         String evalPrompt = buildJudgePrompt(displayName, criteria, output);
-        var resp = inferenceService.sendRequest(evalPrompt);
+        var resp = inferenceService.complete(evalPrompt, JUDGE_OPTIONS);
         String content = Optional.ofNullable(resp).map(InferenceResponse::content).orElse("");
         Verdict v = parseVerdict(content);
         if (v == null) {
@@ -19,4 +19,6 @@ public final class TelemetryConstants {
   public static final String ATTR_PROVIDER   = "gentorox.model.provider";
   public static final String ATTR_MODEL      = "gentorox.model.name";
   public static final String ATTR_TOOL       = "gentorox.tool.name";
+  public static final String ATTR_CACHE_RESULT = "gentorox.cache.result";
+  public static final String ATTR_TOKEN_TYPE = "gentorox.tokens.type";
 }
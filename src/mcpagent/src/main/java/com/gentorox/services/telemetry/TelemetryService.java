@@ -7,18 +7,25 @@ import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 import static com.gentorox.services.telemetry.TelemetryConstants.*;
@@ -26,16 +33,22 @@ import static com.gentorox.services.telemetry.TelemetryConstants.*;
 @Component
 public class TelemetryService {
   private final Tracer tracer;
+  private final Meter meter;
   private final LongCounter promptsTotal;
   private final LongCounter toolCallsTotal;
   private final LongCounter modelCallsTotal;
+  private final LongCounter assistantCacheTotal;
+  private final LongCounter responseCacheTotal;
+  private final LongCounter tokensTotal;
+  private final LongCounter promptPrefixTotal;
+  private final LongHistogram timeToFirstToken;
 
   // Use the same key you already export as a span/metric attribute
   private static final String BAGGAGE_SESSION_ID = ATTR_SESSION_ID;
 
   public TelemetryService(OpenTelemetry openTelemetry) {
     this.tracer = openTelemetry.getTracer(TRACER);
-    Meter meter = openTelemetry.meterBuilder(METER).build();
+    this.meter = openTelemetry.meterBuilder(METER).build();
     this.promptsTotal = meter
         .counterBuilder("com.gentorox.prompts.total")
         .setDescription("Total prompts received")
@@ -48,6 +61,28 @@ public class TelemetryService {
         .counterBuilder("com.gentorox.model.calls.total")
         .setDescription("Model calls executed")
         .build();
+    this.assistantCacheTotal = meter
+        .counterBuilder("com.gentorox.inference.assistant.cache.total")
+        .setDescription("AI assistant registry lookups, by hit/miss")
+        .build();
+    this.responseCacheTotal = meter
+        .counterBuilder("com.gentorox.inference.response.cache.total")
+        .setDescription("Response cache lookups, by exact/semantic hit, miss or bypass")
+        .build();
+    this.tokensTotal = meter
+        .counterBuilder("com.gentorox.inference.tokens.total")
+        .setDescription("Tokens reported by the model provider, by input/output")
+        .build();
+    this.promptPrefixTotal = meter
+        .counterBuilder("com.gentorox.inference.prompt.prefix.total")
+        .setDescription("Model calls whose system prompt prefix matched (hit) or differed from (miss) the previous call")
+        .build();
+    this.timeToFirstToken = meter
+        .histogramBuilder("com.gentorox.inference.ttft")
+        .setDescription("Time from a streaming request to its first token")
+        .setUnit("ms")
+        .ofLongs()
+        .build();
   }
 
   // ------------ Tracing (unchanged from earlier answer) ------------
@@ -139,6 +174,92 @@ public class TelemetryService {
     inSpan(session, name, Collections.emptyMap(), body);
   }
 
+  // ------------ Tracing for Reactor pipelines ------------
+  //
+  // Reactive pipelines hop threads, so the OpenTelemetry context (span + session baggage) and the session id
+  // travel in the Reactor Context instead of thread-locals. Blocking sections that still need thread-locals
+  // (e.g. metrics inferring the session from baggage, or MDC-based logs) restore them via inContext().
+
+  /** Reactor Context key holding the current OpenTelemetry {@link Context}. */
+  public static final String REACTOR_OTEL_CONTEXT = "gentorox.otel.context";
+  /** Reactor Context key holding the logical session id. */
+  public static final String REACTOR_SESSION_ID = "gentorox.session.id";
+
+  /**
+   * Reactive counterpart of {@link #runRoot(TelemetrySession, String, Map, Supplier)}: starts a SERVER root span
+   * on subscription and ends it when the Flux terminates or is cancelled. The span and session are published to
+   * downstream operators through the Reactor Context.
+   */
+  public <T> Flux<T> runRootReactive(TelemetrySession session, String name, Map<String, String> attrs, Flux<T> body) {
+    Objects.requireNonNull(name, "span name");
+    Objects.requireNonNull(body, "body");
+    return Flux.defer(() -> {
+      SpanBuilder spanBuilder = tracer.spanBuilder(name)
+          .setSpanKind(SpanKind.SERVER)
+          .setNoParent();
+      applySpanAttributes(spanBuilder, session, attrs);
+      Span span = spanBuilder.startSpan();
+
+      Context otel = withSessionBaggage(Context.root().with(span), session);
+      return body
+          .doOnError(e -> recordError(span, e))
+          .doFinally(signal -> span.end())
+          .contextWrite(ctx -> {
+            ctx = ctx.put(REACTOR_OTEL_CONTEXT, otel);
+            return session != null && session.id() != null ? ctx.put(REACTOR_SESSION_ID, session.id()) : ctx;
+          });
+    });
+  }
+
+  /**
+   * Reactive counterpart of {@link #inSpan(String, Map, Supplier)}: the INTERNAL span is parented to the span
+   * found in the Reactor Context and becomes the parent of spans opened by {@code body}.
+   */
+  public <T> Mono<T> inSpanReactive(String name, Map<String, String> attrs, Mono<T> body) {
+    Objects.requireNonNull(body, "body");
+    return Mono.deferContextual(view -> {
+      Context current = startChildSpan(view, name, attrs);
+      Span span = Span.fromContext(current);
+      return body
+          .doOnError(e -> recordError(span, e))
+          .doFinally(signal -> span.end())
+          .contextWrite(ctx -> ctx.put(REACTOR_OTEL_CONTEXT, current));
+    });
+  }
+
+  /** Flux flavour of {@link #inSpanReactive(String, Map, Mono)}; the span ends when the Flux terminates. */
+  public <T> Flux<T> inSpanReactive(String name, Map<String, String> attrs, Flux<T> body) {
+    Objects.requireNonNull(body, "body");
+    return Flux.deferContextual(view -> {
+      Context current = startChildSpan(view, name, attrs);
+      Span span = Span.fromContext(current);
+      return body
+          .doOnError(e -> recordError(span, e))
+          .doFinally(signal -> span.end())
+          .contextWrite(ctx -> ctx.put(REACTOR_OTEL_CONTEXT, current));
+    });
+  }
+
+  public <T> Mono<T> inSpanReactive(String name, Mono<T> body) {
+    return inSpanReactive(name, Collections.emptyMap(), body);
+  }
+
+  /**
+   * Runs a blocking section with the OpenTelemetry context and MDC session id taken from the given Reactor
+   * Context made current on the calling thread, restoring the previous state afterwards.
+   */
+  public static <T> T inContext(ContextView view, Supplier<T> body) {
+    String sessionId = view.getOrDefault(REACTOR_SESSION_ID, null);
+    String previousMdc = MDC.get(MDC_SESSION_ID);
+    if (sessionId != null) MDC.put(MDC_SESSION_ID, sessionId);
+    try (Scope ignored = otelContext(view).makeCurrent()) {
+      return body.get();
+    } finally {
+      if (previousMdc != null) MDC.put(MDC_SESSION_ID, previousMdc);
+      else MDC.remove(MDC_SESSION_ID);
+    }
+  }
+
   // ------------ Metrics (context-inferred overloads) ------------
 
   /** New ergonomic overload: infers session from context baggage. */
@@ -186,6 +307,58 @@ public class TelemetryService {
     modelCallsTotal.add(1, buildMetricAttributesFromContext(attrs));
   }
 
+  /** Records an assistant registry lookup; misses correspond to a full AiServices build. */
+  public void countAssistantCache(boolean hit) {
+    Attributes attributes = buildMetricAttributesFromContext(Map.of(
+        ATTR_CACHE_RESULT, hit ? "hit" : "miss"
+    ));
+    assistantCacheTotal.add(1, attributes);
+  }
+
+  /** Counts a response cache lookup; {@code result} is exact, semantic, miss or bypass. */
+  public void countResponseCache(String result) {
+    Attributes attributes = buildMetricAttributesFromContext(Map.of(
+        ATTR_CACHE_RESULT, result
+    ));
+    responseCacheTotal.add(1, attributes);
+  }
+
+  /** Adds the input and output tokens of one model call. */
+  public void countTokens(String provider, String model, long input, long output) {
+    tokensTotal.add(input, buildMetricAttributesFromContext(Map.of(
+        ATTR_PROVIDER, provider, ATTR_MODEL, model, ATTR_TOKEN_TYPE, "input")));
+    tokensTotal.add(output, buildMetricAttributesFromContext(Map.of(
+        ATTR_PROVIDER, provider, ATTR_MODEL, model, ATTR_TOKEN_TYPE, "output")));
+  }
+
+  /** Counts a model call by whether its system prompt prefix was the same as in the previous call. */
+  public void countPromptPrefix(String provider, String model, boolean reused) {
+    promptPrefixTotal.add(1, buildMetricAttributesFromContext(Map.of(
+        ATTR_PROVIDER, provider, ATTR_MODEL, model, ATTR_CACHE_RESULT, reused ? "hit" : "miss")));
+  }
+
+  /** Records the time-to-first-token of a streaming model call. */
+  public void recordTimeToFirstToken(String provider, String model, long millis) {
+    Attributes attributes = buildMetricAttributesFromContext(Map.of(
+        ATTR_PROVIDER, provider,
+        ATTR_MODEL, model
+    ));
+    timeToFirstToken.record(millis, attributes);
+  }
+
+  /**
+   * Registers an asynchronous gauge sampled on every metric collection.
+   *
+   * @return handle that unregisters the gauge when closed
+   */
+  public AutoCloseable registerGauge(String name, String description, LongSupplier value) {
+    Objects.requireNonNull(value, "value");
+    return meter.gaugeBuilder(name)
+        .setDescription(description)
+        .ofLongs()
+        .buildWithCallback(m -> m.record(value.getAsLong()));
+  }
+
   // ------------ Internal helpers ------------
 
   private static void applySpanAttributes(SpanBuilder spanBuilder, TelemetrySession session, Map<String, String> attrs) {
@@ -211,6 +384,40 @@ public class TelemetryService {
     return () -> {}; // no-op scope
   }
 
+  private static Context withSessionBaggage(Context context, TelemetrySession session) {
+    if (session == null || session.id() == null) return context;
+    return Baggage.fromContext(context).toBuilder()
+        .put(BAGGAGE_SESSION_ID, session.id(), BaggageEntryMetadata.empty())
+        .build()
+        .storeInContext(context);
+  }
+
+  private Context startChildSpan(ContextView view, String name, Map<String, String> attrs) {
+    Objects.requireNonNull(name, "span name");
+    Context parent = otelContext(view);
+    SpanBuilder spanBuilder = tracer.spanBuilder(name)
+        .setSpanKind(SpanKind.INTERNAL)
+        .setParent(parent);
+    String sessionId = Baggage.fromContext(parent).getEntryValue(BAGGAGE_SESSION_ID);
+    if (sessionId != null && !sessionId.isEmpty()) {
+      spanBuilder.setAttribute(ATTR_SESSION_ID, sessionId);
+    }
+    if (attrs != null) {
+      attrs.forEach((k, v) -> { if (k != null && v != null) spanBuilder.setAttribute(AttributeKey.stringKey(k), v); });
+    }
+    return parent.with(spanBuilder.startSpan());
+  }
+
+  private static Context otelContext(ContextView view) {
+    Object ctx = view.getOrDefault(REACTOR_OTEL_CONTEXT, null);
+    return ctx instanceof Context c ? c : Context.current();
+  }
+
+  private static void recordError(Span span, Throwable e) {
+    span.recordException(e);
+    span.setStatus(io.opentelemetry.api.trace.StatusCode.ERROR);
+  }
+
   private static String getSessionIdFromContext() {
     String value = Baggage.current().getEntryValue(BAGGAGE_SESSION_ID);
     return (value == null || value.isEmpty()) ? null : value;
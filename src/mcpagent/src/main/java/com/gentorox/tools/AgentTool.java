@@ -1,4 +1,12 @@
 package com.gentorox.tools;
 
 public interface AgentTool {
+
+  /**
+   * Whether the tool only reads data (e.g. the knowledge base) and has no side effects. Answers that used
+   * nothing but read-only tools may be served from the response cache.
+   */
+  default boolean readOnly() {
+    return false;
+  }
 }
@@ -0,0 +1,140 @@
+package com.gentorox.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Cuts knowledge base contents down to the part a RetrieveContext call asked for, so generated SDK docs do not
+ * have to be returned whole.
+ *
+ * - {@link #section}: the markdown section under a heading, matched by its text or its anchor (GitHub-style slug
+ *   or an explicit {@code {#id}}), up to the next heading of the same or a higher level.
+ * - {@link #window}: the lines around the occurrences of query terms, merged and capped to a character budget.
+ */
+final class ContentShaper {
+  static final String GAP = "\n…\n";
+
+  private static final Pattern HEADING = Pattern.compile("^ {0,3}(#{1,6})[ \\t]+(.*?)[ \\t#]*$");
+  private static final Pattern EXPLICIT_ANCHOR = Pattern.compile("\\{#([^}]+)}$");
+  private static final Pattern NON_TERM = Pattern.compile("[^\\p{L}\\p{N}_]+");
+
+  private ContentShaper() {}
+
+  /**
+   * Returns the section under the first heading matching {@code heading}.
+   *
+   * @param heading heading text ("Create order"), anchor ("#create-order") or explicit id
+   */
+  static Optional<String> section(String content, String heading) {
+    String wanted = normalize(heading);
+    if (wanted.isEmpty()) return Optional.empty();
+
+    int start = -1;
+    int level = 0;
+    boolean fenced = false;
+    int pos = 0;
+    while (pos < content.length()) {
+      int eol = content.indexOf('\n', pos);
+      int next = eol < 0 ? content.length() : eol + 1;
+      String line = content.substring(pos, eol < 0 ? content.length() : eol);
+      String trimmed = line.stripLeading();
+      if (trimmed.startsWith("```") || trimmed.startsWith("~~~")) {
+        fenced = !fenced;
+      } else if (!fenced) {
+        Matcher m = HEADING.matcher(line);
+        if (m.matches()) {
+          int lvl = m.group(1).length();
+          if (start >= 0 && lvl <= level) return Optional.of(content.substring(start, pos).stripTrailing());
+          if (start < 0 && matches(m.group(2), wanted)) {
+            start = pos;
+            level = lvl;
+          }
+        }
+      }
+      pos = next;
+    }
+    return start < 0 ? Optional.empty() : Optional.of(content.substring(start).stripTrailing());
+  }
+
+  /**
+   * Returns the lines around the occurrences of the terms of {@code query}, in document order. Overlapping
+   * windows are merged and separated by {@link #GAP}; windows past {@code maxChars} are dropped.
+   *
+   * @param radius context characters on each side of a hit, extended to whole lines when they are short
+   */
+  static Optional<String> window(String content, String query, int radius, int maxChars) {
+    List<String> terms = Arrays.stream(NON_TERM.split(query == null ? "" : query))
+        .filter(t -> t.length() > 1).distinct().toList();
+    if (terms.isEmpty() || maxChars <= 0) return Optional.empty();
+    Matcher m = Pattern.compile(terms.stream().map(Pattern::quote).collect(Collectors.joining("|")),
+        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE).matcher(content);
+
+    List<int[]> windows = new ArrayList<>();
+    while (m.find()) {
+      int from = lineStart(content, m.start() - radius, m.start() - 2 * radius);
+      int to = lineEnd(content, m.end() + radius, m.end() + 2 * radius);
+      int[] last = windows.isEmpty() ? null : windows.get(windows.size() - 1);
+      if (last != null && from <= last[1]) {
+        last[1] = Math.max(last[1], to);
+      } else {
+        windows.add(new int[]{from, to});
+      }
+    }
+    if (windows.isEmpty()) return Optional.empty();
+
+    StringBuilder out = new StringBuilder();
+    for (int[] w : windows) {
+      int room = maxChars - out.length() - (out.isEmpty() ? 0 : GAP.length());
+      if (room <= 0) break;
+      if (!out.isEmpty()) out.append(GAP);
+      out.append(content, w[0], Math.min(w[1], w[0] + room));
+    }
+    return Optional.of(out.toString());
+  }
+
+  private static boolean matches(String headingText, String wanted) {
+    Matcher explicit = EXPLICIT_ANCHOR.matcher(headingText);
+    if (explicit.find()) {
+      if (normalize(explicit.group(1)).equals(wanted)) return true;
+      headingText = headingText.substring(0, explicit.start()).stripTrailing();
+    }
+    return slug(headingText).equals(wanted);
+  }
+
+  /** Reduces a heading, anchor or slug to the comparable slug form. */
+  private static String normalize(String heading) {
+    if (heading == null) return "";
+    String h = heading.strip();
+    while (h.startsWith("#")) h = h.substring(1);
+    return slug(h);
+  }
+
+  /** GitHub-style anchor slug: lower case, punctuation dropped, spaces turned into dashes. */
+  static String slug(String text) {
+    StringBuilder sb = new StringBuilder(text.length());
+    for (char ch : text.strip().toLowerCase(Locale.ROOT).toCharArray()) {
+      if (Character.isLetterOrDigit(ch) || ch == '-' || ch == '_') sb.append(ch);
+      else if (ch == ' ') sb.append('-');
+    }
+    return sb.toString();
+  }
+
+  private static int lineStart(String s, int at, int limit) {
+    if (at <= 0) return 0;
+    int nl = s.lastIndexOf('\n', at);
+    return nl + 1 >= Math.max(0, limit) ? nl + 1 : at;
+  }
+
+  private static int lineEnd(String s, int at, int limit) {
+    if (at >= s.length()) return s.length();
+    int nl = s.indexOf('\n', at);
+    if (nl < 0) nl = s.length();
+    return nl <= limit ? nl : at;
+  }
+}
@@ -0,0 +1,110 @@
+package com.gentorox.tools;
+
+/**
+ * Minimal streaming writer for a JSON array of flat objects, used to build tool responses without an
+ * intermediate {@code List<Map>} or per-string buffers.
+ *
+ * Strings are escaped straight from the source {@link CharSequence}: runs of characters that need no escaping
+ * are bulk-copied, and only quotes, backslashes and control characters are rewritten.
+ */
+final class JsonArrayWriter {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final StringBuilder out;
+  private boolean firstObject = true;
+  private boolean firstField;
+
+  JsonArrayWriter(int capacity) {
+    out = new StringBuilder(Math.max(16, capacity));
+    out.append('[');
+  }
+
+  /**
+   * Grows the buffer once for {@code chars} more characters of content, plus some slack for escapes, instead of
+   * doubling it repeatedly while large contents are appended.
+   */
+  JsonArrayWriter reserve(long chars) {
+    long wanted = out.length() + chars + (chars >> 4) + 64;
+    out.ensureCapacity((int) Math.min(wanted, Integer.MAX_VALUE - 8));
+    return this;
+  }
+
+  JsonArrayWriter beginObject() {
+    if (!firstObject) out.append(',');
+    firstObject = false;
+    firstField = true;
+    out.append('{');
+    return this;
+  }
+
+  JsonArrayWriter endObject() {
+    out.append('}');
+    return this;
+  }
+
+  /** Writes a string field; a null value is written as JSON null. */
+  JsonArrayWriter field(String name, CharSequence value) {
+    return field(name, value, 0, value == null ? 0 : value.length());
+  }
+
+  /** Writes the {@code [start, end)} range of {@code value} as a string field. */
+  JsonArrayWriter field(String name, CharSequence value, int start, int end) {
+    name(name);
+    if (value == null) {
+      out.append("null");
+    } else {
+      out.ensureCapacity(out.length() + (end - start) + 2);
+      out.append('"');
+      escape(value, start, end, out);
+      out.append('"');
+    }
+    return this;
+  }
+
+  JsonArrayWriter field(String name, long value) {
+    name(name);
+    out.append(value);
+    return this;
+  }
+
+  JsonArrayWriter field(String name, boolean value) {
+    name(name);
+    out.append(value);
+    return this;
+  }
+
+  /** Closes the array and returns the document. */
+  String finish() {
+    out.append(']');
+    return out.toString();
+  }
+
+  private void name(String name) {
+    if (!firstField) out.append(',');
+    firstField = false;
+    out.append('"');
+    escape(name, 0, name.length(), out);
+    out.append('"').append(':');
+  }
+
+  static void escape(CharSequence s, int start, int end, StringBuilder out) {
+    int run = start;
+    for (int i = start; i < end; i++) {
+      char ch = s.charAt(i);
+      if (ch >= 0x20 && ch != '"' && ch != '\\') continue;
+      out.append(s, run, i);
+      run = i + 1;
+      switch (ch) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        case '\b' -> out.append("\\b");
+        case '\f' -> out.append("\\f");
+        default -> out.append("\\u00").append(HEX[ch >> 4]).append(HEX[ch & 0xF]);
+      }
+    }
+    out.append(s, run, end);
+  }
+}
@@ -9,24 +9,75 @@ import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.P;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Loads knowledge base resources for the model, shaped to what the call asked for: the full contents, one markdown
+ * section, the windows around query terms, or the precomputed summary (the entry hint).
+ *
+ * All responses of one call share a character budget. A resource that does not fit in what is left is replaced by
+ * its summary when it has one, and truncated otherwise; resources past the budget are listed as omitted. Items
+ * report the shaping that was applied ({@code mode}) and how many characters of the resource were left out
+ * ({@code elided}).
+ */
 @Component
 public class RetrieveContextTool implements AgentTool {
   private static final Logger logger = LoggerFactory.getLogger(RetrieveContextTool.class);
+
+  /** Default cap on the content characters returned by a single call. */
+  static final int DEFAULT_MAX_CHARS = 200_000;
+  /** Default cap on the characters returned per resource in query mode. */
+  static final int DEFAULT_WINDOW_CHARS = 8_000;
+  /** Context characters kept on each side of a query hit. */
+  static final int WINDOW_RADIUS = 300;
+  /** Resources loaded per {@link KnowledgeBaseService#getContents} call; later batches are skipped once the budget is spent. */
+  static final int FETCH_BATCH = 16;
+  static final String OMITTED = "character budget exceeded";
+
+  static final String MODE_SECTION = "section";
+  static final String MODE_WINDOW = "window";
+  static final String MODE_SUMMARY = "summary";
+
   private final KnowledgeBaseService kbService;
   private final TelemetryService telemetry;
+  private final int maxChars;
+  private final int windowChars;
 
   public RetrieveContextTool(KnowledgeBaseService kbService, TelemetryService telemetry) {
+    this(kbService, telemetry, DEFAULT_MAX_CHARS, DEFAULT_WINDOW_CHARS);
+  }
+
+  @Autowired
+  public RetrieveContextTool(KnowledgeBaseService kbService, TelemetryService telemetry,
+                             @Value("${knowledgeBase.retrieve.maxChars:" + DEFAULT_MAX_CHARS + "}") int maxChars,
+                             @Value("${knowledgeBase.retrieve.windowChars:" + DEFAULT_WINDOW_CHARS + "}") int windowChars) {
     this.kbService = kbService;
     this.telemetry = telemetry;
+    this.maxChars = maxChars > 0 ? maxChars : Integer.MAX_VALUE;
+    this.windowChars = windowChars > 0 ? windowChars : DEFAULT_WINDOW_CHARS;
+  }
+
+  /** Shorthand for a call that returns the full contents. */
+  public String retrieveContext(List<String> resources) {
+    return retrieveContext(resources, null, null, null);
   }
 
-  @Tool(name = "RetrieveContext", value = "Retrieve knowledge base resources by names or relative paths and return their contents")
-  public String retrieveContext(@P("Array of resource names. Each item may be a full kb:// URI or a relative path prefix") List<String> resources) {
+  @Override
+  public boolean readOnly() {
+    return true;
+  }
+
+  @Tool(name = "RetrieveContext", value = "Retrieve knowledge base resources by names or relative paths and return their contents, "
+      + "optionally only one section, the passages matching a query, or a short summary")
+  public String retrieveContext(@P("Array of resource names. Each item may be a full kb:// URI or a relative path prefix") List<String> resources,
+                                @P(value = "Markdown heading or #anchor; returns only that section of each resource", required = false) String section,
+                                @P(value = "Keywords; returns only the passages of each resource around them", required = false) String query,
+                                @P(value = "If true, returns the short summary of each resource instead of its contents", required = false) Boolean summaryOnly) {
     return telemetry.inSpan("tool.execute", java.util.Map.of("tool", "retrieveContext"), () -> {
       telemetry.countTool("retrieveContext");
 
@@ -36,8 +87,9 @@ public class RetrieveContextTool implements AgentTool {
         return "No resources specified";
       }
 
-      // Resolve to concrete kb:// resources
+      // Resolve to concrete kb:// resources; hints of listed entries double as their summaries
       Set<String> resolvedResources = new LinkedHashSet<>();
+      Map<String, String> hints = new HashMap<>();
       for (String item : resources) {
         String trimmed = item.trim();
         if (trimmed.isEmpty()) continue;
@@ -53,77 +105,111 @@ public class RetrieveContextTool implements AgentTool {
           List<KnowledgeBaseEntry> entries = telemetry.inSpan("kb.list", java.util.Map.of("prefix", kbPrefix),
               () -> kbService.list(kbPrefix));
           for (KnowledgeBaseEntry e : entries) {
-            if (e.resource() != null) resolvedResources.add(e.resource());
+            if (e.resource() == null) continue;
+            resolvedResources.add(e.resource());
+            if (e.hint() != null) hints.put(e.resource(), e.hint());
           }
         }
       }
 
-      // Fetch content for each resource
-      List<Map<String, Object>> result = new ArrayList<>();
-      for (String res : resolvedResources) {
-        String content = telemetry.inSpan("kb.getContent", java.util.Map.of("resource", res),
-            () -> kbService.getContent(res).orElse(null));
-        logger.debug("Content found for {}", res);
-        if (content != null) {
-          result.add(Map.of(
-              "resource", res,
-              "content", content
-          ));
+      // Fetch contents batch by batch until the character budget is spent; resources past it are listed as omitted.
+      // Each item is written to the JSON response as soon as its batch arrives.
+      boolean summaries = Boolean.TRUE.equals(summaryOnly);
+      List<String> pending = new ArrayList<>(resolvedResources);
+      JsonArrayWriter json = new JsonArrayWriter(1024);
+      int remaining = maxChars;
+      for (int from = 0; from < pending.size(); from += FETCH_BATCH) {
+        List<String> batch = pending.subList(from, Math.min(from + FETCH_BATCH, pending.size()));
+        if (remaining <= 0) {
+          batch.forEach(res -> omitted(json, res));
+          continue;
+        }
+        List<String> toLoad = summaries ? batch.stream().filter(res -> summaryOf(res, hints) == null).toList() : batch;
+        Map<String, String> contents = toLoad.isEmpty() ? Map.of()
+            : telemetry.inSpan("kb.getContents", java.util.Map.of("count", String.valueOf(toLoad.size())),
+                () -> kbService.getContents(toLoad));
+        json.reserve(Math.min(remaining, contents.values().stream().mapToLong(String::length).sum()));
+        for (String res : batch) {
+          if (remaining <= 0) {
+            omitted(json, res);
+            continue;
+          }
+          String content = contents.get(res);
+          if (content == null) {
+            String summary = summaries ? summaryOf(res, hints) : null;
+            if (summary != null) {
+              remaining -= summary.length() <= remaining ? write(json, res, MODE_SUMMARY, summary, -1)
+                  : truncated(json, res, MODE_SUMMARY, summary, remaining, -1);
+            }
+            continue;
+          }
+          logger.debug("Content found for {}", res);
+          remaining -= shapeAndWrite(json, res, content, section, query, hints, remaining);
         }
       }
-
-      // Serialize to JSON (simple manual builder to avoid bringing extra dependencies here)
-      return toJsonArrayOfObjects(result);
+      return json.finish();
     });
   }
 
-  private static String escapeJson(String s) {
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < s.length(); i++) {
-      char ch = s.charAt(i);
-      switch (ch) {
-        case '"' -> sb.append("\\\"");
-        case '\\' -> sb.append("\\\\");
-        case '\n' -> sb.append("\\n");
-        case '\r' -> sb.append("\\r");
-        case '\t' -> sb.append("\\t");
-        case '\b' -> sb.append("\\b");
-        case '\f' -> sb.append("\\f");
-        default -> {
-          if (ch < 0x20) {
-            sb.append(String.format("\\u%04x", (int) ch));
-          } else {
-            sb.append(ch);
-          }
-        }
+  /** Writes the requested shape of {@code content} within {@code budget}; returns the characters written. */
+  private int shapeAndWrite(JsonArrayWriter json, String res, String content, String section, String query,
+                            Map<String, String> hints, int budget) {
+    String mode = null;
+    String shaped = content;
+    if (section != null && !section.isBlank()) {
+      Optional<String> found = ContentShaper.section(content, section);
+      if (found.isPresent()) {
+        mode = MODE_SECTION;
+        shaped = found.get();
       }
     }
-    return sb.toString();
-  }
-
-  private static String toJsonArrayOfObjects(List<Map<String, Object>> list) {
-    StringBuilder sb = new StringBuilder();
-    sb.append('[');
-    boolean firstObj = true;
-    for (Map<String, Object> obj : list) {
-      if (!firstObj) sb.append(',');
-      firstObj = false;
-      sb.append('{');
-      boolean firstField = true;
-      for (Map.Entry<String, Object> e : obj.entrySet()) {
-        if (!firstField) sb.append(',');
-        firstField = false;
-        sb.append('"').append(escapeJson(e.getKey())).append('"').append(':');
-        Object v = e.getValue();
-        if (v == null) {
-          sb.append("null");
-        } else {
-          sb.append('"').append(escapeJson(String.valueOf(v))).append('"');
-        }
+    if (mode == null && query != null && !query.isBlank()) {
+      Optional<String> found = ContentShaper.window(content, query, WINDOW_RADIUS, windowChars);
+      if (found.isPresent()) {
+        mode = MODE_WINDOW;
+        shaped = found.get();
       }
-      sb.append('}');
     }
-    sb.append(']');
-    return sb.toString();
+    if (shaped.length() <= budget) return write(json, res, mode, shaped, content.length() - shaped.length());
+
+    // Over budget: prefer the summary to a cut-off document
+    String summary = summaryOf(res, hints);
+    if (summary != null && summary.length() <= budget) return write(json, res, MODE_SUMMARY, summary, content.length() - summary.length());
+    return truncated(json, res, mode, shaped, budget, content.length() - shaped.length());
+  }
+
+  private static int write(JsonArrayWriter json, String res, String mode, String content, long elided) {
+    json.beginObject().field("resource", res);
+    if (mode != null) json.field("mode", mode);
+    json.field("content", content);
+    if (elided > 0) json.field("elided", elided);
+    json.endObject();
+    return content.length();
+  }
+
+  /**
+   * Writes the first {@code budget} characters of {@code content}, one less when that would split a surrogate pair;
+   * {@code elided} counts the characters left out before shaping, or is negative when not reported.
+   */
+  private static int truncated(JsonArrayWriter json, String res, String mode, String content, int budget, long elided) {
+    int cut = budget > 0 && Character.isHighSurrogate(content.charAt(budget - 1)) ? budget - 1 : budget;
+    json.beginObject().field("resource", res);
+    if (mode != null) json.field("mode", mode);
+    json.field("content", content, 0, cut).field("truncated", true);
+    if (elided >= 0 && elided + content.length() - cut > 0) json.field("elided", elided + content.length() - cut);
+    json.endObject();
+    return cut;
+  }
+
+  /** The entry hint of {@code res}, looked up on first use for resources that were requested by URI. */
+  private String summaryOf(String res, Map<String, String> hints) {
+    String hint = hints.computeIfAbsent(res, r -> kbService.list(r).stream()
+        .filter(e -> r.equals(e.resource()) && e.hint() != null)
+        .map(KnowledgeBaseEntry::hint).findFirst().orElse(""));
+    return hint.isBlank() ? null : hint;
+  }
+
+  private static void omitted(JsonArrayWriter json, String resource) {
+    json.beginObject().field("resource", resource).field("omitted", OMITTED).endObject();
   }
 }
@@ -0,0 +1,68 @@
+package com.gentorox.tools;
+
+import com.gentorox.services.knowledgebase.KnowledgeBaseChunkHit;
+import com.gentorox.services.knowledgebase.KnowledgeBaseService;
+import com.gentorox.services.telemetry.TelemetryService;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Semantic retrieval over knowledge base chunks. Returns only the slices of documents relevant to a question,
+ * which keeps prompts far smaller than loading whole resources with RetrieveContext.
+ */
+@Component
+public class RetrieveRelevantChunksTool implements AgentTool {
+  private static final Logger logger = LoggerFactory.getLogger(RetrieveRelevantChunksTool.class);
+
+  static final int DEFAULT_LIMIT = 5;
+  static final int MAX_LIMIT = 20;
+
+  private final KnowledgeBaseService kbService;
+  private final TelemetryService telemetry;
+
+  public RetrieveRelevantChunksTool(KnowledgeBaseService kbService, TelemetryService telemetry) {
+    this.kbService = kbService;
+    this.telemetry = telemetry;
+  }
+
+  @Override
+  public boolean readOnly() {
+    return true;
+  }
+
+  @Tool(name = "RetrieveRelevantChunks", value = "Retrieve the knowledge base passages most relevant to a question, without loading whole documents")
+  public String retrieveRelevantChunks(@P("Question or description of the information needed") String query,
+                                       @P(value = "Maximum number of passages (default 5, max 20)", required = false) Integer limit) {
+    return telemetry.inSpan("tool.execute", Map.of("tool", "retrieveRelevantChunks"), () -> {
+      telemetry.countTool("retrieveRelevantChunks");
+
+      if (query == null || query.isBlank()) {
+        logger.warn("No query specified");
+        return "No query specified";
+      }
+      int k = (limit == null || limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+      List<KnowledgeBaseChunkHit> hits = telemetry.inSpan("kb.searchChunks", Map.of("k", String.valueOf(k)),
+          () -> kbService.searchChunks(query, k));
+      logger.debug("Chunk search '{}' returned {} hit(s)", query, hits.size());
+      if (hits.isEmpty()) {
+        return "No knowledge base passages match: " + query;
+      }
+
+      StringBuilder sb = new StringBuilder();
+      for (KnowledgeBaseChunkHit hit : hits) {
+        sb.append("### `").append(hit.id()).append("` (score ")
+            .append(String.format(Locale.ROOT, "%.2f", hit.score())).append(")\n")
+            .append(hit.content()).append("\n\n");
+      }
+      return sb.toString();
+    });
+  }
+}
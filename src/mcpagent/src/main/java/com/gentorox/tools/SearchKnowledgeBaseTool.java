@@ -0,0 +1,70 @@
+package com.gentorox.tools;
+
+import com.gentorox.services.knowledgebase.KnowledgeBaseSearchHit;
+import com.gentorox.services.knowledgebase.KnowledgeBaseService;
+import com.gentorox.services.telemetry.TelemetryService;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Full-text search over the knowledge base. Lets the model locate the one resource it needs (e.g. the doc of a
+ * single endpoint among hundreds of generated OpenAPI files) and then load only that resource with RetrieveContext.
+ */
+@Component
+public class SearchKnowledgeBaseTool implements AgentTool {
+  private static final Logger logger = LoggerFactory.getLogger(SearchKnowledgeBaseTool.class);
+
+  static final int DEFAULT_LIMIT = 8;
+  static final int MAX_LIMIT = 25;
+
+  private final KnowledgeBaseService kbService;
+  private final TelemetryService telemetry;
+
+  public SearchKnowledgeBaseTool(KnowledgeBaseService kbService, TelemetryService telemetry) {
+    this.kbService = kbService;
+    this.telemetry = telemetry;
+  }
+
+  @Override
+  public boolean readOnly() {
+    return true;
+  }
+
+  @Tool(name = "SearchKnowledgeBase", value = "Search knowledge base resources by keywords and return the best matching kb:// URIs with their descriptions")
+  public String searchKnowledgeBase(@P("Keywords describing what you are looking for, e.g. an endpoint, model or field name") String query,
+                                    @P(value = "Maximum number of results (default 8, max 25)", required = false) Integer limit) {
+    return telemetry.inSpan("tool.execute", Map.of("tool", "searchKnowledgeBase"), () -> {
+      telemetry.countTool("searchKnowledgeBase");
+
+      if (query == null || query.isBlank()) {
+        logger.warn("No search query specified");
+        return "No search query specified";
+      }
+      int k = (limit == null || limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+      List<KnowledgeBaseSearchHit> hits = telemetry.inSpan("kb.search", Map.of("k", String.valueOf(k)),
+          () -> kbService.search(query, k));
+      logger.debug("Search '{}' returned {} hit(s)", query, hits.size());
+      if (hits.isEmpty()) {
+        return "No knowledge base resources match: " + query;
+      }
+
+      StringBuilder sb = new StringBuilder();
+      int rank = 1;
+      for (KnowledgeBaseSearchHit hit : hits) {
+        sb.append(rank++).append(". `").append(hit.resource()).append("` (score ")
+            .append(String.format(Locale.ROOT, "%.2f", hit.score())).append(')');
+        if (hit.hint() != null && !hit.hint().isBlank()) sb.append(" — ").append(hit.hint());
+        sb.append('\n');
+      }
+      return sb.toString();
+    });
+  }
+}
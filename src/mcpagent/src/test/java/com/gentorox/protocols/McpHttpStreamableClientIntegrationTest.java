@@ -2,6 +2,7 @@ package com.gentorox.protocols;
 
 import com.gentorox.core.model.InferenceResponse;
 import com.gentorox.services.agent.Orchestrator;
+import com.gentorox.services.telemetry.TelemetryService;
 import io.modelcontextprotocol.client.McpClient;
 import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
 import io.modelcontextprotocol.json.McpJsonMapper;
@@ -17,6 +18,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.Map;
@@ -64,13 +66,16 @@ class McpHttpStreamableClientIntegrationTest {
   @MockBean
   Orchestrator orchestrator;
 
+  @MockBean
+  TelemetryService telemetry; // required by the orchestration executor bean
+
   /**
    * Stubs the Orchestrator to avoid external dependencies and ensure deterministic tool results.
    */
   @BeforeEach
   void setUp() {
-    when(orchestrator.run(any(), any())).thenReturn(new InferenceResponse(
-        "integration-ok", Optional.empty(), "trace-it"));
+    when(orchestrator.runAsync(any(), any())).thenReturn(Mono.just(new InferenceResponse(
+        "integration-ok", Optional.empty(), "trace-it")));
   }
 
   /**
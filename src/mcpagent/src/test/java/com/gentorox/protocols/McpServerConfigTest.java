@@ -2,12 +2,16 @@ package com.gentorox.protocols;
 
 import com.gentorox.core.model.InferenceResponse;
 import com.gentorox.services.agent.Orchestrator;
+import com.gentorox.services.agent.OrchestratorEvent;
+import com.gentorox.services.telemetry.TelemetryService;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.transport.WebFluxStreamableServerTransportProvider;
 import io.modelcontextprotocol.spec.McpSchema;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -16,11 +20,17 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.server.RouterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -29,7 +39,8 @@ import static org.mockito.Mockito.when;
  * What this covers:
  * - transport provider and router beans are created in the context;
  * - the async tool is registered with the expected name and description;
- * - the router denies DELETE requests when disallowDelete is true (basic transport behavior).
+ * - the router denies DELETE requests when disallowDelete is true (basic transport behavior);
+ * - tool calls carrying a progress token stream partial output as progress notifications.
  *
  * Note: This class focuses on configuration wiring and bean exposure. A separate integration test
  * (McpHttpStreamableClientIntegrationTest) exercises the protocol with the official MCP Java SDK client.
@@ -66,14 +77,17 @@ class McpServerConfigTest {
   @MockBean
   private Orchestrator orchestrator; // mocked to allow asyncToolSpecification bean creation
 
+  @MockBean
+  private TelemetryService telemetry; // required by the orchestration executor bean
+
   /**
    * Stubs Orchestrator to avoid hitting real providers and make tool invocation deterministic.
    */
   @BeforeEach
   void setUp() {
-    // Stub orchestrator.run to return a deterministic response if invoked by any test utility
-    when(orchestrator.run(any(), any())).thenReturn(new InferenceResponse(
-        "ok", Optional.empty(), "test-trace"));
+    // Stub orchestrator.runAsync to return a deterministic response if invoked by any test utility
+    when(orchestrator.runAsync(any(), any())).thenReturn(Mono.just(new InferenceResponse(
+        "ok", Optional.empty(), "test-trace")));
   }
 
   /**
@@ -107,4 +121,29 @@ class McpServerConfigTest {
         .exchange()
         .expectStatus().is4xxClientError();
   }
+
+  @Test
+  void toolCall_withProgressToken_forwardsPartialsAsProgressNotifications() {
+    String sessionId = "s-1";
+    when(orchestrator.stream(any(), any())).thenReturn(Flux.just(
+        new OrchestratorEvent.Started(sessionId),
+        new OrchestratorEvent.Partial(sessionId, "Hel"),
+        new OrchestratorEvent.ToolInvoked(sessionId, "RetrieveContext"),
+        new OrchestratorEvent.Partial(sessionId, "lo"),
+        new OrchestratorEvent.Completed(sessionId, new InferenceResponse("Hello", Optional.empty(), "t-1"))));
+    McpAsyncServerExchange exchange = mock(McpAsyncServerExchange.class);
+    when(exchange.progressNotification(any())).thenReturn(Mono.empty());
+
+    McpSchema.CallToolResult result = asyncToolSpecification.callHandler().apply(exchange,
+        new McpSchema.CallToolRequest("gentoro.run", Map.of("prompt", "hi"), Map.of("progressToken", "p-1"))).block();
+
+    assertThat(result).isNotNull();
+    assertThat(result.isError()).isFalse();
+    ArgumentCaptor<McpSchema.ProgressNotification> sent = ArgumentCaptor.forClass(McpSchema.ProgressNotification.class);
+    verify(exchange, times(3)).progressNotification(sent.capture());
+    assertThat(sent.getAllValues()).extracting(McpSchema.ProgressNotification::message)
+        .containsExactly("Hel", "Calling tool RetrieveContext", "lo");
+    assertThat(sent.getAllValues()).extracting(McpSchema.ProgressNotification::progress)
+        .containsExactly(1.0, 2.0, 3.0);
+  }
 }
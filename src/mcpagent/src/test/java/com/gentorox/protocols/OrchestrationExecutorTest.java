@@ -0,0 +1,101 @@
+package com.gentorox.protocols;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for OrchestrationExecutor: concurrency is bounded, cancellation frees slots and
+ * saturation is rejected immediately.
+ */
+class OrchestrationExecutorTest {
+
+  private OrchestrationExecutor executor;
+
+  @AfterEach
+  void tearDown() {
+    if (executor != null) executor.close();
+  }
+
+  @Test
+  void propagatesTaskFailure() throws Exception {
+    executor = new OrchestrationExecutor(1, 0);
+
+    Mono<Object> failing = executor.admit(() -> { throw new IllegalStateException("boom"); });
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> failing.block(Duration.ofSeconds(5)));
+    assertEquals("boom", e.getMessage());
+    waitUntil(() -> executor.inFlight() == 0 && executor.queued() == 0);
+  }
+
+  @Test
+  void rejectsWhenRunningAndQueueAreFull() throws Exception {
+    executor = new OrchestrationExecutor(1, 1);
+    Sinks.One<String> release = Sinks.one();
+
+    Mono<String> running = executor.admit(release::asMono);
+    Mono<String> queued = executor.admit(() -> Mono.just("second"));
+
+    var first = running.toFuture();
+    waitUntil(() -> executor.inFlight() == 1);
+    var second = queued.toFuture();
+    waitUntil(() -> executor.queued() == 1);
+    assertEquals(1, executor.inFlight());
+
+    assertThrows(RejectedExecutionException.class, () -> executor.admit(() -> Mono.just("third")).block(Duration.ofSeconds(5)));
+
+    release.tryEmitValue("first");
+    assertEquals("first", first.get(5, TimeUnit.SECONDS));
+    assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    waitUntil(() -> executor.inFlight() == 0 && executor.queued() == 0);
+  }
+
+  @Test
+  void admitRunsReactiveWorkAndFreesSlotOnCancel() throws Exception {
+    executor = new OrchestrationExecutor(1, 1);
+
+    var never = executor.admit(Mono::<String>never).subscribe();
+    waitUntil(() -> executor.inFlight() == 1);
+    Mono<String> queued = executor.admit(() -> Mono.just("queued"));
+    var second = queued.toFuture();
+    waitUntil(() -> executor.queued() == 1);
+
+    never.dispose();
+    assertEquals("queued", second.get(5, TimeUnit.SECONDS));
+    waitUntil(() -> executor.inFlight() == 0 && executor.queued() == 0);
+  }
+
+  @Test
+  void cancellingQueuedWorkLeavesTheQueue() throws Exception {
+    executor = new OrchestrationExecutor(1, 1);
+
+    var running = executor.admit(Mono::<String>never).subscribe();
+    var queued = executor.admit(() -> Mono.just("never runs")).subscribe();
+    waitUntil(() -> executor.queued() == 1);
+
+    queued.dispose();
+    assertEquals(0, executor.queued());
+
+    // The freed queue position can be taken by new work, which runs once the slot is released
+    var next = executor.admit(() -> Mono.just("ok")).toFuture();
+    waitUntil(() -> executor.queued() == 1);
+    running.dispose();
+    assertEquals("ok", next.get(5, TimeUnit.SECONDS));
+    waitUntil(() -> executor.inFlight() == 0 && executor.queued() == 0);
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) fail("condition not met in time");
+      Thread.sleep(10);
+    }
+  }
+}
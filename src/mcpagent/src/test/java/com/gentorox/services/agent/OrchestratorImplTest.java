@@ -2,17 +2,27 @@ package com.gentorox.services.agent;
 
 import com.gentorox.core.model.InferenceRequest;
 import com.gentorox.core.model.InferenceResponse;
+import com.gentorox.core.model.InferenceStreamEvent;
+import com.gentorox.services.inference.ChatPrompt;
 import com.gentorox.services.inference.InferenceService;
+import com.gentorox.services.inference.ResponseCache;
 import com.gentorox.services.knowledgebase.KnowledgeBaseEntry;
 import com.gentorox.services.knowledgebase.KnowledgeBaseService;
 import com.gentorox.services.telemetry.TelemetryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -58,6 +68,11 @@ public class OrchestratorImplTest {
     doAnswer(inv -> { Runnable r = inv.getArgument(2); r.run(); return null; })
         .when(telemetry).inSpan(anyString(), anyMap(), any(Runnable.class));
 
+    // Reactive helpers: pass the publishers through unchanged
+    when(telemetry.runRootReactive(any(), anyString(), anyMap(), any(Flux.class))).thenAnswer(inv -> inv.getArgument(3));
+    when(telemetry.inSpanReactive(anyString(), any(Mono.class))).thenAnswer(inv -> inv.getArgument(1));
+    when(telemetry.inSpanReactive(anyString(), anyMap(), any(Flux.class))).thenAnswer(inv -> inv.getArgument(2));
+
     doAnswer(inv -> null).when(telemetry).countPrompt(anyString(), anyString());
     doAnswer(inv -> null).when(telemetry).countModelCall(anyString(), anyString());
   }
@@ -83,16 +98,16 @@ public class OrchestratorImplTest {
     );
     Map<String, Object> opts = Map.of("reqId", "r-1");
 
-    when(inference.sendRequest(anyString()))
+    when(inference.sendRequest(any(ChatPrompt.class)))
         .thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
 
     InferenceResponse resp = orch.run(msgs, opts);
     assertEquals("ok", resp.content());
 
-    // Verify the prompt contains expected content
-    verify(inference).sendRequest(argThat(prompt ->
-        prompt.contains("BASE_SP") &&
-            prompt.contains("Pay order 123")
+    // Verify the prompt contains expected content: the static part as the system message, the request as the user message
+    verify(inference).sendRequest(argThat((ChatPrompt prompt) ->
+        prompt.system().equals("BASE_SP\n") &&
+            prompt.user().equals("Pay order 123")
     ));
   }
 
@@ -122,10 +137,201 @@ public class OrchestratorImplTest {
     OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
 
     // Null lists/options
-    when(inference.sendRequest(anyString(), any()))
+    when(inference.sendRequest(any(ChatPrompt.class)))
         .thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
 
     InferenceResponse resp = orch.run(null, null);
     assertEquals("ok", resp.content());
   }
+
+  @Test
+  @DisplayName("System prompt is compiled once and re-rendered per request until invalidated")
+  void systemPromptIsCompiledOnce() {
+    String sp = "SP {{kb.docs.summary}}\n{{userRequest}}";
+    when(agent.systemPrompt()).thenReturn(sp);
+    when(agent.guardrails()).thenReturn("");
+    when(kb.list("kb://docs/")).thenReturn(List.of(new KnowledgeBaseEntry("kb://docs/A.md", "alpha", "")));
+    when(kb.getServices()).thenReturn(Optional.of(Map.of()));
+    when(inference.sendRequest(any(ChatPrompt.class))).thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    orch.run(List.of(new InferenceRequest.Message("user", "first")), Map.of());
+    orch.run(List.of(new InferenceRequest.Message("user", "second")), Map.of());
+
+    verify(kb, times(1)).list("kb://docs/");
+    verify(inference).sendRequest(argThat((ChatPrompt p) -> p.system().contains("kb://docs/A.md") && p.user().equals("second")));
+
+    orch.invalidatePromptCache();
+    orch.run(List.of(new InferenceRequest.Message("user", "third")), Map.of());
+    verify(kb, times(2)).list("kb://docs/");
+
+    // A new knowledge base version invalidates the compiled prompt
+    when(kb.version()).thenReturn(1L);
+    orch.run(List.of(new InferenceRequest.Message("user", "fourth")), Map.of());
+    orch.run(List.of(new InferenceRequest.Message("user", "fifth")), Map.of());
+    verify(kb, times(3)).list("kb://docs/");
+  }
+
+  @Test
+  @DisplayName("stream() emits progress events, streamed partials and the final model response")
+  void streamEmitsEventsInOrder() {
+    when(agent.systemPrompt()).thenReturn("BASE_SP\n{{userRequest}}");
+    when(agent.guardrails()).thenReturn("");
+    when(kb.getServices()).thenReturn(Optional.of(Map.of()));
+    when(inference.streamRequest(any(ChatPrompt.class))).thenReturn(Flux.just(
+        new InferenceStreamEvent.Token("Hel"),
+        new InferenceStreamEvent.ToolCall("RetrieveContext", "{}"),
+        new InferenceStreamEvent.Token("lo"),
+        new InferenceStreamEvent.Done(new InferenceResponse("Hello", Optional.empty(), ""))));
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    List<OrchestratorEvent> events = orch.stream(List.of(new InferenceRequest.Message("user", "hello")), Map.of())
+        .collectList()
+        .block(Duration.ofSeconds(5));
+
+    assertNotNull(events);
+    assertEquals(7, events.size());
+    assertInstanceOf(OrchestratorEvent.Started.class, events.get(0));
+    assertEquals("BASE_SP\nhello".length(), ((OrchestratorEvent.PromptReady) events.get(1)).promptLength());
+    assertInstanceOf(OrchestratorEvent.GuardrailsPassed.class, events.get(2));
+    assertEquals("Hel", ((OrchestratorEvent.Partial) events.get(3)).text());
+    assertEquals("RetrieveContext", ((OrchestratorEvent.ToolInvoked) events.get(4)).toolName());
+    assertEquals("lo", ((OrchestratorEvent.Partial) events.get(5)).text());
+    assertEquals("Hello", ((OrchestratorEvent.Completed) events.get(6)).response().content());
+    assertTrue(events.stream().allMatch(e -> e.sessionId().equals(events.get(0).sessionId())));
+    verify(inference).streamRequest(new ChatPrompt("BASE_SP\n", "hello"));
+  }
+
+  @Test
+  @DisplayName("runAsync() surfaces guardrails denial as an error without calling inference")
+  void runAsyncGuardrailsDeny() {
+    when(agent.systemPrompt()).thenReturn("BASE");
+    when(agent.guardrails()).thenReturn("deny: delete");
+    when(kb.getServices()).thenReturn(Optional.of(Map.of()));
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    Mono<InferenceResponse> result = orch.runAsync(List.of(new InferenceRequest.Message("user", "please delete file")), Map.of());
+
+    assertThrows(IllegalArgumentException.class, () -> result.block(Duration.ofSeconds(5)));
+    verifyNoInteractions(inference);
+  }
+
+  @Test
+  @DisplayName("options.sessionId continues that conversation; calls without it stay one-shot")
+  void sessionIdOptionSelectsTheSessionRequest() {
+    when(agent.systemPrompt()).thenReturn("BASE_SP\n{{userRequest}}");
+    when(agent.guardrails()).thenReturn("");
+    when(inference.sendSessionRequest(anyString(), any(ChatPrompt.class)))
+        .thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
+    when(inference.streamSessionRequest(anyString(), any(ChatPrompt.class)))
+        .thenReturn(Flux.just(new InferenceStreamEvent.Done(new InferenceResponse("streamed", Optional.empty(), ""))));
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    List<InferenceRequest.Message> msgs = List.of(new InferenceRequest.Message("user", "hello"));
+    Map<String, Object> opts = Map.of(Orchestrator.OPTION_SESSION_ID, "conv-1");
+
+    assertEquals("ok", orch.run(msgs, opts).content());
+    assertEquals("streamed", orch.runAsync(msgs, opts).block(Duration.ofSeconds(5)).content());
+    verify(inference).sendSessionRequest("conv-1", new ChatPrompt("BASE_SP\n", "hello"));
+    verify(inference).streamSessionRequest("conv-1", new ChatPrompt("BASE_SP\n", "hello"));
+    verify(inference, never()).sendRequest(any(ChatPrompt.class));
+  }
+
+  @Test
+  @DisplayName("one-shot requests go through the response cache keyed by prompt version and user request")
+  void oneShotRequestsUseTheResponseCacheUnlessBypassed() {
+    when(agent.systemPrompt()).thenReturn("BASE_SP\n{{userRequest}}");
+    when(agent.guardrails()).thenReturn("");
+    when(inference.cachesResponses()).thenReturn(true);
+    when(inference.sendCachedRequest(any(ChatPrompt.class), any()))
+        .thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
+    when(inference.streamCachedRequest(any(ChatPrompt.class), any()))
+        .thenReturn(Flux.just(new InferenceStreamEvent.Done(new InferenceResponse("streamed", Optional.empty(), ""))));
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    List<InferenceRequest.Message> msgs = List.of(new InferenceRequest.Message("user", "hello"));
+
+    orch.run(msgs, Map.of());
+    assertEquals("streamed", orch.runAsync(msgs, Map.of(Orchestrator.OPTION_NO_SEMANTIC_CACHE, true)).block(Duration.ofSeconds(5)).content());
+    orch.run(msgs, Map.of(Orchestrator.OPTION_NO_CACHE, "true"));
+
+    verify(inference).sendCachedRequest(eq(new ChatPrompt("BASE_SP\n", "hello")), argThat(key -> key != null && key.query().equals("hello") && key.semantic()));
+    verify(inference).streamCachedRequest(eq(new ChatPrompt("BASE_SP\n", "hello")), argThat(key -> key != null && !key.semantic()));
+    verify(inference).sendCachedRequest(eq(new ChatPrompt("BASE_SP\n", "hello")), isNull());
+    verify(inference, never()).sendRequest(any(ChatPrompt.class));
+  }
+
+  @Test
+  @DisplayName("the reactive flow compiles the prompt off non-blocking threads such as the event loop")
+  void streamCompilesThePromptOffNonBlockingThreads() {
+    List<Boolean> nonBlocking = new ArrayList<>();
+    when(agent.systemPrompt()).thenAnswer(inv -> {
+      nonBlocking.add(Schedulers.isInNonBlockingThread());
+      return "BASE_SP\n{{userRequest}}";
+    });
+    when(agent.guardrails()).thenReturn("");
+    when(inference.streamRequest(any(ChatPrompt.class))).thenReturn(Flux.just(
+        new InferenceStreamEvent.Done(new InferenceResponse("ok", Optional.empty(), ""))));
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    InferenceResponse resp = orch.runAsync(List.of(new InferenceRequest.Message("user", "hello")), Map.of())
+        .subscribeOn(Schedulers.parallel())
+        .block(Duration.ofSeconds(5));
+
+    assertEquals("ok", resp.content());
+    assertFalse(nonBlocking.isEmpty());
+    assertFalse(nonBlocking.contains(true));
+  }
+
+  @Test
+  @DisplayName("no cache key is built for sessions or when the response cache is disabled")
+  void buildsNoCacheKeyUnlessTheRequestIsCached() {
+    when(agent.systemPrompt()).thenReturn("BASE_SP\n{{userRequest}}");
+    when(agent.guardrails()).thenReturn("");
+    when(inference.sendRequest(any(ChatPrompt.class))).thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
+    when(inference.sendSessionRequest(anyString(), any(ChatPrompt.class))).thenReturn(new InferenceResponse("ok", Optional.empty(), ""));
+    // Digesting the options walks them with forEach; lookups by name keep working
+    Map<String, Object> options = new HashMap<>(Map.of("auth", "token-a")) {
+      @Override
+      public void forEach(BiConsumer<? super String, ? super Object> action) {
+        throw new AssertionError("cache key built");
+      }
+    };
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    List<InferenceRequest.Message> msgs = List.of(new InferenceRequest.Message("user", "hello"));
+    assertEquals("ok", orch.run(msgs, options).content());
+
+    when(inference.cachesResponses()).thenReturn(true);
+    options.put(Orchestrator.OPTION_SESSION_ID, "conv-1");
+    assertEquals("ok", orch.run(msgs, options).content());
+    verify(inference, never()).sendCachedRequest(any(ChatPrompt.class), any());
+  }
+
+  @Test
+  @DisplayName("options other than the session and cache flags separate response cache entries")
+  void cacheKeyCoversOptionsThatMayChangeTheAnswer() {
+    when(agent.systemPrompt()).thenReturn("BASE_SP\n{{userRequest}}");
+    when(agent.guardrails()).thenReturn("");
+    when(inference.cachesResponses()).thenReturn(true);
+    List<ResponseCache.Key> keys = new ArrayList<>();
+    when(inference.sendCachedRequest(any(ChatPrompt.class), any())).thenAnswer(inv -> {
+      keys.add(inv.getArgument(1));
+      return new InferenceResponse("ok", Optional.empty(), "");
+    });
+
+    OrchestratorImpl orch = new OrchestratorImpl(agent, kb, inference, telemetry);
+    List<InferenceRequest.Message> msgs = List.of(new InferenceRequest.Message("user", "hello"));
+    orch.run(msgs, Map.of());
+    orch.run(msgs, Map.of(Orchestrator.OPTION_NO_SEMANTIC_CACHE, false));
+    orch.run(msgs, Map.of("auth", "token-a"));
+    orch.run(msgs, Map.of("auth", "token-b"));
+    orch.run(msgs, Map.of("auth", "token-a"));
+
+    assertEquals(keys.get(0).promptVersion(), keys.get(1).promptVersion());
+    assertNotEquals(keys.get(0).promptVersion(), keys.get(2).promptVersion());
+    assertNotEquals(keys.get(2).promptVersion(), keys.get(3).promptVersion());
+    assertEquals(keys.get(2).promptVersion(), keys.get(4).promptVersion());
+    assertFalse(keys.get(2).promptVersion().contains("token-a"));
+  }
 }
@@ -0,0 +1,55 @@
+package com.gentorox.services.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PromptTemplate parsing, binding and rendering.
+ */
+class PromptTemplateTest {
+
+  @Test
+  void bindsKnownSlotsAndRendersOpenSlot() {
+    PromptTemplate t = PromptTemplate.compile("A {{x}} B {{userRequest}} C {{userRequest}}")
+        .bind(Map.of("x", "X"), "userRequest");
+
+    assertEquals(2, t.slotCount());
+    assertEquals("A X B hi C hi", t.render("hi"));
+  }
+
+  @Test
+  void splitsOffTheStaticPrefixBeforeTheFirstOpenSlot() {
+    PromptTemplate t = PromptTemplate.compile("A {{x}} B {{userRequest}} C {{userRequest}}")
+        .bind(Map.of("x", "X"), "userRequest");
+
+    assertEquals("A X B ", t.staticPrefix());
+    assertEquals("hi C hi", t.afterStaticPrefix().render("hi"));
+    assertEquals("no slot", PromptTemplate.compile("no slot").bind(Map.of(), "userRequest").staticPrefix());
+  }
+
+  @Test
+  void unknownSlotsAreKeptVerbatim() {
+    PromptTemplate t = PromptTemplate.compile("{{tool.unknown.name}} then {{userRequest}}")
+        .bind(Map.of(), "userRequest");
+
+    assertEquals("{{tool.unknown.name}} then q", t.render("q"));
+  }
+
+  @Test
+  void userValueIsNotExpandedAgain() {
+    PromptTemplate t = PromptTemplate.compile("{{userRequest}}").bind(Map.of("x", "X"), "userRequest");
+
+    assertEquals("{{x}}", t.render("{{x}}"));
+  }
+
+  @Test
+  void unterminatedAndNestedBracesMatchReplaceSemantics() {
+    PromptTemplate t = PromptTemplate.compile("{{{userRequest}}} and {{open").bind(Map.of(), "userRequest");
+
+    assertEquals("{v} and {{open", t.render("v"));
+    assertEquals("", PromptTemplate.compile(null).render("v"));
+  }
+}
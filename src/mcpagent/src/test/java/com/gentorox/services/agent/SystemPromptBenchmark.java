@@ -0,0 +1,166 @@
+package com.gentorox.services.agent;
+
+import com.gentorox.services.knowledgebase.KnowledgeBaseChunkHit;
+import com.gentorox.services.knowledgebase.KnowledgeBaseEntry;
+import com.gentorox.services.knowledgebase.KnowledgeBaseSearchHit;
+import com.gentorox.services.knowledgebase.KnowledgeBaseService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH benchmark comparing the legacy per-request system prompt build (KB tables + repeated
+ * String.replace) with the compiled {@link PromptTemplate} path used by {@link OrchestratorImpl}.
+ *
+ * Run from the module directory after {@code mvn test-compile}:
+ * <pre>
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gentorox.services.agent.SystemPromptBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemPromptBenchmark {
+
+  /** Total number of KB entries, split between docs and per-service OpenAPI docs. */
+  @Param({"1000"})
+  public int entries;
+
+  private static final String USER_PROMPT = "What were the total sales per region in Q3, broken down by product line?";
+
+  private String systemPrompt;
+  private KnowledgeBaseService kb;
+  private PromptTemplate compiled;
+
+  @Setup
+  public void setUp() {
+    systemPrompt = """
+        You are an analytics agent. Use {{tool.retrieveContext.name}} to load resources.
+        ## Knowledge base
+        {{kb.docs.summary}}
+        ## Services
+        {{kb.services.list}}
+        {{kb.services.summary}}
+        ## User Request
+        ```md
+        {{userRequest}}
+        ```
+        Use {{tool.runTsCode.name}} to execute snippets.
+        """;
+    kb = new SyntheticKnowledgeBase(entries, 10);
+    compiled = PromptTemplate.compile(systemPrompt).bind(OrchestratorImpl.placeholders(kb), "userRequest");
+  }
+
+  @Benchmark
+  public String legacyBuildPerRequest() {
+    return legacyBuildSystemPrompt(systemPrompt, kb).replace("{{userRequest}}", USER_PROMPT);
+  }
+
+  @Benchmark
+  public String compiledRender() {
+    return compiled.render(USER_PROMPT);
+  }
+
+  @Benchmark
+  public String compiledColdBuild() {
+    return PromptTemplate.compile(systemPrompt).bind(OrchestratorImpl.placeholders(kb), "userRequest").render(USER_PROMPT);
+  }
+
+  /** Verbatim copy of the pre-compilation OrchestratorImpl.buildSystemPrompt, kept as the baseline. */
+  static String legacyBuildSystemPrompt(String base, KnowledgeBaseService kbService) {
+    StringBuilder docsSummary = new StringBuilder();
+    docsSummary.append(
+        """
+        |------------ | ----------------------------------- |
+        | Resource    | Short description                   |
+        |------------ | ----------------------------------- |
+        """);
+    kbService.list("kb://docs/").forEach(e ->
+        docsSummary.append("| `").append(e.resource()).append("` | ").append(e.hint() == null ? "" : e.hint()).append(" |\n"));
+
+    Set<String> services = kbService.getServices().map(Map::keySet).orElse(Collections.<String>emptySet());
+    StringBuilder serviceSummary = new StringBuilder();
+    kbService.getServices().ifPresent(entries -> {
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        serviceSummary.append("- `").append(entry.getKey()).append("`\n\n");
+        serviceSummary.append(
+            """
+            |------------ | ----------------------------------- |
+            | Resource    | Short description                   |
+            |------------ | ----------------------------------- |
+            """);
+        kbService.list("kb://openapi/%s/docs/".formatted(entry.getKey())).forEach(e ->
+            serviceSummary.append("| `").append(e.resource()).append("` | ").append(e.hint() == null ? "" : e.hint()).append(" |\n"));
+      }
+    });
+
+    Map<String, String> placeholders = new HashMap<>();
+    placeholders.put("tool.retrieveContext.name", "RetrieveContext");
+    placeholders.put("tool.retrieveContext.description", "Retrieve knowledge base resources by names or relative paths and return their contents");
+    placeholders.put("tool.runTsCode.name", "RunTypescriptSnippet");
+    placeholders.put("tool.runTsCode.description", "Execute a short TypeScript snippet in the isolated runtime and return stdout/result");
+    placeholders.put("kb.docs.summary", Arrays.stream(docsSummary.toString().split("\n")).map("%s"::formatted).collect(Collectors.joining("\n")));
+    placeholders.put("kb.services.summary", Arrays.stream(serviceSummary.toString().split("\n")).map("    %s"::formatted).collect(Collectors.joining("\n")));
+    placeholders.put("kb.services.list", String.join("\n", services));
+    for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+      while (base.contains("{{%s}}".formatted(entry.getKey()))) {
+        base = base.replace("{{%s}}".formatted(entry.getKey()), entry.getValue());
+      }
+    }
+    return base;
+  }
+
+  /** In-memory KB whose list() has the same filter + sort cost profile as the default implementation. */
+  static final class SyntheticKnowledgeBase implements KnowledgeBaseService {
+    private final Map<String, KnowledgeBaseEntry> entries = new HashMap<>();
+    private final Map<String, String> services = new LinkedHashMap<>();
+
+    SyntheticKnowledgeBase(int total, int serviceCount) {
+      int docs = total / 2;
+      for (int i = 0; i < docs; i++) {
+        String res = "kb://docs/doc-%04d.md".formatted(i);
+        entries.put(res, new KnowledgeBaseEntry(res, "Describes topic %d, its fields and usage examples.".formatted(i), ""));
+      }
+      int perService = (total - docs) / serviceCount;
+      for (int s = 0; s < serviceCount; s++) {
+        String ns = "openapi_service_" + s;
+        services.put(ns, "/tmp/sdk/" + ns);
+        for (int i = 0; i < perService; i++) {
+          String res = "kb://openapi/%s/docs/Model%04d.md".formatted(ns, i);
+          entries.put(res, new KnowledgeBaseEntry(res, "Schema of Model%d exposed by %s.".formatted(i, ns), ""));
+        }
+      }
+    }
+
+    @Override public void initialize(Path foundationRoot) { }
+
+    @Override
+    public List<KnowledgeBaseEntry> list(String dirPrefix) {
+      return entries.values().stream()
+          .filter(e -> dirPrefix == null || e.resource().startsWith(dirPrefix))
+          .sorted(Comparator.comparing(KnowledgeBaseEntry::resource))
+          .toList();
+    }
+
+    @Override public List<KnowledgeBaseSearchHit> search(String query, int k) { return List.of(); }
+    @Override public List<KnowledgeBaseChunkHit> searchChunks(String query, int k) { return List.of(); }
+    @Override public Optional<String> getContent(String resourceUri) { return Optional.empty(); }
+    @Override public Optional<Map<String, String>> getServices() { return Optional.of(Map.copyOf(services)); }
+    @Override public boolean loadedFromCache() { return false; }
+    @Override public long version() { return 1; }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SystemPromptBenchmark.class.getSimpleName()).build()).run();
+  }
+}
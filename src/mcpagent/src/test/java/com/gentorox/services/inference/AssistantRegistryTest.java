@@ -0,0 +1,82 @@
+package com.gentorox.services.inference;
+
+import com.gentorox.tools.LangChain4jCalculatorTool;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.ToolExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AssistantRegistry: assistants are built once per tool set and reused afterwards.
+ */
+class AssistantRegistryTest {
+
+  private final AtomicInteger builds = new AtomicInteger();
+  private final List<Map<ToolSpecification, ToolExecutor>> builtWith = new ArrayList<>();
+
+  private AssistantRegistry<String> registry(int max) {
+    return new AssistantRegistry<>(tools -> {
+      builtWith.add(tools);
+      return "assistant-" + builds.incrementAndGet();
+    }, max);
+  }
+
+  @Test
+  void sameToolInstancesReuseAssistant() {
+    AssistantRegistry<String> registry = registry(8);
+    LangChain4jCalculatorTool calculator = new LangChain4jCalculatorTool();
+
+    AssistantRegistry.Lookup<String> first = registry.get(List.of(calculator));
+    AssistantRegistry.Lookup<String> second = registry.get(List.of(calculator));
+
+    assertFalse(first.hit());
+    assertTrue(second.hit());
+    assertEquals(first.assistant(), second.assistant());
+    assertEquals(1, builds.get());
+    assertEquals(5, builtWith.get(0).size(), "one executor per @Tool method");
+  }
+
+  @Test
+  void distinctInstancesBuildDistinctAssistants() {
+    AssistantRegistry<String> registry = registry(8);
+
+    registry.get(List.of(new LangChain4jCalculatorTool()));
+    registry.get(List.of(new LangChain4jCalculatorTool()));
+
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  void objectsWithoutToolsAndNullsDoNotChangeTheKey() {
+    AssistantRegistry<String> registry = registry(8);
+    LangChain4jCalculatorTool calculator = new LangChain4jCalculatorTool();
+
+    registry.get(List.of(calculator));
+    AssistantRegistry.Lookup<String> lookup = registry.get(Arrays.asList(calculator, null, List.of(), "not a tool"));
+
+    assertTrue(lookup.hit());
+    assertEquals(1, builds.get());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedToolSets() {
+    AssistantRegistry<String> registry = registry(2);
+    LangChain4jCalculatorTool a = new LangChain4jCalculatorTool();
+    LangChain4jCalculatorTool b = new LangChain4jCalculatorTool();
+    LangChain4jCalculatorTool c = new LangChain4jCalculatorTool();
+
+    registry.get(List.of(a));
+    registry.get(List.of(b));
+    registry.get(List.of(c));
+
+    assertEquals(2, registry.size());
+    assertFalse(registry.get(List.of(a)).hit());
+  }
+}
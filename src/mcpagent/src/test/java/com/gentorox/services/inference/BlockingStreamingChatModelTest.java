@@ -0,0 +1,98 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BlockingStreamingChatModel: blocking answers are replayed through the streaming callbacks.
+ */
+class BlockingStreamingChatModelTest {
+
+  private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("hi"));
+
+  @Test
+  void deliversTextAsSingleTokenThenCompletes() {
+    ChatLanguageModel blocking = messages -> Response.from(AiMessage.from("hello there"));
+    RecordingHandler handler = new RecordingHandler();
+
+    new BlockingStreamingChatModel(blocking, Runnable::run).generate(MESSAGES, handler);
+
+    assertEquals(List.of("hello there"), handler.tokens);
+    assertEquals("hello there", handler.completed.get().content().text());
+    assertNull(handler.error.get());
+  }
+
+  @Test
+  void toolRequestsCompleteWithoutTokens() {
+    ToolExecutionRequest call = ToolExecutionRequest.builder().name("add").arguments("{}").build();
+    ChatLanguageModel blocking = new ChatLanguageModel() {
+      @Override public Response<AiMessage> generate(List<ChatMessage> messages) { throw new AssertionError("tools expected"); }
+      @Override public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> specs) {
+        return Response.from(AiMessage.from(call));
+      }
+    };
+    RecordingHandler handler = new RecordingHandler();
+
+    new BlockingStreamingChatModel(blocking, Runnable::run).generate(MESSAGES, List.of(), handler);
+
+    assertTrue(handler.tokens.isEmpty());
+    assertEquals(List.of(call), handler.completed.get().content().toolExecutionRequests());
+  }
+
+  @Test
+  void failuresAreReportedThroughOnError() {
+    ChatLanguageModel blocking = messages -> { throw new IllegalStateException("down"); };
+    RecordingHandler handler = new RecordingHandler();
+
+    new BlockingStreamingChatModel(blocking, Runnable::run).generate(MESSAGES, handler);
+
+    assertEquals("down", handler.error.get().getMessage());
+    assertNull(handler.completed.get());
+  }
+
+  @Test
+  void generatesOffTheCallingThread() throws Exception {
+    Thread caller = Thread.currentThread();
+    AtomicReference<Thread> generatedOn = new AtomicReference<>();
+    ChatLanguageModel blocking = messages -> {
+      generatedOn.set(Thread.currentThread());
+      return Response.from(AiMessage.from("ok"));
+    };
+    CompletableFuture<Response<AiMessage>> done = new CompletableFuture<>();
+
+    new BlockingStreamingChatModel(blocking).generate(MESSAGES, new StreamingResponseHandler<>() {
+      @Override public void onNext(String token) {}
+      @Override public void onComplete(Response<AiMessage> response) { done.complete(response); }
+      @Override public void onError(Throwable t) { done.completeExceptionally(t); }
+    });
+
+    assertEquals("ok", done.get(5, TimeUnit.SECONDS).content().text());
+    assertNotSame(caller, generatedOn.get());
+    assertTrue(generatedOn.get().isVirtual());
+  }
+
+  private static final class RecordingHandler implements StreamingResponseHandler<AiMessage> {
+    final List<String> tokens = new ArrayList<>();
+    final AtomicReference<Response<AiMessage>> completed = new AtomicReference<>();
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    @Override public void onNext(String token) { tokens.add(token); }
+    @Override public void onComplete(Response<AiMessage> response) { completed.set(response); }
+    @Override public void onError(Throwable t) { error.set(t); }
+  }
+}
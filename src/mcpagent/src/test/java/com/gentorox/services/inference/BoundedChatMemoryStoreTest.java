@@ -0,0 +1,61 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BoundedChatMemoryStore: sessions expire after their TTL and the least recently used ones are evicted.
+ */
+class BoundedChatMemoryStoreTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private static List<ChatMessage> messages(int n) {
+    return java.util.stream.IntStream.range(0, n).<ChatMessage>mapToObj(i -> UserMessage.from("m" + i)).toList();
+  }
+
+  @Test
+  void expiresIdleSessions() {
+    BoundedChatMemoryStore store = new BoundedChatMemoryStore(Duration.ofSeconds(10), 100, now::get);
+    store.updateMessages("a", messages(2));
+    store.updateMessages("b", messages(3));
+
+    now.addAndGet(Duration.ofSeconds(6).toNanos());
+    assertEquals(2, store.getMessages("a").size());
+
+    // "b" idled past the TTL; "a" was read 5 s ago
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    assertTrue(store.getMessages("b").isEmpty());
+    assertEquals(2, store.getMessages("a").size());
+    assertEquals(new BoundedChatMemoryStore.Stats(1, 2, 0, 1), store.stats());
+
+    // Writes purge expired sessions too
+    now.addAndGet(Duration.ofSeconds(11).toNanos());
+    store.updateMessages("c", messages(1));
+    assertEquals(new BoundedChatMemoryStore.Stats(1, 1, 0, 2), store.stats());
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedSessionPastTheCap() {
+    BoundedChatMemoryStore store = new BoundedChatMemoryStore(Duration.ofMinutes(5), 2, now::get);
+    store.updateMessages("a", messages(1));
+    store.updateMessages("b", messages(1));
+    store.getMessages("a");
+    store.updateMessages("c", messages(1));
+
+    assertTrue(store.getMessages("b").isEmpty());
+    assertEquals(1, store.getMessages("a").size());
+    assertEquals(1, store.getMessages("c").size());
+    assertEquals(new BoundedChatMemoryStore.Stats(2, 2, 1, 0), store.stats());
+
+    store.deleteMessages("a");
+    assertEquals(new BoundedChatMemoryStore.Stats(1, 1, 1, 0), store.stats());
+  }
+}
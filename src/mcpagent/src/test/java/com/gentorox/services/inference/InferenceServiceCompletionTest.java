@@ -0,0 +1,73 @@
+package com.gentorox.services.inference;
+
+import com.gentorox.services.telemetry.TelemetryService;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the stateless completion path: per-call options map to dedicated chat models built once.
+ */
+class InferenceServiceCompletionTest {
+
+  private static InferenceService service() {
+    ProviderProperties.ProviderSettings openai = new ProviderProperties.ProviderSettings();
+    openai.setApiKey("test-key");
+    openai.setModelName("gpt-4o-mini");
+    ProviderProperties props = new ProviderProperties();
+    props.setDefaultProvider("openai");
+    props.setProviders(Map.of("openai", openai));
+    return new InferenceService(props, mock(TelemetryService.class));
+  }
+
+  @Test
+  void equalOptionsShareOneChatModelAndDefaultsUseTheSharedModel() {
+    InferenceService service = service();
+
+    var defaults = service.completionModel(CompletionOptions.DEFAULTS);
+    assertSame(defaults, service.completionModel(new CompletionOptions(false, null, null)));
+
+    var json = service.completionModel(CompletionOptions.jsonOutput().withMaxTokens(256));
+    assertNotSame(defaults, json);
+    assertSame(json, service.completionModel(new CompletionOptions(true, null, 256)));
+    assertNotSame(json, service.completionModel(CompletionOptions.jsonOutput().withTemperature(0.0)));
+  }
+
+  @Test
+  void routesOverTheListedProvidersDefaultFirst() {
+    ProviderProperties.ProviderSettings openai = new ProviderProperties.ProviderSettings();
+    openai.setApiKey("test-key");
+    openai.setModelName("gpt-4o-mini");
+    ProviderProperties.ProviderSettings anthropic = new ProviderProperties.ProviderSettings();
+    anthropic.setApiKey("test-key");
+    anthropic.setModelName("claude-3-5-sonnet");
+    ProviderProperties.ProviderSettings gemini = new ProviderProperties.ProviderSettings();
+    gemini.setModelName("gemini-2.0-flash");
+    ProviderProperties props = new ProviderProperties();
+    props.setDefaultProvider("anthropic");
+    props.setProviders(new LinkedHashMap<>(Map.of("openai", openai, "anthropic", anthropic, "gemini", gemini)));
+
+    // Other providers with an API key are not routed to unless listed
+    assertEquals(List.of("anthropic"), List.copyOf(new InferenceService(props, mock(TelemetryService.class)).routeStats().keySet()));
+    props.getRouting().setProviders(List.of("gemini"));
+    assertThrows(IllegalArgumentException.class, () -> new InferenceService(props, mock(TelemetryService.class)));
+
+    props.getRouting().setProviders(List.of("openai", "anthropic"));
+    InferenceService service = new InferenceService(props, mock(TelemetryService.class));
+    assertEquals(List.of("anthropic", "openai"), List.copyOf(service.routeStats().keySet()));
+    RoutingChatModel router = assertInstanceOf(RoutingChatModel.class, service.completionModel(CompletionOptions.jsonOutput()));
+    assertEquals(List.of("anthropic:claude-3-5-sonnet", "openai:gpt-4o-mini"),
+        router.routes().stream().map(ModelRoute::name).toList());
+  }
+
+  @Test
+  void rejectsOutOfRangeOptions() {
+    assertThrows(IllegalArgumentException.class, () -> CompletionOptions.DEFAULTS.withTemperature(3.0));
+    assertThrows(IllegalArgumentException.class, () -> CompletionOptions.DEFAULTS.withMaxTokens(0));
+  }
+}
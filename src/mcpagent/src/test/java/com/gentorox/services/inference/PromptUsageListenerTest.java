@@ -0,0 +1,44 @@
+package com.gentorox.services.inference;
+
+import com.gentorox.services.telemetry.TelemetryService;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.listener.ChatModelRequest;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponse;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class PromptUsageListenerTest {
+
+  private static ChatModelRequest request(ChatMessage... messages) {
+    return new ChatModelRequest("gpt-4o-mini", null, null, null, List.of(messages), List.of());
+  }
+
+  @Test
+  void countsPrefixReuseAcrossCallsAndTokenUsage() {
+    TelemetryService telemetry = mock(TelemetryService.class);
+    PromptUsageListener listener = new PromptUsageListener(telemetry, "openai", "gpt-4o-mini");
+
+    listener.onRequest(new ChatModelRequestContext(request(SystemMessage.from("SP"), UserMessage.from("a")), new HashMap<>()));
+    listener.onRequest(new ChatModelRequestContext(request(SystemMessage.from("SP"), UserMessage.from("b")), new HashMap<>()));
+    listener.onRequest(new ChatModelRequestContext(request(SystemMessage.from("SP2"), UserMessage.from("c")), new HashMap<>()));
+    listener.onRequest(new ChatModelRequestContext(request(UserMessage.from("no system")), new HashMap<>()));
+
+    ChatModelRequest req = request(UserMessage.from("a"));
+    ChatModelResponse resp = new ChatModelResponse("id", "gpt-4o-mini", new TokenUsage(120, 8), null, AiMessage.from("ok"));
+    listener.onResponse(new ChatModelResponseContext(resp, req, new HashMap<>()));
+
+    verify(telemetry).countPromptPrefix("openai", "gpt-4o-mini", true);
+    verify(telemetry, times(2)).countPromptPrefix("openai", "gpt-4o-mini", false);
+    verify(telemetry).countTokens("openai", "gpt-4o-mini", 120, 8);
+  }
+}
@@ -0,0 +1,80 @@
+package com.gentorox.services.inference;
+
+import com.gentorox.services.knowledgebase.HashingEmbeddingModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResponseCacheTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private ResponseCache exactOnly(int maxEntries) {
+    return new ResponseCache(Duration.ofSeconds(60), maxEntries, null, ResponseCache.DEFAULT_SIMILARITY, clock::get);
+  }
+
+  private static void answer(ResponseCache cache, String scope, String query, String response) {
+    cache.put(cache.lookup(scope, query, true), response);
+  }
+
+  @Test
+  void exactTierIsScopedAndExpiresAfterTheTtl() {
+    ResponseCache cache = exactOnly(10);
+    answer(cache, "model\0v1", "list the services", "a, b");
+
+    ResponseCache.Probe hit = cache.lookup("model\0v1", "list the services", true);
+    assertEquals(ResponseCache.Result.EXACT, hit.result());
+    assertEquals("a, b", hit.response());
+    assertFalse(cache.lookup("model\0v2", "list the services", true).hit());
+    assertFalse(cache.lookup("model\0v1", "list the services!", true).hit());
+
+    clock.addAndGet(Duration.ofSeconds(61).toNanos());
+    assertEquals(ResponseCache.Result.MISS, cache.lookup("model\0v1", "list the services", true).result());
+    assertEquals(new ResponseCache.Stats(0, 1, 0, 4, 0), cache.stats());
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedEntryPastTheCap() {
+    ResponseCache cache = exactOnly(2);
+    answer(cache, "s", "a", "A");
+    answer(cache, "s", "b", "B");
+    cache.lookup("s", "a", false);
+    answer(cache, "s", "c", "C");
+
+    assertTrue(cache.lookup("s", "a", false).hit());
+    assertFalse(cache.lookup("s", "b", false).hit());
+    assertTrue(cache.lookup("s", "c", false).hit());
+    assertEquals(1, cache.stats().evictions());
+  }
+
+  @Test
+  void semanticTierAnswersSimilarQueriesOfTheSameScopeAboveTheThreshold() {
+    ResponseCache cache = new ResponseCache(Duration.ofSeconds(60), 10, new HashingEmbeddingModel(), 0.8, clock::get);
+    answer(cache, "s", "How do I create a payment with the Payments API?", "POST /payments");
+
+    ResponseCache.Probe similar = cache.lookup("s", "how do I create a payment with the payments API", true);
+    assertEquals(ResponseCache.Result.SEMANTIC, similar.result());
+    assertEquals("POST /payments", similar.response());
+
+    assertFalse(cache.lookup("s", "how do I create a payment with the payments API", false).hit());
+    assertFalse(cache.lookup("other", "how do I create a payment with the payments API", true).hit());
+    assertFalse(cache.lookup("s", "Which webhooks fire after a refund?", true).hit());
+  }
+
+  @Test
+  void entriesCachedWithoutTheSemanticTierAreStillEmbeddedByTheLookup() {
+    EmbeddingModel embeddings = spy(new HashingEmbeddingModel());
+    ResponseCache cache = new ResponseCache(Duration.ofSeconds(60), 10, embeddings, 0.8, clock::get);
+    String query = "list every service in the knowledge base";
+    ResponseCache.Probe probe = cache.lookup("s", query, false);
+    cache.put(probe, "a, b");
+    verify(embeddings, times(1)).embed(query);
+
+    assertEquals(ResponseCache.Result.SEMANTIC, cache.lookup("s", "List every service in the knowledge base.", true).result());
+  }
+}
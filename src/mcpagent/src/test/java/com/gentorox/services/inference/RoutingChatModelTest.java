@@ -0,0 +1,288 @@
+package com.gentorox.services.inference;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for routing chat requests over several providers: policy ordering, failover, hedging, per-request routes
+ * and statistics.
+ */
+class RoutingChatModelTest {
+
+  /** Answers with its name after an optional delay, or fails while {@code failing} is set. */
+  private static class FakeModel implements ChatLanguageModel {
+    final String name;
+    final long delayMillis;
+    volatile boolean failing;
+    final AtomicInteger calls = new AtomicInteger();
+
+    FakeModel(String name, long delayMillis) {
+      this.name = name;
+      this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+      calls.incrementAndGet();
+      if (delayMillis > 0) {
+        try {
+          Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (failing) throw new IllegalStateException(name + " unavailable");
+      return Response.from(AiMessage.from(name));
+    }
+  }
+
+  private static ModelRoute<ChatLanguageModel> route(FakeModel model, int weight) {
+    return new ModelRoute<>(model.name, model, weight, new RollingLatency(RollingLatency.DEFAULT_WINDOW));
+  }
+
+  @Test
+  void failsOverToTheNextRouteAndRecordsTheFailure() {
+    FakeModel primary = new FakeModel("primary", 0);
+    FakeModel secondary = new FakeModel("secondary", 0);
+    primary.failing = true;
+    RoutingChatModel router = new RoutingChatModel(List.of(route(primary, 1), route(secondary, 1)), RoutingPolicy.FAILOVER, null);
+
+    assertEquals("secondary", router.generate("hi"));
+    assertEquals(1, router.failovers());
+    assertEquals(1.0, router.routes().get(0).latency().snapshot().errorRate());
+
+    secondary.failing = true;
+    IllegalStateException error = assertThrows(IllegalStateException.class, () -> router.generate("hi"));
+    assertEquals("secondary unavailable", error.getMessage());
+  }
+
+  @Test
+  void movesFailingRoutesLastUntilTheCoolDownPasses() {
+    FakeModel primary = new FakeModel("primary", 0);
+    FakeModel secondary = new FakeModel("secondary", 0);
+    primary.failing = true;
+    RoutingChatModel router = new RoutingChatModel(List.of(route(primary, 1), route(secondary, 1)), RoutingPolicy.FAILOVER, null);
+
+    for (int i = 0; i < RoutingPolicy.MIN_SAMPLES; i++) router.generate("hi");
+    assertEquals(RoutingPolicy.MIN_SAMPLES, primary.calls.get());
+
+    assertEquals("secondary", router.generate("hi"));
+    assertEquals(RoutingPolicy.MIN_SAMPLES, primary.calls.get());
+  }
+
+  @Test
+  void lowestLatencyPrefersTheFasterRouteOnceMeasured() {
+    FakeModel slow = new FakeModel("slow", 0);
+    FakeModel fast = new FakeModel("fast", 0);
+    ModelRoute<ChatLanguageModel> slowRoute = route(slow, 1);
+    ModelRoute<ChatLanguageModel> fastRoute = route(fast, 1);
+    slowRoute.latency().record(TimeUnit.MILLISECONDS.toNanos(900), true);
+    fastRoute.latency().record(TimeUnit.MILLISECONDS.toNanos(100), true);
+
+    RoutingChatModel router = new RoutingChatModel(List.of(slowRoute, fastRoute), RoutingPolicy.LOWEST_LATENCY, null);
+
+    assertEquals("fast", router.generate("hi"));
+    assertEquals(0, slow.calls.get());
+  }
+
+  @Test
+  void keepsTheRouteOfARequestAndStopsFailingOverOnceAToolRan() {
+    FakeModel primary = new FakeModel("primary", 0);
+    FakeModel secondary = new FakeModel("secondary", 0);
+    RoutingChatModel router = new RoutingChatModel(List.of(route(primary, 1), route(secondary, 1)), RoutingPolicy.FAILOVER, null);
+    ToolExecutionRequest call = ToolExecutionRequest.builder().id("1").name("lookup").arguments("{}").build();
+    List<ChatMessage> afterTool = List.of(UserMessage.from("hi"), AiMessage.from(call), ToolExecutionResultMessage.from(call, "42"));
+
+    primary.failing = true;
+    RequestRoute.within(null, () -> {
+      // Before any tool ran the request fails over, then stays on the route that answered
+      assertEquals("secondary", router.generate(List.of(UserMessage.from("hi"))).content().text());
+      primary.failing = false;
+      assertEquals("secondary", router.generate(afterTool).content().text());
+
+      secondary.failing = true;
+      assertThrows(IllegalStateException.class, () -> router.generate(afterTool));
+      return null;
+    });
+    assertEquals(1, primary.calls.get());
+    assertEquals(1, router.failovers());
+  }
+
+  @Test
+  void streamingKeepsTheRouteThatAnsweredForCallsMadeFromItsCompletion() throws InterruptedException {
+    FakeModel primary = new FakeModel("primary", 0);
+    FakeModel secondary = new FakeModel("secondary", 0);
+    RoutingStreamingChatModel router = new RoutingStreamingChatModel(List.of(
+        new ModelRoute<>("primary", new BlockingStreamingChatModel(primary), 1, new RollingLatency(8)),
+        new ModelRoute<>("secondary", new BlockingStreamingChatModel(secondary), 1, new RollingLatency(8))),
+        RoutingPolicy.FAILOVER);
+    ToolExecutionRequest call = ToolExecutionRequest.builder().id("1").name("lookup").arguments("{}").build();
+    List<ChatMessage> afterTool = List.of(UserMessage.from("hi"), AiMessage.from(call), ToolExecutionResultMessage.from(call, "42"));
+
+    primary.failing = true;
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicReference<Throwable> followUpError = new AtomicReference<>();
+    router.generate(List.of(UserMessage.from("hi")), new StreamingResponseHandler<>() {
+      @Override
+      public void onNext(String token) {
+      }
+
+      @Override
+      public void onComplete(Response<AiMessage> response) {
+        // As AI services do after running a tool: the follow-up neither goes back to primary nor fails over
+        primary.failing = false;
+        secondary.failing = true;
+        router.generate(afterTool, new StreamingResponseHandler<>() {
+          @Override
+          public void onNext(String token) {
+          }
+
+          @Override
+          public void onComplete(Response<AiMessage> response) {
+            done.countDown();
+          }
+
+          @Override
+          public void onError(Throwable error) {
+            followUpError.set(error);
+            done.countDown();
+          }
+        });
+      }
+
+      @Override
+      public void onError(Throwable error) {
+        done.countDown();
+      }
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals("secondary unavailable", followUpError.get().getMessage());
+    assertEquals(1, primary.calls.get());
+  }
+
+  @Test
+  void weightedSpreadsFirstChoicesByWeight() {
+    List<ModelRoute<String>> routes = List.of(
+        new ModelRoute<>("a", "a", 3, new RollingLatency(8)),
+        new ModelRoute<>("b", "b", 1, new RollingLatency(8)),
+        new ModelRoute<>("off", "off", 0, new RollingLatency(8)));
+
+    int a = 0;
+    for (int i = 0; i < 4000; i++) {
+      List<ModelRoute<String>> order = RoutingPolicy.WEIGHTED.order(routes);
+      assertEquals(3, order.size());
+      assertNotEquals("off", order.get(0).name());
+      if (order.get(0).name().equals("a")) a++;
+    }
+    assertTrue(a > 2700 && a < 3300, "a first " + a + " times out of 4000");
+  }
+
+  @Test
+  void hedgesASlowRequestWithTheNextRoute() {
+    FakeModel slow = new FakeModel("slow", 2000);
+    FakeModel fast = new FakeModel("fast", 0);
+    RoutingChatModel router = new RoutingChatModel(List.of(route(slow, 1), route(fast, 1)), RoutingPolicy.FAILOVER,
+        Duration.ofMillis(50));
+
+    long started = System.nanoTime();
+    assertEquals("fast", router.generate("hi"));
+    assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(1, router.hedges());
+  }
+
+  @Test
+  void streamingFailsOverOnlyBeforeTheFirstToken() throws InterruptedException {
+    AtomicInteger tokensBeforeFailure = new AtomicInteger();
+    StreamingChatLanguageModel broken = new StreamingChatLanguageModel() {
+      @Override
+      public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        for (int i = 0; i < tokensBeforeFailure.get(); i++) handler.onNext("partial");
+        handler.onError(new IllegalStateException("stream broken"));
+      }
+    };
+    StreamingChatLanguageModel backup = new BlockingStreamingChatModel(new FakeModel("backup", 0));
+    RoutingStreamingChatModel router = new RoutingStreamingChatModel(List.of(
+        new ModelRoute<>("broken", broken, 1, new RollingLatency(8)),
+        new ModelRoute<>("backup", backup, 1, new RollingLatency(8))), RoutingPolicy.FAILOVER);
+
+    assertEquals(List.of("backup"), stream(router).tokens);
+
+    tokensBeforeFailure.set(1);
+    Collected partial = stream(router);
+    assertEquals(List.of("partial"), partial.tokens);
+    assertEquals("stream broken", partial.error.get().getMessage());
+  }
+
+  @Test
+  void supportsOnlyTheCapabilitiesOfEveryRoute() {
+    FakeModel json = new FakeModel("json", 0) {
+      @Override
+      public Set<Capability> supportedCapabilities() {
+        return Set.of(Capability.RESPONSE_FORMAT_JSON_SCHEMA);
+      }
+    };
+    FakeModel plain = new FakeModel("plain", 0);
+
+    assertEquals(Set.of(Capability.RESPONSE_FORMAT_JSON_SCHEMA),
+        new RoutingChatModel(List.of(route(json, 1)), RoutingPolicy.FAILOVER, null).supportedCapabilities());
+    assertEquals(Set.of(),
+        new RoutingChatModel(List.of(route(json, 1), route(plain, 1)), RoutingPolicy.FAILOVER, null).supportedCapabilities());
+  }
+
+  @Test
+  void rollingLatencyReportsPercentilesAndErrorRateOverTheWindow() {
+    RollingLatency latency = new RollingLatency(100);
+    for (int i = 1; i <= 100; i++) latency.record(TimeUnit.MILLISECONDS.toNanos(i), true);
+    assertEquals(new RollingLatency.Snapshot(100, 50, 99, 0.0), latency.snapshot());
+
+    for (int i = 0; i < 25; i++) latency.record(TimeUnit.MILLISECONDS.toNanos(1), false);
+    assertEquals(0.25, latency.snapshot().errorRate());
+    assertEquals(Long.MAX_VALUE, new RollingLatency(4).nanosSinceLastFailure());
+  }
+
+  private record Collected(List<String> tokens, AtomicReference<Throwable> error) {}
+
+  private static Collected stream(StreamingChatLanguageModel model) throws InterruptedException {
+    Collected collected = new Collected(new ArrayList<>(), new AtomicReference<>());
+    CountDownLatch done = new CountDownLatch(1);
+    model.generate("hi", new StreamingResponseHandler<>() {
+      @Override
+      public void onNext(String token) {
+        collected.tokens.add(token);
+      }
+
+      @Override
+      public void onComplete(Response<AiMessage> response) {
+        done.countDown();
+      }
+
+      @Override
+      public void onError(Throwable error) {
+        collected.error.set(error);
+        done.countDown();
+      }
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    return collected;
+  }
+}
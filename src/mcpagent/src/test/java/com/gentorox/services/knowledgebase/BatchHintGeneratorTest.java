@@ -0,0 +1,83 @@
+package com.gentorox.services.knowledgebase;
+
+import com.gentorox.core.model.InferenceResponse;
+import com.gentorox.services.inference.InferenceService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for BatchHintGenerator: token-budget batching, JSON parsing and per-entry fallback.
+ */
+class BatchHintGeneratorTest {
+
+  private static InferenceResponse answer(String text) {
+    return new InferenceResponse(text, Optional.empty(), "trace");
+  }
+
+  private static List<BatchHintGenerator.Request> requests(int n, int contentLength) {
+    return IntStream.range(0, n)
+        .mapToObj(i -> new BatchHintGenerator.Request("kb://docs/D" + i + ".md", "D" + i + ".md", "x".repeat(contentLength)))
+        .toList();
+  }
+
+  @Test
+  void packsRequestsWithinTokenBudget() {
+    BatchHintGenerator generator = new BatchHintGenerator(mock(InferenceService.class), 1000);
+
+    // ~220 tokens per entry (800 excerpt chars / 4 + overhead) + 120 prompt overhead -> 3 per batch
+    List<List<BatchHintGenerator.Request>> batches = generator.batches(requests(7, 5000));
+
+    assertEquals(List.of(3, 3, 1), batches.stream().map(List::size).toList());
+    assertEquals(BatchHintGenerator.MAX_BATCH_SIZE,
+        new BatchHintGenerator(mock(InferenceService.class), 1_000_000).batches(requests(40, 10)).get(0).size());
+    assertEquals(1, new BatchHintGenerator(mock(InferenceService.class), 1).batches(requests(2, 10)).get(0).size());
+  }
+
+  @Test
+  void oneCallForTheBatchAndFallbackForMissingEntries() {
+    InferenceService inference = mock(InferenceService.class);
+    when(inference.complete(contains("JSON array"))).thenReturn(answer("""
+        ```json
+        [{"id": 1, "hint": "First doc."}, {"id": 3, "hint": "Third doc."}]
+        ```"""));
+    when(inference.complete(startsWith("Given the following file"))).thenReturn(answer("Second doc."));
+    BatchHintGenerator generator = new BatchHintGenerator(inference, 4000);
+
+    Map<String, String> hints = generator.generate(requests(3, 10));
+
+    assertEquals(Map.of("kb://docs/D0.md", "First doc.", "kb://docs/D1.md", "Second doc.", "kb://docs/D2.md", "Third doc."), hints);
+    verify(inference, times(2)).complete(anyString());
+    verify(inference, never()).sendRequest(anyString(), any());
+  }
+
+  @Test
+  void unparsableAnswerFallsBackToOneCallPerEntry() {
+    InferenceService inference = mock(InferenceService.class);
+    when(inference.complete(contains("JSON array"))).thenReturn(answer("Sorry, here are some hints: ..."));
+    when(inference.complete(startsWith("Given the following file"))).thenReturn(answer("A doc."));
+    BatchHintGenerator generator = new BatchHintGenerator(inference, 4000);
+
+    Map<String, String> hints = generator.generate(requests(2, 10));
+
+    assertEquals(2, hints.size());
+    verify(inference, times(3)).complete(anyString());
+  }
+
+  @Test
+  void excerptCutsOnCodePointBoundaries() {
+    String emoji = "\uD83D\uDE80"; // one code point, two chars
+    String text = "x".repeat(BatchHintGenerator.EXCERPT_CHARS - 1) + emoji + "tail";
+
+    String excerpt = BatchHintGenerator.excerpt(text);
+    assertEquals("x".repeat(BatchHintGenerator.EXCERPT_CHARS - 1), excerpt);
+    assertEquals("é".repeat(BatchHintGenerator.EXCERPT_CHARS), BatchHintGenerator.excerpt("é".repeat(1000)));
+  }
+}
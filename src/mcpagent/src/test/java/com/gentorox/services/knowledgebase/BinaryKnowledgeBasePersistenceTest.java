@@ -0,0 +1,95 @@
+package com.gentorox.services.knowledgebase;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BinaryKnowledgeBasePersistence: lossless round trip of every state component and rejection of
+ * foreign or truncated files.
+ */
+class BinaryKnowledgeBasePersistenceTest {
+
+  private static KnowledgeBaseState sampleState() {
+    List<KnowledgeBaseEntry> entries = List.of(
+        new KnowledgeBaseEntry("kb://docs/Orders.md", "How orders work", null, "file:///foundation/docs/Orders.md"),
+        new KnowledgeBaseEntry("kb://openapi/ns1/docs/OrderApi.md", "Order API — créer une commande", null, "blob://abc"),
+        new KnowledgeBaseEntry("kb://docs/Inline.md", null, "inline content", null));
+    Bm25Index index = Bm25Index.build(List.of(
+        new KnowledgeBaseEntry("kb://docs/Orders.md", "How orders work", "Create and refund orders"),
+        new KnowledgeBaseEntry("kb://openapi/ns1/docs/OrderApi.md", "Order API", "POST /orders")));
+    List<KnowledgeBaseSource> sources = List.of(
+        new KnowledgeBaseSource("docs/Orders.md", 24, 1_700_000_000_000L, 0xFFFF_FFFFL, null, List.of("kb://docs/Orders.md")),
+        new KnowledgeBaseSource("openapi/api.json", 42, 1_700_000_000_001L, 7, "ns1", List.of("kb://openapi/ns1/docs/OrderApi.md")));
+    return new KnowledgeBaseState("sig-1", entries, Map.of("ns1", "/tmp/sdk/ns1"), index.snapshot(), sources);
+  }
+
+  @Test
+  void roundTripsEveryComponent(@TempDir Path tmp) throws Exception {
+    BinaryKnowledgeBasePersistence p = new BinaryKnowledgeBasePersistence();
+    Path file = tmp.resolve("state/knowledge-base-state.bin");
+    KnowledgeBaseState state = sampleState();
+
+    assertTrue(p.load(file).isEmpty());
+    p.save(file, state);
+    p.save(file, state); // replaces the previous file
+    KnowledgeBaseState loaded = p.load(file).orElseThrow();
+
+    assertEquals("sig-1", loaded.signature());
+    assertEquals(state.entries(), List.copyOf(loaded.entries()));
+    assertEquals(state.services(), loaded.services());
+    assertEquals(state.sources(), loaded.sources());
+    assertEquals(state.searchIndex().resources(), loaded.searchIndex().resources());
+    assertArrayEquals(state.searchIndex().docLengths(), loaded.searchIndex().docLengths());
+    assertEquals(state.searchIndex().postings().keySet(), loaded.searchIndex().postings().keySet());
+    state.searchIndex().postings().forEach((term, pairs) -> assertArrayEquals(pairs, loaded.searchIndex().postings().get(term)));
+    assertEquals(Bm25Index.restore(state.searchIndex()).search("refund", 1),
+        Bm25Index.restore(loaded.searchIndex()).search("refund", 1));
+  }
+
+  @Test
+  void keepsAbsentOptionalComponentsAbsent(@TempDir Path tmp) throws Exception {
+    BinaryKnowledgeBasePersistence p = new BinaryKnowledgeBasePersistence();
+    Path file = tmp.resolve("legacy.bin");
+    p.save(file, new KnowledgeBaseState("sig", List.of(), Map.of()));
+
+    Optional<KnowledgeBaseState> loaded = p.load(file);
+    assertNull(loaded.orElseThrow().searchIndex());
+    assertNull(loaded.get().sources());
+    assertTrue(loaded.get().entries().isEmpty());
+  }
+
+  @Test
+  void rejectsForeignAndTruncatedFiles(@TempDir Path tmp) throws Exception {
+    BinaryKnowledgeBasePersistence p = new BinaryKnowledgeBasePersistence();
+    Path json = tmp.resolve("state.json");
+    new FileKnowledgeBasePersistence().save(json, sampleState());
+    assertThrows(IOException.class, () -> p.load(json));
+
+    Path file = tmp.resolve("state.bin");
+    p.save(file, sampleState());
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+    assertThrows(IOException.class, () -> p.load(file));
+  }
+
+  @Test
+  void restoresBackupWhenStateIsCorrupt(@TempDir Path tmp) throws Exception {
+    BinaryKnowledgeBasePersistence p = new BinaryKnowledgeBasePersistence(1);
+    Path file = tmp.resolve("state.bin");
+    p.save(file, sampleState());
+    p.save(file, new KnowledgeBaseState("sig-2", List.of(), Map.of()));
+
+    Files.write(file, new byte[] {0x4B, 0x42});
+    assertEquals("sig-1", p.load(file).orElseThrow().signature());
+  }
+}
@@ -0,0 +1,98 @@
+package com.gentorox.services.knowledgebase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for Bm25Index: tokenization, ranking, incremental updates and snapshot round-trips.
+ */
+class Bm25IndexTest {
+
+  private static final List<KnowledgeBaseEntry> ENTRIES = List.of(
+      new KnowledgeBaseEntry("kb://openapi/sales/docs/OrdersApi.md", "Orders endpoints",
+          "# OrdersApi\ncreateOrder creates an order. listOrders lists orders by region."),
+      new KnowledgeBaseEntry("kb://openapi/sales/docs/CustomersApi.md", "Customers endpoints",
+          "# CustomersApi\ngetCustomer returns a customer profile."),
+      new KnowledgeBaseEntry("kb://docs/Regions.md", "Sales regions",
+          "Regions group stores. Each region has a manager."));
+
+  @Test
+  void tokenizeSplitsCamelCaseAndLowercases() {
+    assertEquals(List.of("createorder", "create", "order", "v2", "httpserver", "http", "server"),
+        Bm25Index.tokenize("createOrder v2 HTTPServer"));
+    assertTrue(Bm25Index.tokenize("a - _").isEmpty());
+  }
+
+  @Test
+  void ranksMostRelevantEntryFirst() {
+    Bm25Index index = Bm25Index.build(ENTRIES);
+
+    List<Bm25Index.Hit> hits = index.search("create order", 3);
+
+    assertFalse(hits.isEmpty());
+    assertEquals("kb://openapi/sales/docs/OrdersApi.md", hits.get(0).resource());
+    for (int i = 1; i < hits.size(); i++) {
+      assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+    }
+  }
+
+  @Test
+  void limitsResultsAndIgnoresUnknownTerms() {
+    Bm25Index index = Bm25Index.build(ENTRIES);
+
+    assertEquals(1, index.search("region", 1).size());
+    assertTrue(index.search("nonexistentterm", 5).isEmpty());
+    assertTrue(index.search("   ", 5).isEmpty());
+    assertTrue(index.search("region", 0).isEmpty());
+    assertTrue(Bm25Index.empty().search("region", 5).isEmpty());
+  }
+
+  @Test
+  void snapshotRoundTripPreservesScores() {
+    Bm25Index index = Bm25Index.build(ENTRIES);
+
+    Bm25Index restored = Bm25Index.restore(index.snapshot());
+
+    assertEquals(index.size(), restored.size());
+    assertEquals(index.termCount(), restored.termCount());
+    assertEquals(index.search("customer profile", 3), restored.search("customer profile", 3));
+  }
+
+  @Test
+  void updateMatchesAFullBuildAndOnlyReadsAddedEntries() {
+    KnowledgeBaseEntry changedOrders = new KnowledgeBaseEntry("kb://openapi/sales/docs/OrdersApi.md", "Orders endpoints",
+        "# OrdersApi\ncancelOrder cancels an order.");
+    KnowledgeBaseEntry added = new KnowledgeBaseEntry("kb://docs/Stores.md", "Stores", "Stores belong to a region.");
+    List<KnowledgeBaseEntry> expected = List.of(ENTRIES.get(1), ENTRIES.get(2), changedOrders, added);
+    List<String> read = new ArrayList<>();
+
+    Bm25Index updated = Bm25Index.build(ENTRIES).update(
+        Set.of(changedOrders.resource(), "kb://docs/Gone.md"), List.of(changedOrders, added),
+        e -> { read.add(e.resource()); return e.content(); });
+    Bm25Index rebuilt = Bm25Index.build(expected);
+
+    assertEquals(List.of(changedOrders.resource(), added.resource()), read);
+    assertEquals(rebuilt.size(), updated.size());
+    assertEquals(rebuilt.termCount(), updated.termCount());
+    for (String query : List.of("cancel order", "region", "customer profile", "create order")) {
+      assertEquals(rebuilt.search(query, 4), updated.search(query, 4));
+    }
+  }
+
+  @Test
+  void restoreRejectsInconsistentSnapshots() {
+    Bm25Index.Snapshot good = Bm25Index.build(ENTRIES).snapshot();
+    Bm25Index.Snapshot badLengths = new Bm25Index.Snapshot(good.resources(), new int[1], good.postings());
+    Bm25Index.Snapshot badDoc = new Bm25Index.Snapshot(good.resources(), good.docLengths(), Map.of("x", new int[]{7, 1}));
+
+    assertThrows(IllegalArgumentException.class, () -> Bm25Index.restore(badLengths));
+    assertThrows(IllegalArgumentException.class, () -> Bm25Index.restore(badDoc));
+    assertThrows(IllegalArgumentException.class, () -> Bm25Index.restore(null));
+  }
+}
@@ -0,0 +1,57 @@
+package com.gentorox.services.knowledgebase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ContentCache: LRU eviction within the byte budget and hit/miss/eviction counters.
+ */
+class ContentCacheTest {
+
+  @Test
+  void evictsLeastRecentlyUsedWithinBudget() {
+    ContentCache cache = new ContentCache(40); // 20 chars
+    AtomicInteger loads = new AtomicInteger();
+
+    assertEquals("aaaaaaaaaa", cache.get("a", k -> { loads.incrementAndGet(); return "aaaaaaaaaa"; }));
+    cache.get("b", k -> { loads.incrementAndGet(); return "bbbbbbbbbb"; });
+    cache.get("a", k -> { loads.incrementAndGet(); return "aaaaaaaaaa"; }); // hit, a becomes most recent
+    cache.get("c", k -> { loads.incrementAndGet(); return "cccccccccc"; }); // evicts b
+
+    assertEquals(3, loads.get());
+    assertEquals(new ContentCache.Stats(1, 3, 1, 2, 40), cache.stats());
+    cache.get("a", k -> fail("a should be cached"));
+    cache.get("b", k -> { loads.incrementAndGet(); return "bbbbbbbbbb"; });
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void doesNotCacheOversizedOrMissingValuesAndSupportsInvalidation() {
+    ContentCache cache = new ContentCache(10);
+    assertEquals("x".repeat(50), cache.get("big", k -> "x".repeat(50)));
+    assertNull(cache.get("missing", k -> null));
+    assertEquals(0, cache.stats().entries());
+
+    cache.get("k", k -> "v1");
+    cache.invalidate("k");
+    assertEquals("v2", cache.get("k", k -> "v2"));
+    assertEquals(4, cache.stats().misses());
+    assertEquals(4, cache.stats().bytes());
+  }
+
+  @Test
+  void loadOverlappingAnInvalidationIsNotCached() {
+    ContentCache cache = new ContentCache(100);
+    // The file changes (and its entry is invalidated) while the old content is being read
+    assertEquals("old", cache.get("file://a", k -> {
+      cache.invalidate(k);
+      return "old";
+    }));
+
+    assertEquals("new", cache.get("file://a", k -> "new"));
+    assertEquals("new", cache.get("file://a", k -> fail("new content should be cached")));
+  }
+}
@@ -3,6 +3,7 @@ package com.gentorox.services.knowledgebase;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -40,4 +41,51 @@ public class FileKnowledgeBasePersistenceTest {
     assertEquals(2, loaded.get().entries().size());
     assertEquals("file:///a.md", loaded.get().entries().get(0).resource());
   }
+
+  @Test
+  void keepsOnlyTheConfiguredNumberOfBackups(@TempDir Path tmp) throws Exception {
+    FileKnowledgeBasePersistence p = new FileKnowledgeBasePersistence(2, false);
+    Path file = tmp.resolve("kb/knowledge-base-state.json");
+
+    for (int i = 0; i < 5; i++) {
+      p.save(file, new KnowledgeBaseState("sig-" + i, List.of(), Collections.emptyMap()));
+      Thread.sleep(2); // distinct backup timestamps
+    }
+
+    assertEquals(2, StateFiles.backups(file).size());
+    assertEquals("sig-4", p.load(file).orElseThrow().signature());
+    try (var files = Files.list(file.getParent())) {
+      assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+    }
+  }
+
+  @Test
+  void fallsBackToNewestReadableBackupWhenStateIsCorrupt(@TempDir Path tmp) throws Exception {
+    FileKnowledgeBasePersistence p = new FileKnowledgeBasePersistence();
+    Path file = tmp.resolve("kb/knowledge-base-state.json");
+    p.save(file, new KnowledgeBaseState("sig-old", List.of(), Collections.emptyMap()));
+    Thread.sleep(2);
+    p.save(file, new KnowledgeBaseState("sig-new", List.of(), Collections.emptyMap()));
+
+    Files.writeString(file, "{\"signature\": \"sig-torn\", \"entr"); // torn write
+    assertEquals("sig-old", p.load(file).orElseThrow().signature());
+
+    StateFiles.backups(file).forEach(b -> b.toFile().delete());
+    assertThrows(IOException.class, () -> p.load(file));
+  }
+
+  @Test
+  void compressedStateRoundTripsAndIsReadableWithoutTheFlag(@TempDir Path tmp) throws Exception {
+    Path file = tmp.resolve("kb/knowledge-base-state.json");
+    KnowledgeBaseEntry e1 = new KnowledgeBaseEntry("kb://docs/a.md", "doc a", null, "file:///a.md");
+    new FileKnowledgeBasePersistence(0, true).save(file, new KnowledgeBaseState("sig-gz", List.of(e1), Collections.emptyMap()));
+
+    byte[] raw = Files.readAllBytes(file);
+    assertEquals((byte) 0x1f, raw[0]);
+    assertEquals((byte) 0x8b, raw[1]);
+    KnowledgeBaseState loaded = new FileKnowledgeBasePersistence().load(file).orElseThrow();
+    assertEquals("sig-gz", loaded.signature());
+    assertEquals(List.of(e1), loaded.entries());
+    assertTrue(StateFiles.backups(file).isEmpty());
+  }
 }
@@ -0,0 +1,52 @@
+package com.gentorox.services.knowledgebase;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for HintCache: content addressing, persistence across reopen and tolerance to torn writes.
+ */
+class HintCacheTest {
+
+  @Test
+  void keysOnModelHintSizeNameAndContentExcerpt(@TempDir Path tmp) {
+    HintCache cache = HintCache.open(tmp.resolve("hints.jsonl"), "openai:gpt-4o", 240);
+    cache.put("Order.md", "# Order\nAn order placed by a customer.", "Order model");
+
+    assertEquals(Optional.of("Order model"), cache.get("Order.md", "# Order\nAn order placed by a customer."));
+    assertTrue(cache.get("Order.md", "# Order\nA different order.").isEmpty());
+    assertTrue(cache.get("Other.md", "# Order\nAn order placed by a customer.").isEmpty());
+
+    // Only the excerpt shown to the model matters
+    String head = "x".repeat(BatchHintGenerator.EXCERPT_CHARS);
+    cache.put("Big.md", head + "tail one", "big");
+    assertEquals(Optional.of("big"), cache.get("Big.md", head + "tail two"));
+
+    HintCache otherModel = HintCache.open(tmp.resolve("hints.jsonl"), "gemini:gemini-2.0-flash", 240);
+    assertTrue(otherModel.get("Order.md", "# Order\nAn order placed by a customer.").isEmpty());
+    HintCache otherSize = HintCache.open(tmp.resolve("hints.jsonl"), "openai:gpt-4o", 120);
+    assertTrue(otherSize.get("Order.md", "# Order\nAn order placed by a customer.").isEmpty());
+  }
+
+  @Test
+  void survivesReopenAndIgnoresTornLines(@TempDir Path tmp) throws Exception {
+    Path file = tmp.resolve("state/hints.jsonl");
+    HintCache cache = HintCache.open(file, "m", 240);
+    cache.put("A.md", "Alpha", "first");
+    cache.put("A.md", "Alpha", "second");
+    cache.put("B.md", "Bravo", "bravo");
+    Files.writeString(file, "{\"k\":\"abc\",\"h\":\"tr", StandardOpenOption.APPEND);
+
+    HintCache reopened = HintCache.open(file, "m", 240);
+    assertEquals(2, reopened.size());
+    assertEquals(Optional.of("second"), reopened.get("A.md", "Alpha"));
+    assertEquals(Optional.of("bravo"), reopened.get("B.md", "Bravo"));
+  }
+}
@@ -0,0 +1,43 @@
+package com.gentorox.services.knowledgebase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for KnowledgeBaseChunker: size limit, heading boundaries and stable ids.
+ */
+class KnowledgeBaseChunkerTest {
+
+  @Test
+  void startsNewChunkAtHeadingsAndKeepsIdsStable() {
+    String content = "# Orders\nCreate and list orders.\n\n## Fields\nid, total, region\n\n## Examples\ncreateOrder({})\n";
+    KnowledgeBaseChunker chunker = new KnowledgeBaseChunker(200);
+
+    List<KnowledgeBaseChunk> chunks = chunker.split("kb://docs/Orders.md", content);
+
+    assertEquals(3, chunks.size());
+    assertEquals("kb://docs/Orders.md#chunk-1", chunks.get(1).id());
+    assertEquals("## Fields\nid, total, region", chunks.get(1).text(content));
+    assertEquals(chunks, chunker.split("kb://docs/Orders.md", content));
+  }
+
+  @Test
+  void mergesSmallBlocksAndSplitsOversizedOnes() {
+    String para = "word ".repeat(30).strip(); // 149 chars
+    String content = para + "\n\n" + para + "\n\n" + "x".repeat(300);
+    KnowledgeBaseChunker chunker = new KnowledgeBaseChunker(128);
+
+    List<KnowledgeBaseChunk> chunks = chunker.split("kb://docs/a.md", content);
+
+    for (KnowledgeBaseChunk c : chunks) {
+      assertTrue(c.end() - c.start() <= 128, "chunk too large: " + (c.end() - c.start()));
+      assertFalse(c.text(content).isBlank());
+    }
+    for (int i = 0; i < chunks.size(); i++) assertEquals(i, chunks.get(i).index());
+    assertTrue(new KnowledgeBaseChunker(1000).split("kb://docs/a.md", "a\n\nb").size() == 1);
+    assertTrue(chunker.split("kb://docs/a.md", "  \n ").isEmpty());
+  }
+}
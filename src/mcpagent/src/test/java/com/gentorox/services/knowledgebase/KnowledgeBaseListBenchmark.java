@@ -0,0 +1,75 @@
+package com.gentorox.services.knowledgebase;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the legacy {@code list(prefix)} (filter all entries + sort per call) with the
+ * range query over the sorted map used by {@link KnowledgeBaseServiceImpl}.
+ *
+ * Each iteration lists one service namespace (1% of the entries), which is what the system prompt build and
+ * RetrieveContext do per call. Run from the module directory after {@code mvn test-compile}:
+ * <pre>
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gentorox.services.knowledgebase.KnowledgeBaseListBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnowledgeBaseListBenchmark {
+
+  private static final int SERVICES = 100;
+
+  @Param({"10000", "100000"})
+  public int entries;
+
+  private Map<String, KnowledgeBaseEntry> hashed;
+  private ConcurrentSkipListMap<String, KnowledgeBaseEntry> sorted;
+  private String prefix;
+
+  @Setup
+  public void setUp() {
+    hashed = new ConcurrentHashMap<>();
+    sorted = new ConcurrentSkipListMap<>();
+    int perService = entries / SERVICES;
+    for (int s = 0; s < SERVICES; s++) {
+      for (int i = 0; i < perService; i++) {
+        String res = "kb://openapi/openapi_service_%03d/docs/Model%05d.md".formatted(s, i);
+        KnowledgeBaseEntry e = new KnowledgeBaseEntry(res, "Schema of Model%d.".formatted(i), "");
+        hashed.put(res, e);
+        sorted.put(res, e);
+      }
+    }
+    prefix = "kb://openapi/openapi_service_%03d/docs/".formatted(SERVICES / 2);
+  }
+
+  @Benchmark
+  public List<KnowledgeBaseEntry> legacyScanAndSort() {
+    return hashed.values().stream()
+        .filter(e -> e.resource().startsWith(prefix))
+        .sorted(Comparator.comparing(KnowledgeBaseEntry::resource))
+        .toList();
+  }
+
+  @Benchmark
+  public List<KnowledgeBaseEntry> sortedRange() {
+    return KnowledgeBaseServiceImpl.listByPrefix(sorted, prefix);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(KnowledgeBaseListBenchmark.class.getSimpleName()).build()).run();
+  }
+}
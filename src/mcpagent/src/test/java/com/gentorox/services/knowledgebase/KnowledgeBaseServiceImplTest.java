@@ -16,8 +16,11 @@ import reactor.core.publisher.Mono;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,7 +37,7 @@ public class KnowledgeBaseServiceImplTest {
   void setUp() {
     inference = Mockito.mock(InferenceService.class);
     // Return a short deterministic hint regardless of prompt
-    when(inference.sendRequest(any(), any())).thenReturn(new InferenceResponse("test hint", Optional.empty(), "trace"));
+    when(inference.complete(any())).thenReturn(new InferenceResponse("test hint", Optional.empty(), "trace"));
 
     ts = Mockito.mock(TypescriptRuntimeClient.class);
 
@@ -149,4 +152,272 @@ public class KnowledgeBaseServiceImplTest {
     verify(ts, times(1)).uploadOpenapi(eq(spec), any(), anyBoolean());
     verify(ts, times(1)).fetchDocs(eq("ns1"), eq(false));
   }
+
+  @Test
+  void searchRanksEntriesAndSurvivesCacheRestore(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(docs.resolve("Orders.md"), "# Orders\nUse createOrder to place an order.");
+    Files.writeString(docs.resolve("Customers.md"), "# Customers\nCustomer profiles and addresses.");
+    Path statePath = tmp.resolve("kb/state.json");
+
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence);
+    setStateFile(svc, statePath);
+    svc.initialize(foundation);
+
+    List<KnowledgeBaseSearchHit> hits = svc.search("place order", 5);
+    assertFalse(hits.isEmpty());
+    assertEquals("kb://docs/Orders.md", hits.get(0).resource());
+    assertNotNull(hits.get(0).hint());
+
+    KnowledgeBaseServiceImpl restored = new KnowledgeBaseServiceImpl(inference, ts, persistence);
+    setStateFile(restored, statePath);
+    restored.initialize(foundation);
+
+    assertTrue(restored.loadedFromCache());
+    assertNotNull(persistence.load(statePath).orElseThrow().searchIndex());
+    assertEquals(hits, restored.search("place order", 5));
+  }
+
+  @Test
+  void listByPrefixIsASortedRangeQuery() {
+    var sorted = new java.util.concurrent.ConcurrentSkipListMap<String, KnowledgeBaseEntry>();
+    for (String r : List.of("kb://docs/b.md", "kb://docs/a.md", "kb://docsx/c.md", "kb://openapi/ns/docs/X.md", "kb://doc")) {
+      sorted.put(r, new KnowledgeBaseEntry(r, "", ""));
+    }
+
+    assertEquals(List.of("kb://docs/a.md", "kb://docs/b.md"),
+        KnowledgeBaseServiceImpl.listByPrefix(sorted, "kb://docs/").stream().map(KnowledgeBaseEntry::resource).toList());
+    assertEquals(List.of("kb://docs/a.md", "kb://docs/b.md", "kb://docsx/c.md"),
+        KnowledgeBaseServiceImpl.listByPrefix(sorted, "kb://docs").stream().map(KnowledgeBaseEntry::resource).toList());
+    assertEquals(5, KnowledgeBaseServiceImpl.listByPrefix(sorted, null).size());
+    assertTrue(KnowledgeBaseServiceImpl.listByPrefix(sorted, "kb://tests/").isEmpty());
+    assertTrue(KnowledgeBaseServiceImpl.listByPrefix(sorted, "kb://docs/\uffff").isEmpty());
+  }
+
+  @Test
+  void searchChunksReturnsRelevantPassagesAndReusesPersistedEmbeddings(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(docs.resolve("Orders.md"), "# Orders\nOverview of orders.\n\n## Refunds\nA refund reverses a paid order within 30 days.\n");
+    Path statePath = tmp.resolve("kb/state.json");
+    var embeddings = Mockito.spy(new HashingEmbeddingModel(128));
+
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, false, 240, embeddings, 200, 4, 2, 4000,
+        KnowledgeBaseServiceImpl.DEFAULT_CONTENT_CACHE_BYTES);
+    svc.initialize(foundation);
+
+    var hits = svc.searchChunks("refund a paid order", 1);
+    assertEquals(1, hits.size());
+    assertEquals("kb://docs/Orders.md#chunk-1", hits.get(0).id());
+    assertTrue(hits.get(0).content().startsWith("## Refunds"));
+    assertTrue(Files.exists(statePath.resolveSibling("knowledge-base-vectors.bin")));
+
+    clearInvocations(embeddings);
+    KnowledgeBaseServiceImpl restored = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, false, 240, embeddings, 200, 4, 2, 4000,
+        KnowledgeBaseServiceImpl.DEFAULT_CONTENT_CACHE_BYTES);
+    restored.initialize(foundation);
+
+    assertTrue(restored.loadedFromCache());
+    verify(embeddings, never()).embedAll(any());
+    assertEquals(hits, restored.searchChunks("refund a paid order", 1));
+  }
+
+  @Test
+  void reingestsOnlyChangedAndRemovedFiles(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(docs.resolve("A.md"), "Alpha");
+    Files.writeString(docs.resolve("B.md"), "Bravo");
+    Files.writeString(docs.resolve("C.md"), "Charlie");
+    Path spec = Files.createDirectories(foundation.resolve("openapi")).resolve("api.json");
+    Files.writeString(spec, "{\"openapi\": \"3.0.0\", \"paths\": {}}");
+    when(ts.uploadOpenapi(eq(spec), any(), anyBoolean())).thenReturn(Mono.just(new UploadResult(true, new Sdk("ns1", "/tmp/sdk/ns1", "file:///tmp/sdk/ns1/index.ts"), "ok")));
+    when(ts.fetchDocs(eq("ns1"), eq(false))).thenReturn(Mono.just(new DocsResponse(true, "ns1", 1, List.of(new DocFile("ServiceApi.md", "# Service API")), null, "generated")));
+    Path statePath = tmp.resolve("kb/state.json");
+
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, true, 240);
+    svc.initialize(foundation);
+    assertEquals(4, svc.list(null).size());
+    verify(ts).uploadOpenapi(eq(spec), any(), eq(true));
+
+    // Edit one doc, delete another, touch a third without changing its content
+    clearInvocations(inference, ts);
+    Files.writeString(docs.resolve("A.md"), "Alpha, revised");
+    Files.delete(docs.resolve("B.md"));
+    Files.setLastModifiedTime(docs.resolve("C.md"), java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+    KnowledgeBaseServiceImpl refreshed = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, true, 240);
+    refreshed.initialize(foundation);
+
+    assertFalse(refreshed.loadedFromCache());
+    assertEquals(List.of("kb://docs/A.md", "kb://docs/C.md", "kb://openapi/ns1/docs/ServiceApi.md"),
+        refreshed.list(null).stream().map(KnowledgeBaseEntry::resource).toList());
+    assertEquals("Alpha, revised", refreshed.getContent("kb://docs/A.md").orElseThrow());
+    assertEquals(Optional.of("/tmp/sdk/ns1"), refreshed.getServices().map(m -> m.get("ns1")));
+    verify(inference, times(1)).complete(any()); // only A.md gets a new hint
+    verifyNoInteractions(ts);                                // the spec is not re-uploaded
+
+    // Nothing changed since: pure cache hit
+    clearInvocations(inference);
+    KnowledgeBaseServiceImpl cached = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, true, 240);
+    cached.initialize(foundation);
+    assertTrue(cached.loadedFromCache());
+    verifyNoInteractions(inference);
+  }
+
+  @Test
+  void legacyStateWithoutFingerprintsTriggersFullBuild(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(foundation.resolve("docs/A.md"), "Alpha");
+    Path statePath = tmp.resolve("kb/state.json");
+    persistence.save(statePath, new KnowledgeBaseState("old", List.of(new KnowledgeBaseEntry("kb://docs/Stale.md", "", "")), java.util.Map.of()));
+
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, false, 240);
+    svc.initialize(foundation);
+
+    assertFalse(svc.loadedFromCache());
+    assertEquals(List.of("kb://docs/A.md"), svc.list(null).stream().map(KnowledgeBaseEntry::resource).toList());
+    assertNotNull(persistence.load(statePath).orElseThrow().sources());
+  }
+
+  @Test
+  void ingestsInParallelAndUploadsCleanupSpecFirst(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    for (int i = 0; i < 4; i++) Files.writeString(docs.resolve("D" + i + ".md"), "Doc " + i);
+    Path specs = Files.createDirectories(foundation.resolve("openapi"));
+    Path a = Files.writeString(specs.resolve("a.json"), "{}");
+    Path b = Files.writeString(specs.resolve("b.json"), "{}");
+
+    // Every hint waits until four are in flight: only completes if hints really run concurrently
+    var barrier = new java.util.concurrent.CyclicBarrier(4);
+    when(inference.complete(any())).thenAnswer(inv -> {
+      barrier.await(5, java.util.concurrent.TimeUnit.SECONDS);
+      return new InferenceResponse("parallel hint", Optional.empty(), "trace");
+    });
+    List<String> uploads = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+    when(ts.uploadOpenapi(any(), any(), anyBoolean())).thenAnswer(inv -> {
+      Path spec = inv.getArgument(0);
+      boolean cleanup = inv.getArgument(2);
+      uploads.add(spec.getFileName() + ":" + cleanup + ":start");
+      if (cleanup) Thread.sleep(100);
+      uploads.add(spec.getFileName() + ":" + cleanup + ":end");
+      String ns = "ns_" + spec.getFileName().toString().charAt(0);
+      return Mono.just(new UploadResult(true, new Sdk(ns, "/tmp/sdk/" + ns, null), "ok"));
+    });
+    when(ts.fetchDocs(any(), eq(false))).thenAnswer(inv -> Mono.just(new DocsResponse(true, inv.getArgument(0), 0, List.of(), null, "generated")));
+
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, tmp.resolve("kb/state.json"),
+        true, 240, new HashingEmbeddingModel(), 1200, 4, 2, 1, KnowledgeBaseServiceImpl.DEFAULT_CONTENT_CACHE_BYTES);
+    svc.initialize(foundation);
+
+    assertEquals(4, svc.list("kb://docs/").size());
+    assertTrue(svc.list("kb://docs/").stream().allMatch(e -> e.hint().equals("parallel hint")));
+    assertEquals(List.of("a.json:true:start", "a.json:true:end", "b.json:false:start", "b.json:false:end"), uploads);
+    assertEquals(java.util.Set.of("ns_a", "ns_b"), svc.getServices().orElseThrow().keySet());
+  }
+
+  @Test
+  void reusesCachedHintsAcrossFoundationsAndRebuilds(@TempDir Path tmp) throws Exception {
+    Path first = Files.createDirectories(tmp.resolve("first/docs"));
+    Path second = Files.createDirectories(tmp.resolve("second/docs"));
+    for (Path dir : List.of(first, second)) {
+      Files.writeString(dir.resolve("Shared.md"), "Shared model used by every service");
+    }
+    Files.writeString(second.resolve("Only.md"), "Only in the second foundation");
+    Path statePath = tmp.resolve("state/kb.json");
+
+    new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, true, 240).initialize(tmp.resolve("first"));
+    verify(inference, times(1)).complete(any());
+    assertTrue(Files.exists(statePath.resolveSibling("hint-cache.jsonl")));
+
+    // A different foundation only pays for its new document
+    clearInvocations(inference);
+    KnowledgeBaseServiceImpl other = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, true, 240);
+    other.initialize(tmp.resolve("second"));
+    verify(inference, times(1)).complete(any());
+    assertEquals("test hint", other.list("kb://docs/Shared.md").get(0).hint());
+
+    // A full rebuild without the KB state still hits the hint cache
+    Files.delete(statePath);
+    clearInvocations(inference);
+    new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, true, 240).initialize(tmp.resolve("second"));
+    verify(inference, never()).complete(any());
+  }
+
+  @Test
+  void keepsOnlyContentLocatorsResidentAndLoadsContentOnDemand(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(docs.resolve("Guide.md"), "# Guide\nHow to use the API");
+    Path spec = Files.createDirectories(foundation.resolve("openapi")).resolve("api.json");
+    Files.writeString(spec, "{\"openapi\": \"3.0.0\", \"paths\": {}}");
+    when(ts.uploadOpenapi(eq(spec), any(), anyBoolean())).thenReturn(Mono.just(new UploadResult(true, new Sdk("ns1", "/tmp/sdk/ns1", "file:///tmp/sdk/ns1/index.ts"), "ok")));
+    when(ts.fetchDocs(eq("ns1"), eq(false))).thenReturn(Mono.just(new DocsResponse(true, "ns1", 1, List.of(new DocFile("OrderApi.md", "# Order API")), "/nonexistent/runtime/docs", "generated")));
+    Path statePath = tmp.resolve("state/kb.json");
+
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, false, 240);
+    svc.initialize(foundation);
+    assertTrue(svc.list(null).stream().allMatch(e -> e.content() == null && e.location() != null));
+    assertFalse(Files.readString(statePath).contains("\"content\""));
+
+    // Restart from the state: contents come from the foundation file and the blob store
+    KnowledgeBaseServiceImpl restarted = new KnowledgeBaseServiceImpl(inference, ts, persistence, statePath, false, 240);
+    restarted.initialize(foundation);
+    assertTrue(restarted.loadedFromCache());
+    assertEquals("# Order API", restarted.getContent("kb://openapi/ns1/docs/OrderApi.md").orElseThrow());
+    assertEquals("# Guide\nHow to use the API", restarted.getContent("kb://docs/Guide.md").orElseThrow());
+    assertEquals("# Guide\nHow to use the API", restarted.getContent("kb://docs/Guide.md").orElseThrow());
+    assertEquals(1, restarted.contentCacheStats().hits());
+    assertEquals(2, restarted.contentCacheStats().misses());
+
+    // An edited file is re-read, not served from the cache
+    Files.writeString(docs.resolve("Guide.md"), "# Guide\nRevised");
+    restarted.initialize(foundation);
+    assertEquals("# Guide\nRevised", restarted.getContent("kb://docs/Guide.md").orElseThrow());
+  }
+
+  @Test
+  void bumpsVersionAndNotifiesListenersOnlyWhenARefreshChangesTheKnowledgeBase(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(docs.resolve("A.md"), "Alpha");
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, tmp.resolve("state/kb.json"), false, 240);
+    AtomicInteger changes = new AtomicInteger();
+    svc.addChangeListener(changes::incrementAndGet);
+
+    assertEquals(0, svc.version());
+    svc.initialize(foundation);
+    assertEquals(1, changes.get());
+    assertEquals(1, svc.version());
+    svc.initialize(foundation);
+    assertEquals(1, changes.get());
+    assertEquals(1, svc.version());
+
+    Files.writeString(docs.resolve("A.md"), "Alpha, revised");
+    svc.initialize(foundation);
+    assertEquals(2, changes.get());
+    assertEquals(2, svc.version());
+  }
+
+  @Test
+  void getContentsLoadsABatchInRequestOrder(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    for (int i = 0; i < 20; i++) Files.writeString(docs.resolve("D%02d.md".formatted(i)), "Doc " + i);
+    KnowledgeBaseServiceImpl svc = new KnowledgeBaseServiceImpl(inference, ts, persistence, tmp.resolve("state/kb.json"), false, 240);
+    svc.initialize(foundation);
+
+    List<String> uris = new ArrayList<>();
+    for (int i = 19; i >= 0; i--) uris.add("kb://docs/D%02d.md".formatted(i));
+    uris.add(2, "kb://docs/Missing.md");
+    uris.add(5, "kb://docs/D19.md");
+
+    Map<String, String> contents = svc.getContents(uris);
+    assertEquals(uris.stream().filter(u -> !u.endsWith("Missing.md")).distinct().toList(), List.copyOf(contents.keySet()));
+    assertEquals("Doc 7", contents.get("kb://docs/D07.md"));
+    assertEquals(20, svc.contentCacheStats().entries());
+  }
 }
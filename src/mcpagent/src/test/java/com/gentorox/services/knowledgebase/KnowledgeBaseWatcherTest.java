@@ -0,0 +1,71 @@
+package com.gentorox.services.knowledgebase;
+
+import com.gentorox.services.inference.InferenceService;
+import com.gentorox.services.typescript.TypescriptRuntimeClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for KnowledgeBaseWatcher: edits, additions and deletions under the foundation are picked up without a
+ * restart, and a burst of events results in a single refresh.
+ */
+class KnowledgeBaseWatcherTest {
+
+  private KnowledgeBaseWatcher watcher;
+
+  @AfterEach
+  void tearDown() {
+    if (watcher != null) watcher.close();
+  }
+
+  @Test
+  void refreshesOnceAfterABurstOfChanges(@TempDir Path tmp) throws Exception {
+    Path foundation = tmp.resolve("foundation");
+    Path docs = Files.createDirectories(foundation.resolve("docs"));
+    Files.writeString(docs.resolve("A.md"), "Alpha");
+    Files.writeString(docs.resolve("B.md"), "Bravo");
+    KnowledgeBaseServiceImpl kb = new KnowledgeBaseServiceImpl(mock(InferenceService.class), mock(TypescriptRuntimeClient.class),
+        new FileKnowledgeBasePersistence(), foundation.resolve("state/kb.json"), false, 240);
+    kb.initialize(foundation);
+    AtomicInteger changes = new AtomicInteger();
+    kb.addChangeListener(changes::incrementAndGet);
+
+    watcher = new KnowledgeBaseWatcher(kb, foundation, Duration.ofMillis(300));
+    watcher.start();
+    Files.writeString(docs.resolve("A.md"), "Alpha, revised");
+    Files.delete(docs.resolve("B.md"));
+    Files.writeString(docs.resolve("C.md"), "Charlie");
+
+    waitUntil(() -> watcher.refreshes() > 0);
+    assertEquals(Optional.of("Alpha, revised"), kb.getContent("kb://docs/A.md"));
+    assertTrue(kb.list("kb://docs/B.md").isEmpty());
+    assertEquals(1, kb.list("kb://docs/C.md").size());
+    assertEquals(1, watcher.refreshes());
+    assertEquals(1, changes.get());
+
+    // Directories created after start are watched too
+    Path feedback = Files.createDirectories(foundation.resolve("feedback"));
+    Files.writeString(feedback.resolve("notes.txt"), "Some feedback");
+    waitUntil(() -> kb.list("kb://feedback/").size() == 1);
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) fail("condition not met in time");
+      Thread.sleep(20);
+    }
+  }
+}
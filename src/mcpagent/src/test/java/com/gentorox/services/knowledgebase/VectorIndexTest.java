@@ -0,0 +1,71 @@
+package com.gentorox.services.knowledgebase;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for VectorIndex top-k search and its binary persistence, using the hashing embedding model.
+ */
+class VectorIndexTest {
+
+  private static final HashingEmbeddingModel MODEL = new HashingEmbeddingModel(64);
+  private static final List<String> TEXTS = List.of(
+      "Create an order with createOrder and a list of line items",
+      "Customer profile fields: name, email, address",
+      "Regions group stores and each region has a manager");
+
+  private static VectorIndex index() {
+    List<KnowledgeBaseChunk> chunks = new ArrayList<>();
+    float[] arena = new float[TEXTS.size() * MODEL.dimension()];
+    for (int i = 0; i < TEXTS.size(); i++) {
+      chunks.add(new KnowledgeBaseChunk("kb://docs/d" + i + ".md", 0, 0, TEXTS.get(i).length()));
+      System.arraycopy(MODEL.embedText(TEXTS.get(i)), 0, arena, i * MODEL.dimension(), MODEL.dimension());
+    }
+    return new VectorIndex("hashing", "sig", 1200, MODEL.dimension(), chunks, arena);
+  }
+
+  @Test
+  void returnsMostSimilarChunksFirst() {
+    List<VectorIndex.Hit> hits = index().search(MODEL.embedText("customer email address"), 2);
+
+    assertEquals(2, hits.size());
+    assertEquals("kb://docs/d1.md", hits.get(0).chunk().resource());
+    assertTrue(hits.get(0).score() > hits.get(1).score());
+    assertThrows(IllegalArgumentException.class, () -> index().search(new float[3], 1));
+  }
+
+  @Test
+  void saveAndLoadRoundTrip(@TempDir Path tmp) throws IOException {
+    VectorIndex index = index();
+    Path file = tmp.resolve("kb/vectors.bin");
+
+    index.save(file);
+    VectorIndex loaded = VectorIndex.load(file).orElseThrow();
+
+    assertTrue(loaded.matches("hashing", "sig", 1200, 64));
+    assertFalse(loaded.matches("hashing", "other", 1200, 64));
+    assertFalse(loaded.matches("hashing", "sig", 800, 64));
+    float[] q = MODEL.embedText("store manager region");
+    assertEquals(index.search(q, 3), loaded.search(q, 3));
+    assertTrue(VectorIndex.load(tmp.resolve("missing.bin")).isEmpty());
+  }
+
+  @Test
+  void loadRejectsTruncatedFiles(@TempDir Path tmp) throws IOException {
+    Path file = tmp.resolve("vectors.bin");
+    index().save(file);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+    assertThrows(IOException.class, () -> VectorIndex.load(file));
+  }
+}
@@ -11,6 +11,9 @@ import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Map;
@@ -87,4 +90,29 @@ class TelemetryServiceTracingTest {
     assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
     assertThat(span.getEvents()).anyMatch(e -> e.getName().equals("exception"));
   }
+
+  @Test
+  void reactiveSpans_areParentedThroughReactorContext_acrossThreads() {
+    var session = new TelemetrySession("s-r");
+
+    String result = telemetryService.runRootReactive(session, "root", Map.of(),
+        telemetryService.inSpanReactive("child",
+            Mono.deferContextual(view -> Mono.fromCallable(() ->
+                TelemetryService.inContext(view, () -> MDC.get(TelemetryConstants.MDC_SESSION_ID))))
+                .subscribeOn(Schedulers.boundedElastic()))
+            .flux()).blockLast();
+
+    assertThat(result).isEqualTo("s-r");
+    // Spans end in doFinally, which may run just after blockLast() has returned
+    long deadline = System.nanoTime() + java.util.concurrent.TimeUnit.SECONDS.toNanos(5);
+    while (spanExporter.getFinishedSpanItems().size() < 2 && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    var child = spanExporter.getFinishedSpanItems().stream().filter(s -> s.getName().equals("child")).findFirst().orElseThrow();
+    var root = spanExporter.getFinishedSpanItems().stream().filter(s -> s.getName().equals("root")).findFirst().orElseThrow();
+    assertThat(root.getKind()).isEqualTo(SpanKind.SERVER);
+    assertThat(child.getParentSpanId()).isEqualTo(root.getSpanContext().getSpanId());
+    assertThat(child.getAttributes().get(io.opentelemetry.api.common.AttributeKey.stringKey(ATTR_SESSION_ID)))
+        .isEqualTo("s-r");
+  }
 }
@@ -0,0 +1,52 @@
+package com.gentorox.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentShaperTest {
+
+  private static final String DOC = """
+      # Orders API
+      Intro text.
+
+      ## Create order {#create}
+      POST /orders creates an order.
+      ```md
+      # Not a heading
+      ```
+      ### Request body
+      Fields of the request.
+
+      ## List orders
+      GET /orders lists orders.
+      """;
+
+  @Test
+  void extractsASectionByHeadingTextAnchorOrExplicitId() {
+    String expected = DOC.substring(DOC.indexOf("## Create order"), DOC.indexOf("## List orders")).stripTrailing();
+    assertEquals(expected, ContentShaper.section(DOC, "Create order").orElseThrow());
+    assertEquals(expected, ContentShaper.section(DOC, "#create-order").orElseThrow());
+    assertEquals(expected, ContentShaper.section(DOC, "#create").orElseThrow());
+    assertEquals("## List orders\nGET /orders lists orders.", ContentShaper.section(DOC, "list orders").orElseThrow());
+    assertTrue(ContentShaper.section(DOC, "Not a heading").isEmpty());
+    assertTrue(ContentShaper.section(DOC, "Delete order").isEmpty());
+  }
+
+  @Test
+  void returnsMergedLineWindowsAroundQueryTermsWithinTheCap() {
+    StringBuilder doc = new StringBuilder();
+    for (int i = 0; i < 200; i++) doc.append("filler line ").append(i).append('\n');
+    doc.insert(doc.indexOf("filler line 50\n"), "the cancelOrder endpoint\n");
+    doc.insert(doc.indexOf("filler line 150\n"), "CANCELORDER again\n");
+
+    String window = ContentShaper.window(doc.toString(), "cancelOrder", 20, 10_000).orElseThrow();
+    assertTrue(window.contains("the cancelOrder endpoint\n"));
+    assertTrue(window.contains("CANCELORDER again"));
+    assertEquals(2, window.split(ContentShaper.GAP, -1).length);
+    assertFalse(window.contains("filler line 100\n"));
+
+    assertTrue(ContentShaper.window(doc.toString(), "cancelOrder", 20, 30).orElseThrow().length() <= 30);
+    assertTrue(ContentShaper.window(doc.toString(), "refund", 20, 10_000).isEmpty());
+  }
+}
@@ -0,0 +1,33 @@
+package com.gentorox.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayWriterTest {
+
+  @Test
+  void escapesQuotesBackslashesAndControlCharactersAndRoundTrips() throws Exception {
+    String content = "# Title\n\"quoted\" \\path\\ tab\there \u0001\u001f\r\b\f ünïcödé 😀";
+    String json = new JsonArrayWriter(16)
+        .beginObject().field("resource", "kb://docs/a.md").field("content", content).endObject()
+        .beginObject().field("resource", "kb://docs/b.md").field("content", content, 0, 7).field("truncated", true).endObject()
+        .beginObject().field("resource", null).endObject()
+        .finish();
+
+    assertTrue(json.contains("\\u0001\\u001f"));
+    JsonNode nodes = new ObjectMapper().readTree(json);
+    assertEquals(3, nodes.size());
+    assertEquals(content, nodes.get(0).get("content").asText());
+    assertEquals("# Title", nodes.get(1).get("content").asText());
+    assertTrue(nodes.get(1).get("truncated").asBoolean());
+    assertTrue(nodes.get(2).get("resource").isNull());
+  }
+
+  @Test
+  void writesAnEmptyArray() {
+    assertEquals("[]", new JsonArrayWriter(0).finish());
+  }
+}
@@ -0,0 +1,145 @@
+package com.gentorox.tools;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the legacy RetrieveContext serialization (collect a {@code List<Map>}, escape every
+ * string into its own StringBuilder, {@code String.format} for control characters) with the streaming
+ * {@link JsonArrayWriter}. The payload is ~1 MB of markdown split over a few resources.
+ *
+ * Run with the GC profiler to compare allocation rates ({@code gc.alloc.rate.norm}), from the module directory
+ * after {@code mvn test-compile}:
+ * <pre>
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gentorox.tools.RetrieveContextJsonBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetrieveContextJsonBenchmark {
+
+  @Param({"1048576"})
+  public int payloadBytes;
+
+  @Param({"4"})
+  public int resources;
+
+  private List<String> uris;
+  private List<String> contents;
+
+  @Setup
+  public void setUp() {
+    String section = """
+        ## Endpoint `GET /orders/{id}`
+        Returns the order with the given id. Fields:
+        | Name   | Type   | Description            |
+        |--------|--------|------------------------|
+        | id     | string | Order id, e.g. "o-123" |
+        | total  | number | Total in cents         |
+        \tNote: paths use a backslash on Windows: C:\\orders\\export.csv
+        ```ts
+        const order = await client.getOrder({ id: "o-123" });
+        ```
+
+        """;
+    uris = new ArrayList<>();
+    contents = new ArrayList<>();
+    for (int r = 0; r < resources; r++) {
+      StringBuilder sb = new StringBuilder(payloadBytes / resources + section.length());
+      while (sb.length() < payloadBytes / resources) sb.append(section);
+      uris.add("kb://openapi/orders/docs/Doc%d.md".formatted(r));
+      contents.add(sb.toString());
+    }
+  }
+
+  @Benchmark
+  public String legacyListOfMaps() {
+    List<Map<String, Object>> result = new ArrayList<>();
+    for (int i = 0; i < uris.size(); i++) {
+      result.add(Map.of("resource", uris.get(i), "content", contents.get(i)));
+    }
+    return legacyToJsonArrayOfObjects(result);
+  }
+
+  @Benchmark
+  public String streamingWriter() {
+    JsonArrayWriter json = new JsonArrayWriter(1024);
+    json.reserve(contents.stream().mapToLong(String::length).sum());
+    for (int i = 0; i < uris.size(); i++) {
+      json.beginObject().field("resource", uris.get(i)).field("content", contents.get(i)).endObject();
+    }
+    return json.finish();
+  }
+
+  /** Verbatim copy of the pre-streaming RetrieveContextTool.escapeJson, kept as the baseline. */
+  static String legacyEscapeJson(String s) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      switch (ch) {
+        case '"' -> sb.append("\\\"");
+        case '\\' -> sb.append("\\\\");
+        case '\n' -> sb.append("\\n");
+        case '\r' -> sb.append("\\r");
+        case '\t' -> sb.append("\\t");
+        case '\b' -> sb.append("\\b");
+        case '\f' -> sb.append("\\f");
+        default -> {
+          if (ch < 0x20) {
+            sb.append(String.format("\\u%04x", (int) ch));
+          } else {
+            sb.append(ch);
+          }
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  /** Verbatim copy of the pre-streaming RetrieveContextTool.toJsonArrayOfObjects. */
+  static String legacyToJsonArrayOfObjects(List<Map<String, Object>> list) {
+    StringBuilder sb = new StringBuilder();
+    sb.append('[');
+    boolean firstObj = true;
+    for (Map<String, Object> obj : list) {
+      if (!firstObj) sb.append(',');
+      firstObj = false;
+      sb.append('{');
+      boolean firstField = true;
+      for (Map.Entry<String, Object> e : obj.entrySet()) {
+        if (!firstField) sb.append(',');
+        firstField = false;
+        sb.append('"').append(legacyEscapeJson(e.getKey())).append('"').append(':');
+        Object v = e.getValue();
+        if (v == null) {
+          sb.append("null");
+        } else {
+          sb.append('"').append(legacyEscapeJson(String.valueOf(v))).append('"');
+        }
+      }
+      sb.append('}');
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RetrieveContextJsonBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
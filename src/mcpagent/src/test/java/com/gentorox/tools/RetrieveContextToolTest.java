@@ -0,0 +1,112 @@
+package com.gentorox.tools;
+
+import com.gentorox.services.knowledgebase.KnowledgeBaseEntry;
+import com.gentorox.services.knowledgebase.KnowledgeBaseService;
+import com.gentorox.services.telemetry.TelemetryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RetrieveContextToolTest {
+
+  KnowledgeBaseService kb;
+  TelemetryService telemetry;
+
+  @BeforeEach
+  void setUp() {
+    kb = mock(KnowledgeBaseService.class);
+    telemetry = mock(TelemetryService.class);
+    when(telemetry.inSpan(anyString(), anyMap(), any(Supplier.class))).thenAnswer(inv -> {
+      Supplier<?> body = inv.getArgument(2);
+      return body.get();
+    });
+    when(kb.getContents(anyCollection())).thenAnswer(inv -> {
+      Map<String, String> out = new LinkedHashMap<>();
+      for (String uri : inv.<Collection<String>>getArgument(0)) {
+        if (!uri.endsWith("missing.md")) out.put(uri, "x".repeat(10));
+      }
+      return out;
+    });
+  }
+
+  @Test
+  void returnsContentsInRequestOrderAndSkipsMissingResources() {
+    when(kb.list("kb://docs/")).thenReturn(List.of(new KnowledgeBaseEntry("kb://docs/a.md", "A", null),
+        new KnowledgeBaseEntry("kb://docs/b.md", "B", null)));
+    RetrieveContextTool tool = new RetrieveContextTool(kb, telemetry);
+
+    String json = tool.retrieveContext(List.of("kb://docs/z.md", "docs/", "kb://docs/missing.md"));
+
+    assertTrue(json.indexOf("kb://docs/z.md") < json.indexOf("kb://docs/a.md"));
+    assertTrue(json.indexOf("kb://docs/a.md") < json.indexOf("kb://docs/b.md"));
+    assertFalse(json.contains("missing.md"));
+    verify(kb).getContents(List.of("kb://docs/z.md", "kb://docs/a.md", "kb://docs/b.md", "kb://docs/missing.md"));
+    verify(kb, never()).getContent(anyString());
+  }
+
+  @Test
+  void truncatesAtTheCharacterBudgetAndListsTheRestAsOmitted() {
+    List<String> resources = new ArrayList<>();
+    for (int i = 0; i < 40; i++) resources.add("kb://docs/d%02d.md".formatted(i));
+    RetrieveContextTool tool = new RetrieveContextTool(kb, telemetry, 25, RetrieveContextTool.DEFAULT_WINDOW_CHARS);
+
+    String json = tool.retrieveContext(resources);
+
+    assertEquals(2, json.split("\"content\":\"xxxxxxxxxx\"", -1).length - 1);
+    assertTrue(json.contains("\"content\":\"xxxxx\",\"truncated\":true") || json.contains("\"truncated\":true,\"content\":\"xxxxx\""));
+    assertEquals(37, json.split("\"omitted\":\"" + RetrieveContextTool.OMITTED + "\"", -1).length - 1);
+    // Batches after the one that spent the budget are not loaded at all
+    verify(kb, times(1)).getContents(anyCollection());
+  }
+
+  @Test
+  void truncatesOnACodePointBoundary() {
+    // "ab" then U+1F600 as a surrogate pair: a budget of 3 would split the pair
+    when(kb.getContents(anyCollection())).thenReturn(Map.of("kb://docs/a.md", "ab\uD83D\uDE00cd"));
+    RetrieveContextTool tool = new RetrieveContextTool(kb, telemetry, 3, RetrieveContextTool.DEFAULT_WINDOW_CHARS);
+
+    assertEquals("[{\"resource\":\"kb://docs/a.md\",\"content\":\"ab\",\"truncated\":true,\"elided\":4}]",
+        tool.retrieveContext(List.of("kb://docs/a.md")));
+  }
+
+  @Test
+  void shapesContentsToTheRequestedSectionOrQueryAndReportsTheElidedSize() {
+    String doc = "# A\nalpha\n## B\nbeta\n";
+    when(kb.getContents(anyCollection())).thenReturn(Map.of("kb://docs/a.md", doc));
+    RetrieveContextTool tool = new RetrieveContextTool(kb, telemetry);
+
+    assertEquals("[{\"resource\":\"kb://docs/a.md\",\"mode\":\"section\",\"content\":\"## B\\nbeta\",\"elided\":11}]",
+        tool.retrieveContext(List.of("kb://docs/a.md"), "B", null, null));
+    assertTrue(tool.retrieveContext(List.of("kb://docs/a.md"), null, "beta", null).contains("\"mode\":\"window\""));
+    // Nothing matches: the full content is returned
+    assertEquals("[{\"resource\":\"kb://docs/a.md\",\"content\":\"# A\\nalpha\\n## B\\nbeta\\n\"}]",
+        tool.retrieveContext(List.of("kb://docs/a.md"), "C", null, null));
+  }
+
+  @Test
+  void returnsSummariesWithoutLoadingContentsAndWhenAContentExceedsTheBudget() {
+    when(kb.list("kb://docs/")).thenReturn(List.of(new KnowledgeBaseEntry("kb://docs/a.md", "Summary of A", null),
+        new KnowledgeBaseEntry("kb://docs/b.md", "Summary of B", null)));
+    RetrieveContextTool tool = new RetrieveContextTool(kb, telemetry, 15, RetrieveContextTool.DEFAULT_WINDOW_CHARS);
+
+    String summaries = tool.retrieveContext(List.of("docs/"), null, null, true);
+    assertTrue(summaries.contains("{\"resource\":\"kb://docs/a.md\",\"mode\":\"summary\",\"content\":\"Summary of A\"}"));
+    assertTrue(summaries.contains("{\"resource\":\"kb://docs/b.md\",\"mode\":\"summary\",\"content\":\"Sum\",\"truncated\":true}"));
+    verify(kb, never()).getContents(anyCollection());
+
+    when(kb.getContents(anyCollection())).thenReturn(Map.of("kb://docs/a.md", "x".repeat(100)));
+    when(kb.list("kb://docs/a.md")).thenReturn(List.of(new KnowledgeBaseEntry("kb://docs/a.md", "Summary of A", null)));
+    assertEquals("[{\"resource\":\"kb://docs/a.md\",\"mode\":\"summary\",\"content\":\"Summary of A\",\"elided\":88}]",
+        tool.retrieveContext(List.of("kb://docs/a.md"), null, null, null));
+  }
+}